@@ -0,0 +1,26 @@
+package org.tilakpatellshreyaan.devspacebackend.auth;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "devspace.auth")
+public class AuthProperties {
+  public enum Mode {
+    // userId lives in the server-side HTTP session; nodes need sticky sessions or a shared store
+    SESSION,
+    // userId is signed into a cookie or bearer token that any node can verify on its own
+    TOKEN
+  }
+
+  private Mode mode = Mode.SESSION;
+  // Base64 HMAC-SHA256 key, the same on every node; required in TOKEN mode
+  private String secret;
+  // Tokens expire this long after sign in
+  private Duration ttl = Duration.ofHours(12);
+  private String cookieName = "devspace_token";
+  // Tokens whose signature was already checked, so repeat requests skip the HMAC
+  private int cacheSize = 10000;
+}
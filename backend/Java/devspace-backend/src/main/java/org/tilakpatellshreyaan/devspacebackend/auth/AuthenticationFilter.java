@@ -0,0 +1,57 @@
+package org.tilakpatellshreyaan.devspacebackend.auth;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Puts the signed-in user's id into the {@code userId} request attribute, from the signed token in
+ * TOKEN mode or from an existing HTTP session otherwise. Controllers read only the attribute, so
+ * they work the same in both modes and never create a session themselves.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class AuthenticationFilter extends OncePerRequestFilter {
+  private final SessionTokens sessionTokens;
+
+  public AuthenticationFilter(SessionTokens sessionTokens) {
+    this.sessionTokens = sessionTokens;
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+          throws ServletException, IOException {
+    String userId;
+    if (sessionTokens.isTokenMode()) {
+      userId = sessionTokens.resolve(request.getHeader(HttpHeaders.AUTHORIZATION), cookie(request)).orElse(null);
+    } else {
+      HttpSession session = request.getSession(false);
+      userId = session == null ? null : (String) session.getAttribute("userId");
+    }
+    if (userId != null) {
+      request.setAttribute("userId", userId);
+    }
+    chain.doFilter(request, response);
+  }
+
+  private String cookie(HttpServletRequest request) {
+    if (request.getCookies() == null) {
+      return null;
+    }
+    for (Cookie cookie : request.getCookies()) {
+      if (cookie.getName().equals(sessionTokens.cookieName())) {
+        return cookie.getValue();
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,39 @@
+package org.tilakpatellshreyaan.devspacebackend.auth;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpCookie;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+// The reactive counterpart of AuthenticationFilter: sets the userId exchange attribute.
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveAuthenticationFilter implements WebFilter {
+  private final SessionTokens sessionTokens;
+
+  public ReactiveAuthenticationFilter(SessionTokens sessionTokens) {
+    this.sessionTokens = sessionTokens;
+  }
+
+  @Override
+  public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+    if (sessionTokens.isTokenMode()) {
+      HttpCookie cookie = exchange.getRequest().getCookies().getFirst(sessionTokens.cookieName());
+      sessionTokens.resolve(exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION),
+                      cookie == null ? null : cookie.getValue())
+              .ifPresent(userId -> exchange.getAttributes().put("userId", userId));
+      return chain.filter(exchange);
+    }
+    return exchange.getSession().flatMap(session -> {
+      String userId = session.getAttribute("userId");
+      if (userId != null) {
+        exchange.getAttributes().put("userId", userId);
+      }
+      return chain.filter(exchange);
+    });
+  }
+}
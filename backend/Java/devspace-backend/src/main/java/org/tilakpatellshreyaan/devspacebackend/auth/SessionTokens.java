@@ -0,0 +1,149 @@
+package org.tilakpatellshreyaan.devspacebackend.auth;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Issues and checks the signed tokens used in TOKEN mode. A token is
+ * {@code base64url(userId.expiry).base64url(hmac)}, so verifying one needs only the shared
+ * secret: no session store and no database read. Tokens cannot be revoked before they expire;
+ * signing out only clears the cookie.
+ */
+@Component
+public class SessionTokens {
+  private static final String ALGORITHM = "HmacSHA256";
+  private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+  private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+  private static final String BEARER = "Bearer ";
+
+  private record Verified(String userId, long expiresAt) {
+  }
+
+  private final AuthProperties properties;
+  private final Clock clock;
+  private final SecretKeySpec key;
+  // Tokens whose signature was already checked; reads take no lock
+  private final Cache<String, Verified> verified;
+
+  @Autowired
+  public SessionTokens(AuthProperties properties) {
+    this(properties, Clock.systemUTC());
+  }
+
+  SessionTokens(AuthProperties properties, Clock clock) {
+    this.properties = properties;
+    this.clock = clock;
+    if (properties.getSecret() != null && !properties.getSecret().isBlank()) {
+      this.key = new SecretKeySpec(Base64.getDecoder().decode(properties.getSecret()), ALGORITHM);
+    } else if (isTokenMode()) {
+      throw new IllegalStateException("devspace.auth.secret is required when devspace.auth.mode=token");
+    } else {
+      this.key = null;
+    }
+    this.verified = Caffeine.newBuilder()
+            .maximumSize(properties.getCacheSize())
+            .expireAfterWrite(properties.getTtl())
+            .build();
+  }
+
+  public boolean isTokenMode() {
+    return properties.getMode() == AuthProperties.Mode.TOKEN;
+  }
+
+  public String issue(String userId) {
+    long expiresAt = clock.instant().plus(properties.getTtl()).getEpochSecond();
+    byte[] payload = (userId + "." + expiresAt).getBytes(StandardCharsets.UTF_8);
+    return ENCODER.encodeToString(payload) + "." + ENCODER.encodeToString(sign(payload));
+  }
+
+  // Returns the signed-in user id, or empty when the token is malformed, forged or expired.
+  public Optional<String> verify(String token) {
+    if (token == null || key == null) {
+      return Optional.empty();
+    }
+    long now = clock.instant().getEpochSecond();
+    Verified cached = verified.getIfPresent(token);
+    if (cached != null) {
+      if (cached.expiresAt() > now) {
+        return Optional.of(cached.userId());
+      }
+      verified.invalidate(token);
+      return Optional.empty();
+    }
+
+    Verified parsed = parse(token);
+    if (parsed == null || parsed.expiresAt() <= now) {
+      return Optional.empty();
+    }
+    verified.put(token, parsed);
+    return Optional.of(parsed.userId());
+  }
+
+  // Takes the token from an "Authorization: Bearer" header first, then from the cookie.
+  public Optional<String> resolve(String authorization, String cookie) {
+    if (authorization != null && authorization.startsWith(BEARER)) {
+      return verify(authorization.substring(BEARER.length()).trim());
+    }
+    return verify(cookie);
+  }
+
+  public String cookieName() {
+    return properties.getCookieName();
+  }
+
+  public ResponseCookie cookie(String token) {
+    return baseCookie(token).maxAge(properties.getTtl()).build();
+  }
+
+  public ResponseCookie expiredCookie() {
+    return baseCookie("").maxAge(0).build();
+  }
+
+  private ResponseCookie.ResponseCookieBuilder baseCookie(String value) {
+    return ResponseCookie.from(properties.getCookieName(), value).httpOnly(true).sameSite("Lax").path("/");
+  }
+
+  private Verified parse(String token) {
+    int dot = token.indexOf('.');
+    if (dot <= 0 || dot != token.lastIndexOf('.')) {
+      return null;
+    }
+    try {
+      byte[] payload = DECODER.decode(token.substring(0, dot));
+      byte[] signature = DECODER.decode(token.substring(dot + 1));
+      if (!MessageDigest.isEqual(sign(payload), signature)) {
+        return null;
+      }
+      String claims = new String(payload, StandardCharsets.UTF_8);
+      int separator = claims.lastIndexOf('.');
+      if (separator <= 0) {
+        return null;
+      }
+      return new Verified(claims.substring(0, separator), Long.parseLong(claims.substring(separator + 1)));
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  private byte[] sign(byte[] payload) {
+    try {
+      Mac mac = Mac.getInstance(ALGORITHM);
+      mac.init(key);
+      return mac.doFinal(payload);
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("HMAC-SHA256 unavailable", e);
+    }
+  }
+}
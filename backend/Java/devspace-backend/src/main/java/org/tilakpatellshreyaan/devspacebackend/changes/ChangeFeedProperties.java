@@ -0,0 +1,19 @@
+package org.tilakpatellshreyaan.devspacebackend.changes;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "devspace.changes")
+public class ChangeFeedProperties {
+  // Tail Mongo change streams; needs a replica set, and switches itself off on a standalone server
+  private boolean enabled = true;
+  // Turn on pre-images for the files collection (MongoDB 6+) so deletes still name their repository
+  private boolean preImages = true;
+  // Wait before reopening the change stream after an error
+  private Duration retryDelay = Duration.ofSeconds(5);
+  // Clients reconnect to the change stream endpoint after this long
+  private Duration streamTimeout = Duration.ofMinutes(30);
+}
@@ -0,0 +1,25 @@
+package org.tilakpatellshreyaan.devspacebackend.changes;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.tilakpatellshreyaan.devspacebackend.service.FileChangedEvent;
+
+/**
+ * One change pushed to the clients watching a repository. {@code kind} is {@code file},
+ * {@code repository} or {@code resync}; the last tells the client that changes may have been
+ * missed and it should reload once.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record RepositoryChange(String kind, String repositoryId, FileChangedEvent.Type type, String fileId,
+                               String filename) {
+  static RepositoryChange file(String repositoryId, FileChangedEvent.Type type, String fileId, String filename) {
+    return new RepositoryChange("file", repositoryId, type, fileId, filename);
+  }
+
+  static RepositoryChange repository(String repositoryId, FileChangedEvent.Type type) {
+    return new RepositoryChange("repository", repositoryId, type, null, null);
+  }
+
+  static RepositoryChange resync(String repositoryId) {
+    return new RepositoryChange("resync", repositoryId, null, null, null);
+  }
+}
@@ -0,0 +1,267 @@
+package org.tilakpatellshreyaan.devspacebackend.changes;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.FullDocumentBeforeChange;
+import com.mongodb.client.model.changestream.OperationType;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+import org.tilakpatellshreyaan.devspacebackend.model.CodeRepository;
+import org.tilakpatellshreyaan.devspacebackend.model.FileData;
+import org.tilakpatellshreyaan.devspacebackend.service.FileChangedEvent;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tails one Mongo change stream over the files and repository collections and pushes a compact
+ * {@link RepositoryChange} to every client watching the affected repository, so clients no longer
+ * poll for files. File changes are also republished as {@link FileChangedEvent}s, which keeps the
+ * caches and indexes of every instance in step with writes made on the others.
+ *
+ * <p>The resume token of the last change is kept in memory, so a dropped cursor picks up where it
+ * left off. If the server no longer has that point in its oplog, watching clients are told to
+ * resync.
+ */
+@Slf4j
+@Service
+public class RepositoryChangeFeed {
+  private static final int CHANGE_STREAM_UNSUPPORTED = 40573;
+  private static final int CHANGE_STREAM_HISTORY_LOST = 286;
+
+  public interface Subscriber {
+    void send(RepositoryChange change) throws IOException;
+
+    void close();
+  }
+
+  private final MongoTemplate mongoTemplate;
+  private final ApplicationEventPublisher eventPublisher;
+  private final ChangeFeedProperties properties;
+  private final String filesCollection;
+  private final String repositoriesCollection;
+  private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+  private volatile boolean running;
+  private volatile boolean supported = true;
+  private volatile Thread tail;
+  // Only read and written by the tail thread
+  private BsonDocument resumeToken;
+
+  public RepositoryChangeFeed(MongoTemplate mongoTemplate, ApplicationEventPublisher eventPublisher,
+                              ChangeFeedProperties properties) {
+    this.mongoTemplate = mongoTemplate;
+    this.eventPublisher = eventPublisher;
+    this.properties = properties;
+    this.filesCollection = mongoTemplate.getCollectionName(FileData.class);
+    this.repositoriesCollection = mongoTemplate.getCollectionName(CodeRepository.class);
+  }
+
+  public boolean isEnabled() {
+    return properties.isEnabled() && supported;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    if (!properties.isEnabled()) {
+      return;
+    }
+    running = true;
+    tail = Thread.ofVirtual().name("change-feed").start(this::tail);
+  }
+
+  @PreDestroy
+  public void stop() {
+    running = false;
+    Thread thread = tail;
+    if (thread != null) {
+      thread.interrupt();
+    }
+    subscribers.values().forEach(set -> set.forEach(Subscriber::close));
+    subscribers.clear();
+  }
+
+  public void subscribe(String repositoryId, Subscriber subscriber) {
+    subscribers.compute(repositoryId, (id, set) -> {
+      Set<Subscriber> current = set == null ? ConcurrentHashMap.newKeySet() : set;
+      current.add(subscriber);
+      return current;
+    });
+  }
+
+  public void unsubscribe(String repositoryId, Subscriber subscriber) {
+    subscribers.computeIfPresent(repositoryId, (id, set) -> {
+      set.remove(subscriber);
+      return set.isEmpty() ? null : set;
+    });
+  }
+
+  private void tail() {
+    if (properties.isPreImages()) {
+      enablePreImages();
+    }
+    while (running) {
+      try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = open()) {
+        while (running) {
+          ChangeStreamDocument<Document> change = cursor.tryNext();
+          if (change != null) {
+            dispatch(change);
+          }
+          // Also advances on empty batches, so a resume does not rescan a quiet stretch.
+          if (cursor.getResumeToken() != null) {
+            resumeToken = cursor.getResumeToken();
+          }
+        }
+      } catch (MongoCommandException e) {
+        if (e.getErrorCode() == CHANGE_STREAM_UNSUPPORTED) {
+          log.warn("Mongo does not support change streams (not a replica set); repository change feed is off");
+          supported = false;
+          stop();
+          return;
+        }
+        if (e.getErrorCode() == CHANGE_STREAM_HISTORY_LOST) {
+          log.warn("Change stream resume point is gone from the oplog; watching clients must resync");
+          resumeToken = null;
+          subscribers.keySet().forEach(repositoryId -> fanOut(repositoryId, RepositoryChange.resync(repositoryId)));
+          continue;
+        }
+        if (!pause(e)) {
+          return;
+        }
+      } catch (MongoException e) {
+        if (!pause(e)) {
+          return;
+        }
+      }
+    }
+  }
+
+  private MongoChangeStreamCursor<ChangeStreamDocument<Document>> open() {
+    List<Bson> pipeline = List.of(
+            Aggregates.match(Filters.and(
+                    Filters.in("ns.coll", filesCollection, repositoriesCollection),
+                    Filters.in("operationType", "insert", "update", "replace", "delete"))),
+            // Drops content and every other field the events do not carry.
+            Aggregates.project(Projections.include("operationType", "ns", "documentKey",
+                    "fullDocument.repositoryId", "fullDocument.filename",
+                    "fullDocumentBeforeChange.repositoryId", "fullDocumentBeforeChange.filename")));
+    var stream = mongoTemplate.getDb().watch(pipeline)
+            .fullDocument(FullDocument.UPDATE_LOOKUP)
+            .fullDocumentBeforeChange(FullDocumentBeforeChange.WHEN_AVAILABLE)
+            .maxAwaitTime(1, TimeUnit.SECONDS);
+    if (resumeToken != null) {
+      stream = stream.resumeAfter(resumeToken);
+    }
+    return stream.cursor();
+  }
+
+  private void dispatch(ChangeStreamDocument<Document> change) {
+    String id = id(change.getDocumentKey() == null ? null : change.getDocumentKey().get("_id"));
+    if (id == null || change.getNamespace() == null) {
+      return;
+    }
+    FileChangedEvent.Type type = switch (change.getOperationType()) {
+      case INSERT -> FileChangedEvent.Type.CREATED;
+      case DELETE -> FileChangedEvent.Type.DELETED;
+      default -> FileChangedEvent.Type.UPDATED;
+    };
+
+    if (change.getNamespace().getCollectionName().equals(filesCollection)) {
+      Document file = change.getFullDocument() != null ? change.getFullDocument() : change.getFullDocumentBeforeChange();
+      String repositoryId = file == null ? null : id(file.get("repositoryId"));
+      String filename = file == null ? null : file.getString("filename");
+      try {
+        eventPublisher.publishEvent(new FileChangedEvent(id, repositoryId, type, true));
+      } catch (RuntimeException e) {
+        log.warn("Listener failed on change to file {}: {}", id, e.getMessage());
+      }
+      if (repositoryId != null) {
+        fanOut(repositoryId, RepositoryChange.file(repositoryId, type, id, filename));
+      }
+      return;
+    }
+
+    fanOut(id, RepositoryChange.repository(id, type));
+    if (change.getOperationType() == OperationType.DELETE) {
+      Set<Subscriber> watching = subscribers.remove(id);
+      if (watching != null) {
+        watching.forEach(Subscriber::close);
+      }
+    }
+  }
+
+  private void fanOut(String repositoryId, RepositoryChange change) {
+    Set<Subscriber> watching = subscribers.get(repositoryId);
+    if (watching == null) {
+      return;
+    }
+    for (Subscriber subscriber : watching) {
+      try {
+        subscriber.send(change);
+      } catch (IOException | IllegalStateException e) {
+        unsubscribe(repositoryId, subscriber);
+        subscriber.close();
+      }
+    }
+  }
+
+  private void enablePreImages() {
+    try {
+      if (!mongoTemplate.collectionExists(filesCollection)) {
+        mongoTemplate.createCollection(filesCollection);
+      }
+      mongoTemplate.getDb().runCommand(new Document("collMod", filesCollection)
+              .append("changeStreamPreAndPostImages", new Document("enabled", true)));
+    } catch (MongoException e) {
+      // Without pre-images a delete still reaches the caches, just not the repository's watchers.
+      log.info("Could not enable change stream pre-images on {}: {}", filesCollection, e.getMessage());
+    }
+  }
+
+  // Returns false when the feed is stopping.
+  private boolean pause(MongoException e) {
+    if (!running) {
+      return false;
+    }
+    log.warn("Change stream failed, reopening in {}: {}", properties.getRetryDelay(), e.getMessage());
+    try {
+      Thread.sleep(properties.getRetryDelay());
+      return true;
+    } catch (InterruptedException interrupted) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  private static String id(Object value) {
+    if (value instanceof BsonValue bson) {
+      if (bson.isObjectId()) {
+        return bson.asObjectId().getValue().toHexString();
+      }
+      return bson.isString() ? bson.asString().getValue() : null;
+    }
+    if (value instanceof ObjectId objectId) {
+      return objectId.toHexString();
+    }
+    return value instanceof String string ? string : null;
+  }
+}
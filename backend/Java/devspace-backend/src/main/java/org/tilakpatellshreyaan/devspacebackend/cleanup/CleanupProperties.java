@@ -0,0 +1,21 @@
+package org.tilakpatellshreyaan.devspacebackend.cleanup;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "devspace.cleanup")
+public class CleanupProperties {
+  // Remove the files, activities and references left behind by deleted repositories and users
+  private boolean enabled = true;
+  // Documents removed per deleteMany
+  private int batchSize = 500;
+  // Pause between batches, so cleanup never competes with requests for Mongo
+  private Duration batchPause = Duration.ofMillis(100);
+  // How long one instance holds a tombstone before another may retry it
+  private Duration lease = Duration.ofMinutes(5);
+  // Unreferenced content chunks are only removed once nothing has written them for this long
+  private Duration chunkGracePeriod = Duration.ofHours(1);
+}
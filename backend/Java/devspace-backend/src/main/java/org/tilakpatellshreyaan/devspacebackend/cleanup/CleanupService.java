@@ -0,0 +1,172 @@
+package org.tilakpatellshreyaan.devspacebackend.cleanup;
+
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.tilakpatellshreyaan.devspacebackend.model.Activity;
+import org.tilakpatellshreyaan.devspacebackend.model.CodeRepository;
+import org.tilakpatellshreyaan.devspacebackend.model.FileData;
+import org.tilakpatellshreyaan.devspacebackend.model.Tombstone;
+import org.tilakpatellshreyaan.devspacebackend.model.User;
+import org.tilakpatellshreyaan.devspacebackend.service.FileChangedEvent;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Removes what a deleted repository or user leaves behind. Deleting one only writes a
+ * {@link Tombstone}; a background worker then removes the dependent documents in bounded batches
+ * with a pause between them, so a large repository never turns into one long delete. Tombstones
+ * live in Mongo and are leased, so work survives restarts and is shared between instances.
+ */
+@Slf4j
+@Service
+public class CleanupService {
+  private final MongoTemplate mongoTemplate;
+  private final ApplicationEventPublisher eventPublisher;
+  private final CleanupProperties properties;
+  private final AtomicBoolean draining = new AtomicBoolean();
+
+  public CleanupService(MongoTemplate mongoTemplate, ApplicationEventPublisher eventPublisher,
+                        CleanupProperties properties) {
+    this.mongoTemplate = mongoTemplate;
+    this.eventPublisher = eventPublisher;
+    this.properties = properties;
+  }
+
+  /**
+   * Records that {@code targetId} was deleted and wakes the worker. Enqueuing the same target
+   * twice leaves one tombstone.
+   */
+  public void enqueue(Tombstone.Kind kind, String targetId) {
+    if (!ObjectId.isValid(targetId)) {
+      return;
+    }
+    mongoTemplate.upsert(new Query(where("kind").is(kind).and("targetId").is(new ObjectId(targetId))),
+            new Update()
+                    .setOnInsert("createdAt", new Date())
+                    .setOnInsert("claimedUntil", new Date(0))
+                    .setOnInsert("attempts", 0),
+            Tombstone.class);
+    wake();
+  }
+
+  // Picks up tombstones whose lease ran out, and any enqueued while the worker was busy.
+  @Scheduled(fixedDelay = 10_000)
+  public void wake() {
+    if (!properties.isEnabled() || !draining.compareAndSet(false, true)) {
+      return;
+    }
+    Thread.ofVirtual().name("cleanup-worker").start(() -> {
+      try {
+        drain();
+      } catch (RuntimeException e) {
+        log.warn("Cleanup stopped: {}", e.getMessage());
+      } finally {
+        draining.set(false);
+      }
+    });
+  }
+
+  /**
+   * Removes documents matching {@code criteria} from {@code collection}, one batch per
+   * deleteMany, and hands each batch of removed ids to {@code removed}. Returns the number removed.
+   */
+  long deleteInBatches(String collection, Criteria criteria, Consumer<List<Object>> removed) {
+    long total = 0;
+    while (true) {
+      Query page = new Query(criteria).limit(properties.getBatchSize());
+      page.fields().include("_id");
+      List<Object> ids = mongoTemplate.find(page, Document.class, collection).stream()
+              .map(document -> document.get("_id"))
+              .toList();
+      if (ids.isEmpty()) {
+        return total;
+      }
+      total += mongoTemplate.remove(new Query(new Criteria().andOperator(criteria, where("_id").in(ids))), collection)
+              .getDeletedCount();
+      removed.accept(ids);
+      throttle();
+    }
+  }
+
+  void throttle() {
+    try {
+      Thread.sleep(properties.getBatchPause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Cleanup interrupted");
+    }
+  }
+
+  private void drain() {
+    Tombstone tombstone;
+    while ((tombstone = claim()) != null) {
+      try {
+        switch (tombstone.getKind()) {
+          case REPOSITORY -> removeRepositoryContents(new ObjectId(tombstone.getTargetId()));
+          case USER -> removeUserData(new ObjectId(tombstone.getTargetId()));
+        }
+        mongoTemplate.remove(new Query(where("_id").is(tombstone.getId())), Tombstone.class);
+      } catch (RuntimeException e) {
+        if (Thread.currentThread().isInterrupted()) {
+          return;
+        }
+        // The tombstone stays claimed until its lease ends, then it is retried.
+        log.warn("Cleanup of {} {} failed (attempt {}): {}", tombstone.getKind(), tombstone.getTargetId(),
+                tombstone.getAttempts(), e.getMessage());
+      }
+    }
+  }
+
+  private Tombstone claim() {
+    Date now = new Date();
+    return mongoTemplate.findAndModify(
+            new Query(where("claimedUntil").lt(now)),
+            new Update().set("claimedUntil", new Date(now.getTime() + properties.getLease().toMillis())).inc("attempts", 1),
+            FindAndModifyOptions.options().returnNew(true),
+            Tombstone.class);
+  }
+
+  private void removeRepositoryContents(ObjectId repositoryId) {
+    if (mongoTemplate.exists(new Query(where("_id").is(repositoryId)), CodeRepository.class)) {
+      log.warn("Repository {} still exists; dropping its tombstone", repositoryId);
+      return;
+    }
+    String id = repositoryId.toHexString();
+    long files = deleteInBatches(mongoTemplate.getCollectionName(FileData.class), where("repositoryId").is(repositoryId),
+            ids -> ids.forEach(fileId -> eventPublisher.publishEvent(
+                    new FileChangedEvent(fileId.toString(), id, FileChangedEvent.Type.DELETED))));
+    log.info("Removed {} files of deleted repository {}", files, id);
+  }
+
+  private void removeUserData(ObjectId userId) {
+    if (mongoTemplate.exists(new Query(where("_id").is(userId)), User.class)) {
+      log.warn("User {} still exists; dropping its tombstone", userId);
+      return;
+    }
+    // Each owned repository gets its own tombstone, so its files are removed in their own batches.
+    long repositories = deleteInBatches(mongoTemplate.getCollectionName(CodeRepository.class),
+            where("ownerId").is(userId),
+            ids -> ids.forEach(repositoryId -> enqueue(Tombstone.Kind.REPOSITORY, repositoryId.toString())));
+    long references = mongoTemplate.updateMulti(new Query(where("collaboratorIds").is(userId)),
+            new Update().pull("collaboratorIds", userId), CodeRepository.class).getModifiedCount();
+    long activities = deleteInBatches(mongoTemplate.getCollectionName(Activity.class), where("userId").is(userId),
+            ids -> {
+            });
+    log.info("Removed {} repositories, {} collaborator references and {} activities of deleted user {}",
+            repositories, references, activities, userId);
+  }
+}
@@ -0,0 +1,199 @@
+package org.tilakpatellshreyaan.devspacebackend.cleanup;
+
+import com.mongodb.client.MongoCollection;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.tilakpatellshreyaan.devspacebackend.model.CodeRepository;
+import org.tilakpatellshreyaan.devspacebackend.model.ContentChunk;
+import org.tilakpatellshreyaan.devspacebackend.model.FileData;
+import org.tilakpatellshreyaan.devspacebackend.model.Tombstone;
+import org.tilakpatellshreyaan.devspacebackend.model.User;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Finds dead data that no tombstone covers: files of repositories deleted before cleanup existed
+ * (or between a delete and its tombstone), repositories and collaborator entries of deleted
+ * users, {@code fileIds} pointing at deleted files, and content chunks no file refers to any more.
+ * Missing repositories and users get tombstones, so {@link CleanupService} does the removal;
+ * the rest is fixed here in batches.
+ */
+@Slf4j
+@Component
+public class OrphanSweeper {
+  private final MongoTemplate mongoTemplate;
+  private final CleanupService cleanupService;
+  private final CleanupProperties properties;
+  private final AtomicBoolean sweeping = new AtomicBoolean();
+
+  public OrphanSweeper(MongoTemplate mongoTemplate, CleanupService cleanupService, CleanupProperties properties) {
+    this.mongoTemplate = mongoTemplate;
+    this.cleanupService = cleanupService;
+    this.properties = properties;
+  }
+
+  @Scheduled(fixedDelayString = "${devspace.cleanup.sweep-interval:6h}", initialDelayString = "${devspace.cleanup.sweep-delay:10m}")
+  public void sweepInBackground() {
+    if (!properties.isEnabled() || !sweeping.compareAndSet(false, true)) {
+      return;
+    }
+    Thread.ofVirtual().name("orphan-sweeper").start(() -> {
+      try {
+        sweep();
+      } catch (RuntimeException e) {
+        log.warn("Orphan sweep stopped: {}", e.getMessage());
+      } finally {
+        sweeping.set(false);
+      }
+    });
+  }
+
+  public void sweep() {
+    int repositories = tombstoneMissing(Tombstone.Kind.REPOSITORY, CodeRepository.class,
+            distinct(FileData.class, "repositoryId"));
+    Set<ObjectId> referencedUsers = new LinkedHashSet<>(distinct(CodeRepository.class, "ownerId"));
+    referencedUsers.addAll(distinct(CodeRepository.class, "collaboratorIds"));
+    int users = tombstoneMissing(Tombstone.Kind.USER, User.class, referencedUsers);
+    long fileIds = pullDanglingFileIds();
+    long chunks = removeUnreferencedChunks();
+    log.info("Orphan sweep: {} deleted repositories and {} deleted users queued, {} dangling fileIds and {} chunks removed",
+            repositories, users, fileIds, chunks);
+  }
+
+  // Both fields are indexed, so distinct reads the index rather than the documents.
+  private List<ObjectId> distinct(Class<?> entity, String field) {
+    List<ObjectId> values = new ArrayList<>();
+    mongoTemplate.getCollection(mongoTemplate.getCollectionName(entity))
+            .distinct(field, Object.class)
+            .forEach(value -> {
+              if (value instanceof ObjectId id) {
+                values.add(id);
+              }
+            });
+    return values;
+  }
+
+  private int tombstoneMissing(Tombstone.Kind kind, Class<?> entity, Iterable<ObjectId> referenced) {
+    int queued = 0;
+    List<ObjectId> batch = new ArrayList<>();
+    for (ObjectId id : referenced) {
+      batch.add(id);
+      if (batch.size() == properties.getBatchSize()) {
+        queued += tombstoneMissingBatch(kind, entity, batch);
+        batch.clear();
+      }
+    }
+    if (!batch.isEmpty()) {
+      queued += tombstoneMissingBatch(kind, entity, batch);
+    }
+    return queued;
+  }
+
+  private int tombstoneMissingBatch(Tombstone.Kind kind, Class<?> entity, List<ObjectId> ids) {
+    Set<Object> existing = new HashSet<>(ids(new Query(where("_id").in(ids)), mongoTemplate.getCollectionName(entity)));
+    int queued = 0;
+    for (ObjectId id : ids) {
+      if (!existing.contains(id)) {
+        cleanupService.enqueue(kind, id.toHexString());
+        queued++;
+      }
+    }
+    cleanupService.throttle();
+    return queued;
+  }
+
+  private long pullDanglingFileIds() {
+    String repositories = mongoTemplate.getCollectionName(CodeRepository.class);
+    String files = mongoTemplate.getCollectionName(FileData.class);
+    long pulled = 0;
+    Object lastId = null;
+    while (true) {
+      Criteria withFileIds = where("fileIds.0").exists(true);
+      Query page = new Query(lastId == null ? withFileIds : new Criteria().andOperator(withFileIds, where("_id").gt(lastId)))
+              .with(Sort.by("_id"))
+              .limit(properties.getBatchSize());
+      page.fields().include("_id").include("fileIds");
+      List<Document> batch = mongoTemplate.find(page, Document.class, repositories);
+      if (batch.isEmpty()) {
+        return pulled;
+      }
+      Set<Object> referenced = new HashSet<>();
+      batch.forEach(repository -> referenced.addAll(repository.getList("fileIds", Object.class)));
+      Set<Object> existing = new HashSet<>(ids(new Query(where("_id").in(referenced)), files));
+      for (Document repository : batch) {
+        List<Object> dangling = repository.getList("fileIds", Object.class).stream()
+                .filter(fileId -> !existing.contains(fileId))
+                .toList();
+        if (!dangling.isEmpty()) {
+          mongoTemplate.updateFirst(new Query(where("_id").is(repository.get("_id"))),
+                  new Update().pullAll("fileIds", dangling.toArray()), repositories);
+          pulled += dangling.size();
+        }
+      }
+      lastId = batch.get(batch.size() - 1).get("_id");
+      cleanupService.throttle();
+    }
+  }
+
+  /**
+   * Chunks are shared between files, so one is only garbage once no file lists it. Only chunks
+   * nothing has written within the grace period are considered, and the removal checks that
+   * again, so a chunk that a save is about to reference is never taken. Candidates are read from
+   * the touchedAt index alone, without loading chunk data.
+   */
+  private long removeUnreferencedChunks() {
+    String chunks = mongoTemplate.getCollectionName(ContentChunk.class);
+    MongoCollection<Document> files = mongoTemplate.getCollection(mongoTemplate.getCollectionName(FileData.class));
+    // Chunks written before touchedAt existed count from their creation.
+    mongoTemplate.getCollection(chunks).updateMany(new Document("touchedAt", new Document("$exists", false)),
+            List.of(new Document("$set", new Document("touchedAt", new Document("$ifNull", List.of("$createdAt", "$$NOW"))))));
+
+    Date cutoff = new Date(System.currentTimeMillis() - properties.getChunkGracePeriod().toMillis());
+    Query stale = new Query(where("touchedAt").lt(cutoff)).with(Sort.by("touchedAt", "_id"));
+    stale.fields().include("_id");
+    long removed = 0;
+    List<Object> candidates = new ArrayList<>();
+    try (Stream<Document> cursor = mongoTemplate.stream(stale, Document.class, chunks)) {
+      Iterator<Document> it = cursor.iterator();
+      while (it.hasNext()) {
+        candidates.add(it.next().get("_id"));
+        if (candidates.size() == properties.getBatchSize() || !it.hasNext()) {
+          Set<Object> referenced = new HashSet<>();
+          files.distinct("chunkIds", new Document("chunkIds", new Document("$in", candidates)), Object.class)
+                  .forEach(referenced::add);
+          List<Object> unreferenced = candidates.stream().filter(id -> !referenced.contains(id)).toList();
+          if (!unreferenced.isEmpty()) {
+            removed += mongoTemplate.remove(new Query(where("_id").in(unreferenced).and("touchedAt").lt(cutoff)), chunks)
+                    .getDeletedCount();
+          }
+          candidates.clear();
+          cleanupService.throttle();
+        }
+      }
+    }
+    return removed;
+  }
+
+  private List<Object> ids(Query query, String collection) {
+    query.fields().include("_id");
+    return mongoTemplate.find(query, Document.class, collection).stream().map(document -> document.get("_id")).toList();
+  }
+}
@@ -0,0 +1,111 @@
+package org.tilakpatellshreyaan.devspacebackend.collab;
+
+import lombok.Getter;
+import org.springframework.web.socket.WebSocketSession;
+import org.tilakpatellshreyaan.devspacebackend.model.TextOperation;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * The live state of one file being edited together: its current text, a revision counter and
+ * the most recent operations, which late client edits are transformed against.
+ */
+class CollabDocument {
+  record Applied(int revision, TextOperation operation) {
+  }
+
+  record Snapshot(String content, int revision) {
+  }
+
+  @Getter
+  private final String fileId;
+  @Getter
+  private final String repositoryId;
+  @Getter
+  private final Set<WebSocketSession> sessions = new CopyOnWriteArraySet<>();
+  private final int maxHistory;
+  private final ArrayDeque<TextOperation> history = new ArrayDeque<>();
+  private final ReentrantLock lock = new ReentrantLock();
+  private String content;
+  private int revision;
+  private int flushedRevision;
+
+  CollabDocument(String fileId, String repositoryId, String content, int maxHistory) {
+    this.fileId = fileId;
+    this.repositoryId = repositoryId;
+    this.content = content == null ? "" : content;
+    this.maxHistory = maxHistory;
+  }
+
+  Snapshot current() {
+    lock.lock();
+    try {
+      return new Snapshot(content, revision);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Transforms {@code operation}, made against {@code baseRevision}, over everything applied since,
+   * applies it and hands the result to {@code publish} while still holding the lock so that every
+   * client sees operations in revision order.
+   */
+  Applied apply(int baseRevision, TextOperation operation, Consumer<Applied> publish) {
+    lock.lock();
+    try {
+      int oldest = revision - history.size();
+      if (baseRevision > revision || baseRevision < oldest) {
+        throw new IllegalArgumentException("Revision " + baseRevision + " is outside the retained history ["
+                + oldest + ", " + revision + "]");
+      }
+
+      Iterator<TextOperation> concurrent = history.iterator();
+      for (int r = oldest; r < revision; r++) {
+        TextOperation applied = concurrent.next();
+        if (r >= baseRevision) {
+          operation = TextOperation.transform(operation, applied)[0];
+        }
+      }
+
+      content = operation.apply(content);
+      history.addLast(operation);
+      if (history.size() > maxHistory) {
+        history.removeFirst();
+      }
+      revision++;
+
+      Applied result = new Applied(revision, operation);
+      publish.accept(result);
+      return result;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the text to persist, or {@code null} if nothing changed since the last flush.
+   */
+  Snapshot unflushed() {
+    lock.lock();
+    try {
+      return revision == flushedRevision ? null : new Snapshot(content, revision);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  void markFlushed(int flushed) {
+    lock.lock();
+    try {
+      flushedRevision = Math.max(flushedRevision, flushed);
+    } finally {
+      lock.unlock();
+    }
+  }
+}
@@ -0,0 +1,15 @@
+package org.tilakpatellshreyaan.devspacebackend.collab;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "devspace.collab")
+public class CollabProperties {
+  // How often edited documents are written back to the files collection
+  private Duration flushInterval = Duration.ofSeconds(5);
+  // Operations kept for transforming late edits; clients further behind must rejoin
+  private int maxHistory = 1_000;
+}
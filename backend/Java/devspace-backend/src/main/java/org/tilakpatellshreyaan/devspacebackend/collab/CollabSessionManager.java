@@ -0,0 +1,125 @@
+package org.tilakpatellshreyaan.devspacebackend.collab;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import org.tilakpatellshreyaan.devspacebackend.model.FileData;
+import org.tilakpatellshreyaan.devspacebackend.repository.FileDataRepository;
+import org.tilakpatellshreyaan.devspacebackend.service.FileChangedEvent;
+import org.tilakpatellshreyaan.devspacebackend.service.FileUpdateService;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Owns the in-memory documents of files that have collaborators connected. Edits are kept in
+ * memory and written back as one snapshot per document every {@code flushInterval}, and once more
+ * when the last collaborator leaves.
+ */
+@Slf4j
+@Component
+public class CollabSessionManager {
+  private final Map<String, CollabDocument> documents = new ConcurrentHashMap<>();
+  private final FileDataRepository fileRepository;
+  private final FileUpdateService fileUpdateService;
+  private final CollabProperties properties;
+
+  public CollabSessionManager(FileDataRepository fileRepository, FileUpdateService fileUpdateService,
+                              CollabProperties properties) {
+    this.fileRepository = fileRepository;
+    this.fileUpdateService = fileUpdateService;
+    this.properties = properties;
+  }
+
+  public boolean isActive(String fileId) {
+    return documents.containsKey(fileId);
+  }
+
+  Optional<CollabDocument> find(String fileId) {
+    return Optional.ofNullable(documents.get(fileId));
+  }
+
+  Optional<CollabDocument> join(String fileId, WebSocketSession session) {
+    CollabDocument document = documents.compute(fileId, (id, existing) -> {
+      CollabDocument joined = existing != null ? existing : load(id);
+      if (joined != null) {
+        joined.getSessions().add(session);
+      }
+      return joined;
+    });
+    return Optional.ofNullable(document);
+  }
+
+  void leave(String fileId, WebSocketSession session) {
+    // Flushing inside compute keeps a concurrent join from reloading content that is not saved yet.
+    documents.computeIfPresent(fileId, (id, document) -> {
+      document.getSessions().remove(session);
+      if (!document.getSessions().isEmpty()) {
+        return document;
+      }
+      flush(document);
+      // If the write failed the document stays around so the next scheduled flush retries it.
+      return document.unflushed() == null ? null : document;
+    });
+  }
+
+  @Scheduled(fixedDelayString = "${devspace.collab.flush-interval:5s}")
+  public void flushAll() {
+    documents.values().forEach(this::flush);
+    documents.keySet().forEach(fileId -> documents.computeIfPresent(fileId, (id, document) ->
+            document.getSessions().isEmpty() && document.unflushed() == null ? null : document));
+  }
+
+  @EventListener
+  public void onFileChanged(FileChangedEvent event) {
+    if (event.type() != FileChangedEvent.Type.DELETED) {
+      return;
+    }
+    CollabDocument document = documents.remove(event.fileId());
+    if (document != null) {
+      document.getSessions().forEach(session -> closeQuietly(session, CloseStatus.GOING_AWAY.withReason("File deleted")));
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    flushAll();
+  }
+
+  private CollabDocument load(String fileId) {
+    if (!ObjectId.isValid(fileId)) {
+      return null;
+    }
+    Optional<FileData> fileOpt = fileRepository.findById(new ObjectId(fileId));
+    return fileOpt.map(file -> new CollabDocument(file.getId(), file.getRepositoryId(),
+            file.getContent(), properties.getMaxHistory())).orElse(null);
+  }
+
+  private void flush(CollabDocument document) {
+    CollabDocument.Snapshot snapshot = document.unflushed();
+    if (snapshot == null) {
+      return;
+    }
+    try {
+      fileUpdateService.replaceContent(new ObjectId(document.getFileId()), snapshot.content());
+      document.markFlushed(snapshot.revision());
+    } catch (RuntimeException e) {
+      log.warn("Could not flush collaborative edits of file {}: {}", document.getFileId(), e.getMessage());
+    }
+  }
+
+  private static void closeQuietly(WebSocketSession session, CloseStatus status) {
+    try {
+      session.close(status);
+    } catch (IOException e) {
+      log.debug("Could not close collaboration session {}: {}", session.getId(), e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,157 @@
+package org.tilakpatellshreyaan.devspacebackend.collab;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.bson.types.ObjectId;
+import org.tilakpatellshreyaan.devspacebackend.model.CodeRepository;
+import org.tilakpatellshreyaan.devspacebackend.model.FileData;
+import org.tilakpatellshreyaan.devspacebackend.model.TextOperation;
+import org.tilakpatellshreyaan.devspacebackend.repository.CodeRepositoryRepository;
+import org.tilakpatellshreyaan.devspacebackend.repository.FileDataRepository;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * WebSocket protocol for {@code /ws/collab/{fileId}}. The server sends
+ * {@code {type:"init", revision, content}} on join, {@code {type:"ack", revision}} for each
+ * operation a client sends as {@code {type:"op", revision, ops}}, and relays every applied
+ * operation to the other clients as {@code {type:"op", revision, ops, userId}}.
+ */
+@Slf4j
+@Component
+public class CollabWebSocketHandler extends TextWebSocketHandler {
+  private static final String FILE_ID = "collab.fileId";
+  private static final String OUTBOUND = "collab.outbound";
+  private static final int SEND_TIME_LIMIT_MS = 10_000;
+  private static final int SEND_BUFFER_LIMIT = 1024 * 1024;
+
+  private final CollabSessionManager sessionManager;
+  private final CodeRepositoryRepository repositoryRepo;
+  private final FileDataRepository fileRepository;
+  private final ObjectMapper objectMapper;
+
+  public CollabWebSocketHandler(CollabSessionManager sessionManager, CodeRepositoryRepository repositoryRepo,
+                                FileDataRepository fileRepository, ObjectMapper objectMapper) {
+    this.sessionManager = sessionManager;
+    this.repositoryRepo = repositoryRepo;
+    this.fileRepository = fileRepository;
+    this.objectMapper = objectMapper;
+  }
+
+  @Override
+  public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+    String userId = (String) session.getAttributes().get("userId");
+    if (userId == null) {
+      session.close(CloseStatus.POLICY_VIOLATION.withReason("No active session"));
+      return;
+    }
+
+    String path = session.getUri() == null ? "" : session.getUri().getPath();
+    String fileId = path.substring(path.lastIndexOf('/') + 1);
+    // Access is checked against the file's metadata before the session can load or observe the document.
+    Optional<FileData> fileOpt = ObjectId.isValid(fileId)
+            ? fileRepository.findMetadataById(new ObjectId(fileId)) : Optional.empty();
+    if (fileOpt.isEmpty()) {
+      session.close(CloseStatus.POLICY_VIOLATION.withReason("File not found"));
+      return;
+    }
+    if (!canEdit(fileOpt.get().getRepositoryId(), userId)) {
+      session.close(CloseStatus.POLICY_VIOLATION.withReason("Not a collaborator on this repository"));
+      return;
+    }
+
+    // Broadcasts come from other sessions' threads; the decorator serializes and buffers them.
+    WebSocketSession outbound = new ConcurrentWebSocketSessionDecorator(session, SEND_TIME_LIMIT_MS, SEND_BUFFER_LIMIT);
+    session.getAttributes().put(FILE_ID, fileId);
+    session.getAttributes().put(OUTBOUND, outbound);
+
+    Optional<CollabDocument> documentOpt = sessionManager.join(fileId, outbound);
+    if (documentOpt.isEmpty()) {
+      session.close(CloseStatus.POLICY_VIOLATION.withReason("File not found"));
+      return;
+    }
+    CollabDocument document = documentOpt.get();
+    CollabDocument.Snapshot snapshot = document.current();
+    send(outbound, Map.of("type", "init", "revision", snapshot.revision(), "content", snapshot.content()));
+  }
+
+  @Override
+  protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+    String fileId = (String) session.getAttributes().get(FILE_ID);
+    WebSocketSession outbound = (WebSocketSession) session.getAttributes().get(OUTBOUND);
+    String userId = (String) session.getAttributes().get("userId");
+    if (fileId == null || outbound == null) {
+      return;
+    }
+
+    JsonNode request = objectMapper.readTree(message.getPayload());
+    if (!"op".equals(request.path("type").asText()) || !request.hasNonNull("ops")) {
+      send(outbound, Map.of("type", "error", "error", "Expected an op message with ops"));
+      return;
+    }
+
+    Optional<CollabDocument> documentOpt = sessionManager.find(fileId);
+    if (documentOpt.isEmpty()) {
+      session.close(CloseStatus.GOING_AWAY.withReason("Session ended"));
+      return;
+    }
+    CollabDocument document = documentOpt.get();
+    try {
+      TextOperation operation = objectMapper.treeToValue(request.get("ops"), TextOperation.class);
+      document.apply(request.path("revision").asInt(), operation, applied -> {
+        send(outbound, Map.of("type", "ack", "revision", applied.revision()));
+        Map<String, Object> relay = new LinkedHashMap<>();
+        relay.put("type", "op");
+        relay.put("revision", applied.revision());
+        relay.put("ops", applied.operation());
+        relay.put("userId", userId);
+        for (WebSocketSession other : document.getSessions()) {
+          if (other != outbound) {
+            send(other, relay);
+          }
+        }
+      });
+    } catch (IllegalArgumentException | IOException e) {
+      // The client is out of step; it has to resynchronise from a fresh init.
+      send(outbound, Map.of("type", "error", "error", String.valueOf(e.getMessage()),
+              "revision", document.current().revision()));
+    }
+  }
+
+  @Override
+  public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+    String fileId = (String) session.getAttributes().get(FILE_ID);
+    WebSocketSession outbound = (WebSocketSession) session.getAttributes().get(OUTBOUND);
+    if (fileId != null && outbound != null) {
+      sessionManager.leave(fileId, outbound);
+    }
+  }
+
+  private boolean canEdit(String repositoryId, String userId) {
+    Optional<CodeRepository> repoOpt = repositoryRepo.findById(repositoryId);
+    if (repoOpt.isEmpty()) {
+      return false;
+    }
+    CodeRepository repo = repoOpt.get();
+    return userId.equals(repo.getOwnerId())
+            || (repo.getCollaboratorIds() != null && repo.getCollaboratorIds().contains(userId));
+  }
+
+  private void send(WebSocketSession session, Object payload) {
+    try {
+      session.sendMessage(new TextMessage(objectMapper.writeValueAsString(payload)));
+    } catch (IOException | IllegalStateException e) {
+      log.debug("Dropping collaboration message to {}: {}", session.getId(), e.getMessage());
+    }
+  }
+}
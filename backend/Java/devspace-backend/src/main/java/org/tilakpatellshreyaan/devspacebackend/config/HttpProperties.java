@@ -0,0 +1,12 @@
+package org.tilakpatellshreyaan.devspacebackend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+@Data
+@ConfigurationProperties(prefix = "devspace.http")
+public class HttpProperties {
+  // Files larger than this are written into the JSON response straight from the chunk store
+  private DataSize streamThreshold = DataSize.ofKilobytes(256);
+}
@@ -0,0 +1,13 @@
+package org.tilakpatellshreyaan.devspacebackend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "devspace.migration")
+public class MigrationProperties {
+  // Rewrite reference ids still stored as strings into ObjectIds after startup
+  private boolean objectIds = true;
+  // Documents rewritten per update
+  private int batchSize = 500;
+}
@@ -0,0 +1,104 @@
+package org.tilakpatellshreyaan.devspacebackend.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Creates the indexes declared with {@code @Indexed} and {@code @CompoundIndex} on every
+ * {@code @Document} class. It runs after startup on its own thread instead of through
+ * {@code auto-index-creation}, so the application still starts while Mongo is unreachable and
+ * a slow index build never holds up requests. Indexes found in Mongo but not declared are
+ * reported, never dropped.
+ */
+@Slf4j
+@Component
+public class MongoIndexReconciler {
+  private final MongoTemplate mongoTemplate;
+  private final MongoMappingContext mappingContext;
+
+  public MongoIndexReconciler(MongoTemplate mongoTemplate, MongoMappingContext mappingContext) {
+    this.mongoTemplate = mongoTemplate;
+    this.mappingContext = mappingContext;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void reconcileInBackground() {
+    Thread.ofVirtual().name("mongo-index-reconciler").start(() -> {
+      try {
+        reconcile();
+      } catch (RuntimeException e) {
+        log.warn("Could not reconcile Mongo indexes: {}", e.getMessage());
+      }
+    });
+  }
+
+  /**
+   * Ensures every declared index exists and returns the number that had to be created.
+   */
+  public int reconcile() {
+    MongoPersistentEntityIndexResolver resolver = new MongoPersistentEntityIndexResolver(mappingContext);
+    int created = 0;
+    for (MongoPersistentEntity<?> entity : mappingContext.getPersistentEntities()) {
+      if (!entity.isAnnotationPresent(org.springframework.data.mongodb.core.mapping.Document.class)) {
+        continue;
+      }
+      IndexOperations indexOps = mongoTemplate.indexOps(entity.getType());
+      Set<String> existing = new HashSet<>();
+      indexOps.getIndexInfo().forEach(info -> existing.add(info.getName()));
+      Set<String> declared = new HashSet<>(List.of("_id_"));
+
+      for (IndexDefinition definition : resolver.resolveIndexFor(entity.getType())) {
+        String name = definition.getIndexOptions().getString("name");
+        if (name == null) {
+          name = defaultName(definition.getIndexKeys());
+        }
+        declared.add(name);
+        if (existing.contains(name)) {
+          continue;
+        }
+        try {
+          indexOps.ensureIndex(definition);
+          created++;
+          log.info("Created index {} on {}", name, entity.getCollection());
+        } catch (RuntimeException e) {
+          // Usually an index on the same keys with different options; that needs a manual fix.
+          log.warn("Could not create index {} on {}: {}", name, entity.getCollection(), e.getMessage());
+        }
+      }
+
+      for (IndexInfo info : indexOps.getIndexInfo()) {
+        if (!declared.contains(info.getName())) {
+          log.info("Index {} on {} is not declared on {}", info.getName(), entity.getCollection(),
+                  entity.getType().getSimpleName());
+        }
+      }
+    }
+    return created;
+  }
+
+  // Mongo's own naming when none is given: field_direction pairs joined by underscores.
+  private static String defaultName(Document keys) {
+    StringBuilder name = new StringBuilder();
+    keys.forEach((field, direction) -> {
+      if (!name.isEmpty()) {
+        name.append('_');
+      }
+      name.append(field).append('_').append(direction);
+    });
+    return name.toString();
+  }
+}
@@ -0,0 +1,21 @@
+package org.tilakpatellshreyaan.devspacebackend.config;
+
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class MongoPoolConfig {
+  // Applied after Boot's customizer for spring.data.mongodb.uri, to the blocking and reactive clients alike.
+  @Bean
+  public MongoClientSettingsBuilderCustomizer mongoPoolSettings(MongoPoolProperties properties) {
+    return settings -> settings.applyToConnectionPoolSettings(pool -> pool
+            .minSize(properties.getMinSize())
+            .maxSize(properties.getMaxSize())
+            .maxWaitTime(properties.getMaxWaitTime().toMillis(), TimeUnit.MILLISECONDS)
+            .maxConnectionIdleTime(properties.getMaxConnectionIdleTime().toMillis(), TimeUnit.MILLISECONDS)
+            .maxConnecting(properties.getMaxConnecting()));
+  }
+}
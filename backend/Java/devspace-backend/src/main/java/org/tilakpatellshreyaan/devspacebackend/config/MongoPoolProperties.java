@@ -0,0 +1,25 @@
+package org.tilakpatellshreyaan.devspacebackend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Connection pool settings of the Mongo driver. The defaults are the driver's own; whatever is
+ * set here wins over the same option in {@code spring.data.mongodb.uri}.
+ */
+@Data
+@ConfigurationProperties(prefix = "devspace.mongo.pool")
+public class MongoPoolProperties {
+  // Connections kept open even when idle
+  private int minSize = 0;
+  // Upper bound on open connections; callers beyond it wait for one to be returned
+  private int maxSize = 100;
+  // How long a caller waits for a free connection before the operation fails
+  private Duration maxWaitTime = Duration.ofMinutes(2);
+  // Idle connections are closed after this long; zero keeps them indefinitely
+  private Duration maxConnectionIdleTime = Duration.ZERO;
+  // Connections being established at once, which bounds the burst when the pool grows
+  private int maxConnecting = 2;
+}
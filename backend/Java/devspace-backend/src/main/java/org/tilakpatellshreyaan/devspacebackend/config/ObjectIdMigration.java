@@ -0,0 +1,120 @@
+package org.tilakpatellshreyaan.devspacebackend.config;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+import org.tilakpatellshreyaan.devspacebackend.model.Activity;
+import org.tilakpatellshreyaan.devspacebackend.model.CodeRepository;
+import org.tilakpatellshreyaan.devspacebackend.model.DevSpace;
+import org.tilakpatellshreyaan.devspacebackend.model.FileData;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rewrites reference ids that older code stored as hex strings into ObjectIds, the one form the
+ * models now read and write. Mixed types made equality queries miss documents, since a string
+ * never matches an ObjectId. It works through each field in {@code _id} order, one batch per
+ * update, and leaves values that are not valid ObjectIds untouched. Running it again only
+ * touches whatever is still left.
+ */
+@Slf4j
+@Component
+public class ObjectIdMigration {
+  private record Target(Class<?> entity, String field, boolean array) {
+  }
+
+  private static final List<Target> TARGETS = List.of(
+          new Target(CodeRepository.class, "ownerId", false),
+          new Target(CodeRepository.class, "collaboratorIds", true),
+          new Target(CodeRepository.class, "fileIds", true),
+          new Target(FileData.class, "repositoryId", false),
+          new Target(Activity.class, "userId", false),
+          new Target(Activity.class, "repositoryId", false),
+          new Target(DevSpace.class, "ownerId", false),
+          new Target(DevSpace.class, "collaboratorIds", true)
+  );
+
+  private final MongoTemplate mongoTemplate;
+  private final MigrationProperties properties;
+
+  public ObjectIdMigration(MongoTemplate mongoTemplate, MigrationProperties properties) {
+    this.mongoTemplate = mongoTemplate;
+    this.properties = properties;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void migrateInBackground() {
+    if (!properties.isObjectIds()) {
+      return;
+    }
+    Thread.ofVirtual().name("object-id-migration").start(() -> {
+      try {
+        migrate();
+      } catch (RuntimeException e) {
+        log.warn("ObjectId migration stopped: {}", e.getMessage());
+      }
+    });
+  }
+
+  /**
+   * Converts every remaining string id and returns how many documents were rewritten.
+   */
+  public long migrate() {
+    long total = 0;
+    for (Target target : TARGETS) {
+      long migrated = migrate(target);
+      if (migrated > 0) {
+        log.info("Converted {} to ObjectIds in {} documents of {}", target.field(), migrated,
+                mongoTemplate.getCollectionName(target.entity()));
+      }
+      total += migrated;
+    }
+    return total;
+  }
+
+  private long migrate(Target target) {
+    MongoCollection<Document> collection = mongoTemplate.getCollection(mongoTemplate.getCollectionName(target.entity()));
+    // For arrays this matches documents with at least one string element.
+    Bson pending = Filters.type(target.field(), "string");
+    List<Bson> pipeline = List.of(new Document("$set", new Document(target.field(), converted(target))));
+
+    long migrated = 0;
+    Object lastId = null;
+    while (true) {
+      Bson filter = lastId == null ? pending : Filters.and(pending, Filters.gt("_id", lastId));
+      List<Object> ids = new ArrayList<>();
+      collection.find(filter).projection(Projections.include("_id")).sort(Sorts.ascending("_id"))
+              .limit(properties.getBatchSize()).forEach(document -> ids.add(document.get("_id")));
+      if (ids.isEmpty()) {
+        return migrated;
+      }
+      migrated += collection.updateMany(Filters.in("_id", ids), pipeline).getModifiedCount();
+      lastId = ids.get(ids.size() - 1);
+    }
+  }
+
+  private static Object converted(Target target) {
+    String field = "$" + target.field();
+    if (!target.array()) {
+      return toObjectId(field);
+    }
+    return new Document("$map", new Document("input", field).append("as", "id").append("in", toObjectId("$$id")));
+  }
+
+  // Strings that are not valid ObjectIds stay as they are instead of failing the batch.
+  private static Document toObjectId(String expression) {
+    return new Document("$convert", new Document("input", expression)
+            .append("to", "objectId")
+            .append("onError", expression)
+            .append("onNull", null));
+  }
+}
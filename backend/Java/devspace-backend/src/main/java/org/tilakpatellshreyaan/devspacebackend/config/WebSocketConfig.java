@@ -0,0 +1,53 @@
+package org.tilakpatellshreyaan.devspacebackend.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.tilakpatellshreyaan.devspacebackend.collab.CollabWebSocketHandler;
+
+import java.util.Map;
+
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@EnableWebSocket
+public class WebSocketConfig implements WebSocketConfigurer {
+  private final CollabWebSocketHandler collabWebSocketHandler;
+
+  public WebSocketConfig(CollabWebSocketHandler collabWebSocketHandler) {
+    this.collabWebSocketHandler = collabWebSocketHandler;
+  }
+
+  @Override
+  public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+    // The handshake copies the userId that AuthenticationFilter resolved into the WebSocket session attributes.
+    registry.addHandler(collabWebSocketHandler, "/ws/collab/*")
+            .addInterceptors(new UserIdHandshakeInterceptor())
+            .setAllowedOrigins("http://localhost:5173");
+  }
+
+  private static class UserIdHandshakeInterceptor implements HandshakeInterceptor {
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Map<String, Object> attributes) {
+      if (request instanceof ServletServerHttpRequest servletRequest) {
+        Object userId = servletRequest.getServletRequest().getAttribute("userId");
+        if (userId != null) {
+          attributes.put("userId", userId);
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                               WebSocketHandler wsHandler, Exception exception) {
+    }
+  }
+}
@@ -1,40 +1,86 @@
 package org.tilakpatellshreyaan.devspacebackend.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.bson.types.ObjectId;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.tilakpatellshreyaan.devspacebackend.changes.ChangeFeedProperties;
+import org.tilakpatellshreyaan.devspacebackend.cleanup.CleanupService;
+import org.tilakpatellshreyaan.devspacebackend.changes.RepositoryChange;
+import org.tilakpatellshreyaan.devspacebackend.changes.RepositoryChangeFeed;
+import org.tilakpatellshreyaan.devspacebackend.executor.ExecutorUnavailableException;
 import org.tilakpatellshreyaan.devspacebackend.model.CodeRepository;
+import org.tilakpatellshreyaan.devspacebackend.model.ExecutionJob;
+import org.tilakpatellshreyaan.devspacebackend.model.ExecutionSelector;
+import org.tilakpatellshreyaan.devspacebackend.model.Tombstone;
 import org.tilakpatellshreyaan.devspacebackend.repository.CodeRepositoryRepository;
+import org.tilakpatellshreyaan.devspacebackend.search.CodeSearchService;
+import org.tilakpatellshreyaan.devspacebackend.search.SearchResult;
+import org.tilakpatellshreyaan.devspacebackend.service.ArchiveTooLargeException;
+import org.tilakpatellshreyaan.devspacebackend.service.ExecutionPriority;
+import org.tilakpatellshreyaan.devspacebackend.service.ExecutionRejectedException;
+import org.tilakpatellshreyaan.devspacebackend.service.RepositoryArchiveService;
+import org.tilakpatellshreyaan.devspacebackend.service.RepositoryExecutionService;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import jakarta.servlet.http.HttpSession;
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Date;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/api/repositories")
 public class CodeRepositoryController {
+  private static final String ZIP_MEDIA_TYPE = "application/zip";
+
   private final CodeRepositoryRepository repositoryRepo;
-  private final HttpSession httpSession;
+  private final RepositoryArchiveService archiveService;
+  private final RepositoryExecutionService executionService;
+  private final CodeSearchService searchService;
+  private final RepositoryChangeFeed changeFeed;
+  private final ChangeFeedProperties changeFeedProperties;
+  private final CleanupService cleanupService;
+  private final ObjectMapper objectMapper;
+  private final HttpServletRequest httpRequest;
 
-  public CodeRepositoryController(CodeRepositoryRepository repositoryRepo, HttpSession httpSession) {
+  public CodeRepositoryController(CodeRepositoryRepository repositoryRepo, RepositoryArchiveService archiveService,
+                                  RepositoryExecutionService executionService, CodeSearchService searchService,
+                                  RepositoryChangeFeed changeFeed, ChangeFeedProperties changeFeedProperties,
+                                  CleanupService cleanupService, ObjectMapper objectMapper,
+                                  HttpServletRequest httpRequest) {
     this.repositoryRepo = repositoryRepo;
-    this.httpSession = httpSession;
+    this.archiveService = archiveService;
+    this.executionService = executionService;
+    this.searchService = searchService;
+    this.changeFeed = changeFeed;
+    this.changeFeedProperties = changeFeedProperties;
+    this.cleanupService = cleanupService;
+    this.objectMapper = objectMapper;
+    this.httpRequest = httpRequest;
   }
 
   @GetMapping("/accessible")
   public ResponseEntity<?> getAccessibleRepositories() {
     try {
-      String currentUserId = (String) httpSession.getAttribute("userId");
+      String currentUserId = (String) httpRequest.getAttribute("userId");
       if (currentUserId == null) {
         return ResponseEntity.status(401)
                 .body(Map.of("error", "No active session"));
       }
-      ObjectId userObjectId = new ObjectId(currentUserId);
       List<CodeRepository> repositories = repositoryRepo.findByOwnerIdOrCollaboratorIdsContaining(
-              userObjectId,
-              userObjectId
+              currentUserId,
+              currentUserId
       );
 
       return ResponseEntity.ok(repositories);
@@ -56,10 +102,18 @@ public class CodeRepositoryController {
   }
 
   @GetMapping("/{repoId}")
-  public ResponseEntity<?> getRepositoryById(@PathVariable String repoId) {
+  public ResponseEntity<?> getRepositoryById(@PathVariable String repoId,
+                                             @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch)
+          throws JsonProcessingException {
     Optional<CodeRepository> repoOpt = repositoryRepo.findById(repoId);
     if (repoOpt.isPresent()) {
-      return ResponseEntity.ok(repoOpt.get());
+      // The document is small; it is serialized once and the tag taken from those bytes.
+      byte[] body = objectMapper.writeValueAsBytes(repoOpt.get());
+      String etag = ETags.of(body);
+      if (ETags.matches(ifNoneMatch, etag)) {
+        return ResponseEntity.status(304).eTag(etag).build();
+      }
+      return ResponseEntity.ok().eTag(etag).contentType(MediaType.APPLICATION_JSON).body(body);
     } else {
       return ResponseEntity.status(404).body(Map.of("error", "Repository not found"));
     }
@@ -79,7 +133,7 @@ public class CodeRepositoryController {
   @PostMapping
   public ResponseEntity<?> createRepository(@RequestBody CodeRepository repository) {
     try {
-      String currentUserId = (String) httpSession.getAttribute("userId");
+      String currentUserId = (String) httpRequest.getAttribute("userId");
       if (currentUserId == null) {
         return ResponseEntity.status(401)
                 .body(Map.of("error", "No active session"));
@@ -99,7 +153,7 @@ public class CodeRepositoryController {
   public ResponseEntity<?> updateRepository(@PathVariable String repoId, @RequestBody CodeRepository updatedRepo) {
     Optional<CodeRepository> repoOpt = repositoryRepo.findById(repoId);
     if (repoOpt.isPresent()) {
-      String currentUserId = (String) httpSession.getAttribute("userId");
+      String currentUserId = (String) httpRequest.getAttribute("userId");
       if (currentUserId == null) {
         return ResponseEntity.status(401)
                 .body(Map.of("error", "No active session"));
@@ -127,7 +181,7 @@ public class CodeRepositoryController {
   public ResponseEntity<?> deleteRepository(@PathVariable String repoId) {
     Optional<CodeRepository> repoOpt = repositoryRepo.findById(repoId);
     if (repoOpt.isPresent()) {
-      String currentUserId = (String) httpSession.getAttribute("userId");
+      String currentUserId = (String) httpRequest.getAttribute("userId");
       if (currentUserId == null) {
         return ResponseEntity.status(401)
                 .body(Map.of("error", "No active session"));
@@ -140,9 +194,173 @@ public class CodeRepositoryController {
       }
 
       repositoryRepo.deleteById(repoId);
+      // Its files are removed in the background.
+      cleanupService.enqueue(Tombstone.Kind.REPOSITORY, repoId);
       return ResponseEntity.ok(Map.of("message", "Repository deleted successfully"));
     } else {
       return ResponseEntity.status(404).body(Map.of("error", "Repository not found"));
     }
   }
-}
\ No newline at end of file
+
+  // Adds every file in a zip body to the repository in a few bulk writes.
+  @PostMapping(value = "/{repoId}/import", consumes = {ZIP_MEDIA_TYPE, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+  public ResponseEntity<?> importArchive(@PathVariable String repoId, InputStream archive) {
+    if (!ObjectId.isValid(repoId)) {
+      return ResponseEntity.status(400).body(Map.of("error", "Invalid repository ID format"));
+    }
+    ResponseEntity<?> denied = checkAccess(repoId);
+    if (denied != null) {
+      return denied;
+    }
+
+    try {
+      RepositoryArchiveService.ImportResult result = archiveService.importZip(new ObjectId(repoId), archive);
+      return ResponseEntity.ok(Map.of(
+              "created", result.created(),
+              "updated", result.updated(),
+              "bytes", result.bytes()
+      ));
+    } catch (ArchiveTooLargeException e) {
+      return ResponseEntity.status(413).body(Map.of("error", "Archive too large", "details", e.getMessage()));
+    } catch (IOException | IllegalArgumentException e) {
+      return ResponseEntity.status(400).body(Map.of("error", "Invalid zip archive", "details", String.valueOf(e.getMessage())));
+    }
+  }
+
+  // Streams the repository's files as a zip download without buffering it.
+  @GetMapping("/{repoId}/export")
+  public ResponseEntity<?> exportArchive(@PathVariable String repoId) {
+    if (!ObjectId.isValid(repoId)) {
+      return ResponseEntity.status(400).body(Map.of("error", "Invalid repository ID format"));
+    }
+    ResponseEntity<?> denied = checkAccess(repoId);
+    if (denied != null) {
+      return denied;
+    }
+
+    ObjectId repositoryId = new ObjectId(repoId);
+    StreamingResponseBody body = out -> archiveService.exportZip(repositoryId, out);
+    return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(ZIP_MEDIA_TYPE))
+            .header(HttpHeaders.CONTENT_DISPOSITION,
+                    ContentDisposition.attachment().filename(repoId + ".zip").build().toString())
+            .body(body);
+  }
+
+  // Runs the selected files as one batch job; per-file results come from the job's status and stream.
+  @PostMapping("/{repoId}/execute")
+  public ResponseEntity<?> executeRepository(@PathVariable String repoId,
+                                             @RequestBody(required = false) ExecutionSelector selector,
+                                             @RequestParam(defaultValue = "batch") String priority) {
+    if (!ObjectId.isValid(repoId)) {
+      return ResponseEntity.status(400).body(Map.of("error", "Invalid repository ID format"));
+    }
+    ExecutionPriority executionPriority;
+    try {
+      executionPriority = ExecutionPriority.valueOf(priority.toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.status(400).body(Map.of("error", "Unknown priority", "details", priority));
+    }
+    ResponseEntity<?> denied = checkAccess(repoId);
+    if (denied != null) {
+      return denied;
+    }
+
+    try {
+      String caller = (String) httpRequest.getAttribute("userId");
+      ExecutionJob job = executionService.submit(new ObjectId(repoId),
+              selector == null ? new ExecutionSelector() : selector, caller, executionPriority);
+      return ResponseEntity.status(202).body(Map.of(
+              "message", "Batch execution started",
+              "jobId", job.getId(),
+              "state", job.getState(),
+              "files", job.getFiles()
+      ));
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.status(400).body(Map.of("error", "Invalid file selector", "details", e.getMessage()));
+    } catch (ExecutorUnavailableException e) {
+      return ResponseEntity.status(503).body(Map.of("error", "No executor connection available"));
+    } catch (ExecutionRejectedException e) {
+      return ResponseEntity.status(429)
+              .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.retryAfterSeconds()))
+              .body(Map.of("error", e.getMessage()));
+    }
+  }
+
+  // Finds a substring, or a regex with regex=true, in the repository's files; best files first.
+  @GetMapping("/{repoId}/search")
+  public ResponseEntity<?> searchRepository(@PathVariable String repoId, @RequestParam String q,
+                                            @RequestParam(defaultValue = "false") boolean regex,
+                                            @RequestParam(defaultValue = "false") boolean ignoreCase) {
+    if (!ObjectId.isValid(repoId)) {
+      return ResponseEntity.status(400).body(Map.of("error", "Invalid repository ID format"));
+    }
+    if (!searchService.isEnabled()) {
+      return ResponseEntity.status(404).body(Map.of("error", "Code search is disabled"));
+    }
+    ResponseEntity<?> denied = checkAccess(repoId);
+    if (denied != null) {
+      return denied;
+    }
+
+    try {
+      List<SearchResult> results = searchService.search(repoId, q, regex, ignoreCase);
+      return ResponseEntity.ok(Map.of("query", q, "results", results));
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.status(400).body(Map.of("error", "Invalid search query", "details", e.getMessage()));
+    }
+  }
+
+  // Pushes file and repository changes as server-sent events, in place of polling the file list.
+  @GetMapping(value = "/{repoId}/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public ResponseEntity<?> streamRepositoryChanges(@PathVariable String repoId) {
+    if (!ObjectId.isValid(repoId)) {
+      return ResponseEntity.status(400).body(Map.of("error", "Invalid repository ID format"));
+    }
+    if (!changeFeed.isEnabled()) {
+      return ResponseEntity.status(404).body(Map.of("error", "Change feed is disabled"));
+    }
+    ResponseEntity<?> denied = checkAccess(repoId);
+    if (denied != null) {
+      return denied;
+    }
+
+    SseEmitter emitter = new SseEmitter(changeFeedProperties.getStreamTimeout().toMillis());
+    RepositoryChangeFeed.Subscriber subscriber = new RepositoryChangeFeed.Subscriber() {
+      @Override
+      public void send(RepositoryChange change) throws IOException {
+        emitter.send(SseEmitter.event().name(change.kind()).data(change));
+      }
+
+      @Override
+      public void close() {
+        emitter.complete();
+      }
+    };
+    emitter.onTimeout(() -> changeFeed.unsubscribe(repoId, subscriber));
+    emitter.onError(error -> changeFeed.unsubscribe(repoId, subscriber));
+    emitter.onCompletion(() -> changeFeed.unsubscribe(repoId, subscriber));
+    changeFeed.subscribe(repoId, subscriber);
+    return ResponseEntity.ok(emitter);
+  }
+
+  // Returns the error response when the current user may not read or write the repository.
+  private ResponseEntity<?> checkAccess(String repoId) {
+    String currentUserId = (String) httpRequest.getAttribute("userId");
+    if (currentUserId == null) {
+      return ResponseEntity.status(401)
+              .body(Map.of("error", "No active session"));
+    }
+    Optional<CodeRepository> repoOpt = repositoryRepo.findById(repoId);
+    if (repoOpt.isEmpty()) {
+      return ResponseEntity.status(404).body(Map.of("error", "Repository not found"));
+    }
+    CodeRepository repo = repoOpt.get();
+    boolean collaborator = repo.getCollaboratorIds() != null && repo.getCollaboratorIds().contains(currentUserId);
+    if (!currentUserId.equals(repo.getOwnerId()) && !collaborator) {
+      return ResponseEntity.status(403)
+              .body(Map.of("error", "Not authorized to access this repository"));
+    }
+    return null;
+  }
+}
@@ -0,0 +1,84 @@
+package org.tilakpatellshreyaan.devspacebackend.controller;
+
+import org.tilakpatellshreyaan.devspacebackend.model.FileData;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Strong entity tags for conditional GETs, shared by the servlet controllers and the reactive
+ * handlers. A tag is the truncated SHA-256 of whatever determines the response body, so it can be
+ * compared before the body is built.
+ */
+public final class ETags {
+  private ETags() {
+  }
+
+  /**
+   * The tag of a file's JSON representation, from its metadata alone, or {@code null} for files
+   * stored before content hashes existed.
+   */
+  public static String file(FileData metadata) {
+    if (metadata.getContentHash() == null) {
+      return null;
+    }
+    return of(metadata.getId(), metadata.getContentHash(), String.valueOf(metadata.getVersion()),
+            metadata.getFilename(), metadata.getLanguage(), metadata.getRepositoryId(),
+            metadata.getLastModified() == null ? null : String.valueOf(metadata.getLastModified().getTime()));
+  }
+
+  // The raw content has its own tag, since it is a different representation from the JSON.
+  public static String content(FileData metadata) {
+    return metadata.getContentHash() == null ? null : of("content", metadata.getContentHash());
+  }
+
+  public static String of(String... parts) {
+    MessageDigest digest = sha256();
+    for (String part : parts) {
+      digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+      digest.update((byte) 0);
+    }
+    return quoted(digest.digest());
+  }
+
+  public static String of(byte[] body) {
+    return quoted(sha256().digest(body));
+  }
+
+  /**
+   * Whether an {@code If-None-Match} header names {@code etag}. Uses the weak comparison the
+   * header calls for, so a {@code W/} prefix added by a proxy still matches.
+   */
+  public static boolean matches(String ifNoneMatch, String etag) {
+    if (ifNoneMatch == null || etag == null) {
+      return false;
+    }
+    for (String candidate : ifNoneMatch.split(",")) {
+      String tag = candidate.trim();
+      if (tag.equals("*")) {
+        return true;
+      }
+      if (tag.startsWith("W/")) {
+        tag = tag.substring(2);
+      }
+      if (tag.equals(etag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static String quoted(byte[] hash) {
+    return "\"" + HexFormat.of().formatHex(hash, 0, 16) + "\"";
+  }
+
+  private static MessageDigest sha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
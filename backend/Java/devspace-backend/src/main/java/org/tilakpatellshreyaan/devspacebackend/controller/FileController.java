@@ -1,66 +1,139 @@
 package org.tilakpatellshreyaan.devspacebackend.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.bson.types.ObjectId;
 import org.springframework.http.ResponseEntity;
 import org.tilakpatellshreyaan.devspacebackend.model.FileData;
+import org.tilakpatellshreyaan.devspacebackend.model.FilePatch;
+import org.tilakpatellshreyaan.devspacebackend.model.FileSummary;
 import org.tilakpatellshreyaan.devspacebackend.repository.FileDataRepository;
 import org.springframework.web.bind.annotation.*;
 
-import java.net.URI;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import org.java_websocket.client.WebSocketClient;
-import org.java_websocket.handshake.ServerHandshake;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Locale;
+import jakarta.servlet.http.HttpServletRequest;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.tilakpatellshreyaan.devspacebackend.collab.CollabSessionManager;
+import org.tilakpatellshreyaan.devspacebackend.config.HttpProperties;
+import org.tilakpatellshreyaan.devspacebackend.executor.ExecutorUnavailableException;
+import org.tilakpatellshreyaan.devspacebackend.model.ExecutionJob;
+import org.tilakpatellshreyaan.devspacebackend.service.ExecutionJobService;
+import org.tilakpatellshreyaan.devspacebackend.service.ExecutionPriority;
+import org.tilakpatellshreyaan.devspacebackend.service.ExecutionRejectedException;
+import org.tilakpatellshreyaan.devspacebackend.service.ExecutionProperties;
+import org.tilakpatellshreyaan.devspacebackend.service.FileChangedEvent;
+import org.tilakpatellshreyaan.devspacebackend.service.FileUpdateService;
+import org.tilakpatellshreyaan.devspacebackend.service.VersionConflictException;
 
+@Slf4j
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/api/files")
 public class FileController {
+  private static final int MAX_TREE_PAGE_SIZE = 500;
+
   private final FileDataRepository fileRepository;
-  private WebSocketClient jetsonWebSocketClient;
-  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final ExecutionJobService executionJobService;
+  private final ExecutionProperties executionProperties;
+  private final FileUpdateService fileUpdateService;
+  private final CollabSessionManager collabSessionManager;
+  private final ApplicationEventPublisher eventPublisher;
+  private final HttpProperties httpProperties;
+  private final ObjectMapper objectMapper;
 
-  public FileController(FileDataRepository fileRepository) {
+  public FileController(FileDataRepository fileRepository, ExecutionJobService executionJobService,
+                        ExecutionProperties executionProperties, FileUpdateService fileUpdateService,
+                        CollabSessionManager collabSessionManager, ApplicationEventPublisher eventPublisher,
+                        HttpProperties httpProperties, ObjectMapper objectMapper) {
     this.fileRepository = fileRepository;
+    this.executionJobService = executionJobService;
+    this.executionProperties = executionProperties;
+    this.fileUpdateService = fileUpdateService;
+    this.collabSessionManager = collabSessionManager;
+    this.eventPublisher = eventPublisher;
+    this.httpProperties = httpProperties;
+    this.objectMapper = objectMapper;
+  }
 
-    // Connect to Jetson Nano WebSocket
+  // Answers If-None-Match from the file's metadata, so an unchanged file's content is never loaded.
+  @GetMapping("/{fileId}")
+  public ResponseEntity<?> getFileById(@PathVariable String fileId,
+                                       @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
     try {
-      jetsonWebSocketClient = new WebSocketClient(new URI("ws://172.20.10.2:8000/ws")) {
-        @Override
-        public void onOpen(ServerHandshake handshake) {
-          System.out.println("Connected to Jetson WebSocket");
-        }
-
-        @Override
-        public void onMessage(String message) {
-          System.out.println("Received from Jetson: " + message);
-        }
-
-        @Override
-        public void onClose(int code, String reason, boolean remote) {
-          System.out.println("Jetson WebSocket closed: " + reason);
+      ObjectId objectId = new ObjectId(fileId);
+      Optional<FileData> metadataOpt = fileRepository.findMetadataById(objectId);
+      if (metadataOpt.isEmpty()) {
+        return ResponseEntity.status(404).body(Map.of("error", "File not found"));
+      }
+      FileData metadata = metadataOpt.get();
+      String etag = ETags.file(metadata);
+      if (ETags.matches(ifNoneMatch, etag)) {
+        return ResponseEntity.status(304).eTag(etag).build();
+      }
+      if (etag != null && metadata.getSize() > httpProperties.getStreamThreshold().toBytes()) {
+        Optional<InputStream> contentOpt = fileRepository.openContent(objectId);
+        if (contentOpt.isPresent()) {
+          return ResponseEntity.ok().eTag(etag).contentType(MediaType.APPLICATION_JSON)
+                  .body(streamingJson(metadata, contentOpt.get()));
         }
+      }
+      Optional<FileData> fileOpt = fileRepository.findById(objectId);
+      if (fileOpt.isPresent()) {
+        return ResponseEntity.ok().eTag(etag).body(fileOpt.get());
+      } else {
+        return ResponseEntity.status(404).body(Map.of("error", "File not found"));
+      }
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.status(400).body(Map.of("error", "Invalid file ID format"));
+    }
+  }
 
-        @Override
-        public void onError(Exception ex) {
-          System.out.println("Error in Jetson WebSocket: " + ex.getMessage());
+  // The same JSON as a FileData, with content copied from the chunk store as it is written out.
+  private StreamingResponseBody streamingJson(FileData metadata, InputStream content) {
+    ObjectNode fields = objectMapper.valueToTree(metadata);
+    fields.remove("content");
+    return out -> {
+      try (Reader reader = new InputStreamReader(content, StandardCharsets.UTF_8);
+           JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+        generator.writeStartObject();
+        for (Map.Entry<String, JsonNode> field : fields.properties()) {
+          generator.writeFieldName(field.getKey());
+          generator.writeTree(field.getValue());
         }
-      };
-      jetsonWebSocketClient.connect();
-    } catch (Exception e) {
-      e.printStackTrace();
-    }
+        generator.writeFieldName("content");
+        generator.writeString(reader, -1);
+        generator.writeEndObject();
+      }
+    };
   }
 
-  @GetMapping("/{fileId}")
-  public ResponseEntity<?> getFileById(@PathVariable String fileId) {
+  @PutMapping("/{fileId}")
+  public ResponseEntity<?> updateFile(@PathVariable String fileId, @RequestBody FileData updatedFile) {
+    if (collabSessionManager.isActive(fileId)) {
+      return ResponseEntity.status(409).body(Map.of("error", "File is open in a collaborative session"));
+    }
     try {
       ObjectId objectId = new ObjectId(fileId);
-      Optional<FileData> fileOpt = fileRepository.findById(objectId);
+      Optional<FileData> fileOpt = fileUpdateService.replaceContent(objectId, updatedFile.getContent());
       if (fileOpt.isPresent()) {
         return ResponseEntity.ok(fileOpt.get());
       } else {
@@ -71,28 +144,57 @@ public class FileController {
     }
   }
 
-  @PutMapping("/{fileId}")
-  public ResponseEntity<?> updateFile(@PathVariable String fileId, @RequestBody FileData updatedFile) {
+  // Applies a text operation made against a known version; only the edit travels over the wire.
+  @PatchMapping("/{fileId}")
+  public ResponseEntity<?> patchFile(@PathVariable String fileId, @RequestBody FilePatch patch) {
+    if (!ObjectId.isValid(fileId)) {
+      return ResponseEntity.status(400).body(Map.of("error", "Invalid file ID format"));
+    }
+    if (patch.getVersion() == null || patch.getOps() == null) {
+      return ResponseEntity.status(400).body(Map.of("error", "Both version and ops are required"));
+    }
+    if (collabSessionManager.isActive(fileId)) {
+      return ResponseEntity.status(409).body(Map.of("error", "File is open in a collaborative session"));
+    }
+
     try {
-      ObjectId objectId = new ObjectId(fileId);
-      Optional<FileData> fileOpt = fileRepository.findById(objectId);
+      Optional<FileData> fileOpt = fileUpdateService.patch(new ObjectId(fileId), patch.getVersion(), patch.getOps());
       if (fileOpt.isPresent()) {
         FileData file = fileOpt.get();
-        file.setContent(updatedFile.getContent());
-        file.setLastModified(new Date());
-
-        FileData savedFile = fileRepository.save(file);
-        return ResponseEntity.ok(savedFile);
+        return ResponseEntity.ok(Map.of(
+                "id", file.getId(),
+                "version", file.getVersion(),
+                "lastModified", file.getLastModified()
+        ));
       } else {
         return ResponseEntity.status(404).body(Map.of("error", "File not found"));
       }
+    } catch (VersionConflictException e) {
+      return ResponseEntity.status(409).body(Map.of(
+              "error", "Version conflict",
+              "currentVersion", e.getCurrentVersion()
+      ));
     } catch (IllegalArgumentException e) {
-      return ResponseEntity.status(400).body(Map.of("error", "Invalid file ID format"));
+      return ResponseEntity.status(422).body(Map.of(
+              "error", "Operation does not apply to the current content",
+              "details", e.getMessage()
+      ));
     }
   }
 
+  // Signed-in users are limited by user id, anonymous callers by address. Scripts should pass
+  // priority=batch so interactive runs are not stuck behind them.
   @PostMapping("/{fileId}/execute")
-  public ResponseEntity<?> executeFile(@PathVariable String fileId) {
+  public ResponseEntity<?> executeFile(@PathVariable String fileId,
+                                       @RequestParam(defaultValue = "interactive") String priority,
+                                       @RequestAttribute(name = "userId", required = false) String userId,
+                                       HttpServletRequest request) {
+    ExecutionPriority executionPriority;
+    try {
+      executionPriority = ExecutionPriority.valueOf(priority.toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.status(400).body(Map.of("error", "Unknown priority", "details", priority));
+    }
     try {
       ObjectId objectId = new ObjectId(fileId);
       Optional<FileData> fileOpt = fileRepository.findById(objectId);
@@ -101,32 +203,72 @@ public class FileController {
         return ResponseEntity.status(404).body(Map.of("error", "File not found"));
       }
 
-      FileData file = fileOpt.get();
-      String fileJson = objectMapper.writeValueAsString(file);
-
-      // Send the file data to Jetson Nano via WebSocket
-      if (jetsonWebSocketClient != null && jetsonWebSocketClient.isOpen()) {
-        jetsonWebSocketClient.send(fileJson);
-        System.out.println("Sent file to Jetson Nano for execution: " + file.getFilename());
-      } else {
-        return ResponseEntity.status(500).body(Map.of("error", "Jetson WebSocket is not connected"));
-      }
-
-      return ResponseEntity.ok(Map.of("message", "File execution request sent"));
+      String caller = userId != null ? userId : "address:" + request.getRemoteAddr();
+      ExecutionJob job = executionJobService.submit(fileOpt.get(), caller, executionPriority);
+      return ResponseEntity.status(202).body(Map.of(
+              "message", "File execution started",
+              "jobId", job.getId(),
+              "state", job.getState(),
+              "cached", job.isCached()
+      ));
 
     } catch (IllegalArgumentException e) {
       return ResponseEntity.status(400).body(Map.of("error", "Invalid file ID format"));
-    } catch (IOException e) {
-      return ResponseEntity.status(500).body(Map.of("error", "Error processing file data", "message", e.getMessage()));
+    } catch (ExecutorUnavailableException e) {
+      return ResponseEntity.status(503).body(Map.of("error", "No executor connection available"));
+    } catch (ExecutionRejectedException e) {
+      return ResponseEntity.status(429)
+              .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.retryAfterSeconds()))
+              .body(Map.of("error", e.getMessage()));
     }
   }
 
+  @GetMapping("/jobs/{jobId}")
+  public ResponseEntity<?> getExecutionJob(@PathVariable String jobId) {
+    Optional<ExecutionJob> jobOpt = executionJobService.findJob(jobId);
+    if (jobOpt.isPresent()) {
+      return ResponseEntity.ok(jobOpt.get());
+    } else {
+      return ResponseEntity.status(404).body(Map.of("error", "Job not found"));
+    }
+  }
+
+  // Streams job status and stdout/stderr chunks as server-sent events while the job runs.
+  @GetMapping(value = "/jobs/{jobId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public ResponseEntity<?> streamExecutionJob(@PathVariable String jobId) {
+    Optional<ExecutionJob> jobOpt = executionJobService.findJob(jobId);
+    if (jobOpt.isEmpty()) {
+      return ResponseEntity.status(404).body(Map.of("error", "Job not found"));
+    }
+
+    ExecutionJob job = jobOpt.get();
+    SseEmitter emitter = new SseEmitter(executionProperties.getStreamTimeout().toMillis());
+    ExecutionJob.Subscriber subscriber = new ExecutionJob.Subscriber() {
+      @Override
+      public void send(String event, Object data) throws IOException {
+        emitter.send(SseEmitter.event().name(event).data(data));
+      }
+
+      @Override
+      public void close() {
+        emitter.complete();
+      }
+    };
+    emitter.onTimeout(() -> job.unsubscribe(subscriber));
+    emitter.onError(error -> job.unsubscribe(subscriber));
+    job.subscribe(subscriber);
+    return ResponseEntity.ok(emitter);
+  }
+
   @DeleteMapping("/{fileId}")
   public ResponseEntity<?> deleteFile(@PathVariable String fileId) {
     try {
       ObjectId objectId = new ObjectId(fileId);
-      if (fileRepository.existsById(objectId)) {
+      Optional<FileData> fileOpt = fileRepository.findById(objectId);
+      if (fileOpt.isPresent()) {
         fileRepository.deleteById(objectId);
+        eventPublisher.publishEvent(new FileChangedEvent(
+                fileId, fileOpt.get().getRepositoryId(), FileChangedEvent.Type.DELETED));
         return ResponseEntity.ok(Map.of("message", "File deleted successfully"));
       } else {
         return ResponseEntity.status(404).body(Map.of("error", "File not found"));
@@ -139,37 +281,100 @@ public class FileController {
 
   @GetMapping("/repositories/{repoId}/files")
   public ResponseEntity<?> getFilesByRepository(@PathVariable String repoId) {
-    try {
-      ObjectId objectId = new ObjectId(repoId);
-      List<FileData> files = fileRepository.findByRepositoryId(objectId);
-      return ResponseEntity.ok(files.isEmpty() ? Collections.emptyList() : files);
-    } catch (IllegalArgumentException e) {
+    if (!ObjectId.isValid(repoId)) {
       return ResponseEntity.status(400).body(Map.of("error", "Invalid repository ID format"));
     }
+    List<FileData> files = fileRepository.findByRepositoryId(repoId);
+    return ResponseEntity.ok(files.isEmpty() ? Collections.emptyList() : files);
+  }
+
+  // Metadata-only, cursor-paginated listing for file trees; content is fetched per file.
+  @GetMapping("/repositories/{repoId}/tree")
+  public ResponseEntity<?> getFileTree(@PathVariable String repoId,
+                                       @RequestParam(required = false) String cursor,
+                                       @RequestParam(defaultValue = "100") int limit) {
+    if (!ObjectId.isValid(repoId)) {
+      return ResponseEntity.status(400).body(Map.of("error", "Invalid repository ID format"));
+    }
+    if (cursor != null && !ObjectId.isValid(cursor)) {
+      return ResponseEntity.status(400).body(Map.of("error", "Invalid cursor"));
+    }
+
+    int pageSize = Math.max(1, Math.min(limit, MAX_TREE_PAGE_SIZE));
+    List<FileSummary> files = fileRepository.findSummariesByRepositoryId(
+            new ObjectId(repoId), cursor == null ? null : new ObjectId(cursor), pageSize);
+    Map<String, Object> response = new HashMap<>();
+    response.put("files", files);
+    response.put("nextCursor", files.size() == pageSize ? files.get(files.size() - 1).getId() : null);
+    return ResponseEntity.ok(response);
+  }
+
+  // Streams content straight from the chunk store, so large files are never held in memory.
+  @GetMapping(value = "/{fileId}/content", produces = MediaType.TEXT_PLAIN_VALUE)
+  public ResponseEntity<?> getFileContent(@PathVariable String fileId,
+                                          @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+    if (!ObjectId.isValid(fileId)) {
+      return ResponseEntity.status(400).body("Invalid file ID format");
+    }
+    ObjectId objectId = new ObjectId(fileId);
+    String etag = fileRepository.findMetadataById(objectId).map(ETags::content).orElse(null);
+    if (ETags.matches(ifNoneMatch, etag)) {
+      return ResponseEntity.status(304).eTag(etag).build();
+    }
+    Optional<InputStream> contentOpt = fileRepository.openContent(objectId);
+    if (contentOpt.isPresent()) {
+      StreamingResponseBody body = out -> {
+        try (InputStream in = contentOpt.get()) {
+          in.transferTo(out);
+        }
+      };
+      return ResponseEntity.ok().eTag(etag).contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8)).body(body);
+    } else {
+      return ResponseEntity.status(404).body("File not found");
+    }
+  }
+
+  // Replaces the content with the raw request body, read and stored a chunk at a time.
+  @PutMapping(value = "/{fileId}/content", consumes = {MediaType.TEXT_PLAIN_VALUE, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+  public ResponseEntity<?> uploadFileContent(@PathVariable String fileId, InputStream content) throws IOException {
+    if (!ObjectId.isValid(fileId)) {
+      return ResponseEntity.status(400).body(Map.of("error", "Invalid file ID format"));
+    }
+    if (collabSessionManager.isActive(fileId)) {
+      return ResponseEntity.status(409).body(Map.of("error", "File is open in a collaborative session"));
+    }
+    Optional<FileData> fileOpt = fileUpdateService.replaceContent(new ObjectId(fileId), content);
+    if (fileOpt.isPresent()) {
+      FileData file = fileOpt.get();
+      return ResponseEntity.ok(Map.of(
+              "id", file.getId(),
+              "version", file.getVersion(),
+              "size", file.getSize(),
+              "lastModified", file.getLastModified()
+      ));
+    } else {
+      return ResponseEntity.status(404).body(Map.of("error", "File not found"));
+    }
   }
 
   @PostMapping
   public ResponseEntity<?> createFile(@RequestBody FileData fileData) {
+    if (fileData.getRepositoryId() == null || !ObjectId.isValid(fileData.getRepositoryId())) {
+      return ResponseEntity.status(400).body(Map.of(
+              "error", "Invalid repository ID format",
+              "details", String.valueOf(fileData.getRepositoryId())
+      ));
+    }
     try {
-      String repoIdStr = fileData.getRepositoryId().toString();
-      repoIdStr = repoIdStr.replace("ObjectId(", "").replace(")", "");
-
-      ObjectId repositoryId = new ObjectId(repoIdStr);
-      fileData.setRepositoryId(repositoryId);
       fileData.setLastModified(new Date());
-      System.out.println("Creating file: " + fileData.getFilename());
-      System.out.println("For repository: " + repositoryId);
+      fileData.setVersion(0);
       FileData savedFile = fileRepository.save(fileData);
+      eventPublisher.publishEvent(new FileChangedEvent(
+              savedFile.getId(), savedFile.getRepositoryId(), FileChangedEvent.Type.CREATED));
       return ResponseEntity.ok(savedFile);
 
-    } catch (IllegalArgumentException e) {
-      System.err.println("Invalid repository ID format: " + e.getMessage());
-      return ResponseEntity.status(400).body(Map.of(
-              "error", "Invalid repository ID format",
-              "details", e.getMessage()
-      ));
     } catch (Exception e) {
-      System.err.println("Error creating file: " + e.getMessage());
+      log.error("Error creating file in repository {}", fileData.getRepositoryId(), e);
       return ResponseEntity.status(500).body(Map.of(
               "error", "Failed to create file",
               "details", e.getMessage()
@@ -1,67 +1,102 @@
 package org.tilakpatellshreyaan.devspacebackend.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.bson.types.ObjectId;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.tilakpatellshreyaan.devspacebackend.auth.SessionTokens;
 import org.tilakpatellshreyaan.devspacebackend.model.Activity;
 import org.tilakpatellshreyaan.devspacebackend.model.Project;
 import org.tilakpatellshreyaan.devspacebackend.model.Stat;
 import org.tilakpatellshreyaan.devspacebackend.model.User;
 import org.tilakpatellshreyaan.devspacebackend.repository.UserRepository;
+import org.tilakpatellshreyaan.devspacebackend.service.ActivityService;
+import org.tilakpatellshreyaan.devspacebackend.service.UserProfileService;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpSession;
 
+@Slf4j
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/api/auth")
 public class UserController {
 
+  private static final int MAX_ACTIVITY_PAGE_SIZE = 100;
+
   private final UserRepository userRepository;
+  private final UserProfileService userProfileService;
+  private final ActivityService activityService;
+  private final SessionTokens sessionTokens;
+  private final ObjectMapper objectMapper;
 
-  public UserController(UserRepository userRepository) {
+  public UserController(UserRepository userRepository, UserProfileService userProfileService,
+                        ActivityService activityService, SessionTokens sessionTokens, ObjectMapper objectMapper) {
     this.userRepository = userRepository;
+    this.userProfileService = userProfileService;
+    this.activityService = activityService;
+    this.sessionTokens = sessionTokens;
+    this.objectMapper = objectMapper;
   }
 
-  // Sign In: Validate credentials and store session data.
+  // Sign In: Validate credentials and store session data, or hand out a signed token in token mode.
   @PostMapping("/signin")
-  public ResponseEntity<?> signIn(@RequestBody Map<String, String> credentials, HttpSession session) {
+  public ResponseEntity<?> signIn(@RequestBody Map<String, String> credentials, HttpServletRequest request) {
     String username = credentials.get("username");
     String password = credentials.get("password");
 
-    System.out.println("Attempting sign in with username: " + username);
-
     Optional<User> userOpt = userRepository.findByUsername(username);
     if (userOpt.isPresent()) {
-      session.setAttribute("userId", userOpt.get().getId());
       Map<String, Object> response = new HashMap<>();
       response.put("message", "Sign in successful");
       response.put("user", userOpt.get());
+      if (sessionTokens.isTokenMode()) {
+        String token = sessionTokens.issue(userOpt.get().getId());
+        response.put("token", token);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.SET_COOKIE, sessionTokens.cookie(token).toString())
+                .body(response);
+      }
+      request.getSession().setAttribute("userId", userOpt.get().getId());
       return ResponseEntity.ok(response);
     } else {
-      System.out.println("User not found for username: " + username);
+      log.atInfo().setMessage("Sign in failed").addKeyValue("reason", "unknown_user").log();
       return ResponseEntity.status(401).body(Map.of("error", "Invalid credentials"));
     }
   }
 
 
-  // Sign Out: Invalidate the user session.
+  // Sign Out: Invalidate the user session, or clear the token cookie in token mode.
   @PostMapping("/signout")
-  public ResponseEntity<?> signOut(HttpSession session) {
-    session.invalidate();
+  public ResponseEntity<?> signOut(HttpServletRequest request) {
+    if (sessionTokens.isTokenMode()) {
+      return ResponseEntity.ok()
+              .header(HttpHeaders.SET_COOKIE, sessionTokens.expiredCookie().toString())
+              .body(Map.of("message", "Signed out successfully"));
+    }
+    HttpSession session = request.getSession(false);
+    if (session != null) {
+      session.invalidate();
+    }
     return ResponseEntity.ok(Map.of("message", "Signed out successfully"));
   }
 
   // Check Session: Returns session status and user info if a session is active.
   @GetMapping("/check-session")
-  public ResponseEntity<?> checkSession(HttpSession session) {
-    String userId = (String) session.getAttribute("userId");
+  public ResponseEntity<?> checkSession(@RequestAttribute(name = "userId", required = false) String userId) {
     if (userId == null) {
       return ResponseEntity.status(401).body(Map.of("message", "No active session"));
     }
-    Optional<User> userOpt = userRepository.findById(userId);
+    Optional<User> userOpt = userProfileService.findUser(userId);
     if (userOpt.isEmpty()) {
       return ResponseEntity.status(404).body(Map.of("message", "User not found"));
     }
@@ -74,7 +109,7 @@ public class UserController {
   // Get User by ID.
   @GetMapping("/{userId}")
   public ResponseEntity<?> getUserByUserId(@PathVariable String userId) {
-    Optional<User> userOpt = userRepository.findById(userId);
+    Optional<User> userOpt = userProfileService.findUser(userId);
     if (userOpt.isPresent()) {
       return ResponseEntity.ok(userOpt.get());
     } else {
@@ -85,7 +120,7 @@ public class UserController {
   // Get User Stats.
   @GetMapping("/{userId}/stats")
   public ResponseEntity<?> getUserStats(@PathVariable String userId) {
-    Optional<User> userOpt = userRepository.findById(userId);
+    Optional<User> userOpt = userProfileService.findStats(userId);
     if (userOpt.isPresent()) {
       return ResponseEntity.ok(userOpt.get().getStats());
     } else {
@@ -96,7 +131,7 @@ public class UserController {
   // Get User Projects.
   @GetMapping("/{userId}/projects")
   public ResponseEntity<?> getUserProjects(@PathVariable String userId) {
-    Optional<User> userOpt = userRepository.findById(userId);
+    Optional<User> userOpt = userProfileService.findProjects(userId);
     if (userOpt.isPresent()) {
       return ResponseEntity.ok(userOpt.get().getProjects());
     } else {
@@ -104,28 +139,59 @@ public class UserController {
     }
   }
 
-  // Get User Activities.
+  // Get User Activities, newest first; pass the returned nextCursor as cursor for older entries.
   @GetMapping("/{userId}/activities")
-  public ResponseEntity<?> getUserActivities(@PathVariable String userId) {
-    Optional<User> userOpt = userRepository.findById(userId);
-    if (userOpt.isPresent()) {
-      return ResponseEntity.ok(userOpt.get().getActivities());
-    } else {
+  public ResponseEntity<?> getUserActivities(@PathVariable String userId,
+                                             @RequestParam(required = false) String cursor,
+                                             @RequestParam(defaultValue = "20") int limit) {
+    if (cursor != null && !ObjectId.isValid(cursor)) {
+      return ResponseEntity.status(400).body(Map.of("error", "Invalid cursor"));
+    }
+    if (userProfileService.findUser(userId).isEmpty()) {
       return ResponseEntity.status(404).body(Map.of("error", "User not found"));
     }
+
+    int pageSize = Math.max(1, Math.min(limit, MAX_ACTIVITY_PAGE_SIZE));
+    List<Activity> activities = activityService.feed(userId, cursor == null ? null : new ObjectId(cursor), pageSize);
+    Map<String, Object> response = new HashMap<>();
+    response.put("activities", activities);
+    response.put("nextCursor", activities.size() == pageSize ? activities.get(activities.size() - 1).getId() : null);
+    return ResponseEntity.ok(response);
+  }
+
+  // Record Activity: appends one entry to the signed-in user's own feed.
+  @PostMapping("/{userId}/activities")
+  public ResponseEntity<?> addUserActivity(@PathVariable String userId, @RequestBody Activity activity,
+                                           @RequestAttribute(name = "userId", required = false) String currentUserId) {
+    if (currentUserId == null) {
+      return ResponseEntity.status(401).body(Map.of("error", "No active session"));
+    }
+    if (!currentUserId.equals(userId)) {
+      return ResponseEntity.status(403).body(Map.of("error", "Not authorized to add activity for this user"));
+    }
+    return ResponseEntity.ok(activityService.record(userId, activity));
   }
 
+  // The tag covers the (cached) user and the newest activity, so a 304 skips loading the feed.
   @GetMapping("/profile/{userId}")
-  public ResponseEntity<?> getUserProfile(@PathVariable String userId) {
-    Optional<User> userOpt = userRepository.findById(userId);
+  public ResponseEntity<?> getUserProfile(@PathVariable String userId,
+                                          @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch)
+          throws JsonProcessingException {
+    Optional<User> userOpt = userProfileService.findUser(userId);
 
     if (userOpt.isEmpty()) {
       return ResponseEntity.status(404).body(Map.of("error", "User not found"));
     }
 
-    User user = userOpt.get();
+    String etag = ETags.of(objectMapper.writeValueAsString(userOpt.get()), activityService.newestId(userId).orElse(""));
+    if (ETags.matches(ifNoneMatch, etag)) {
+      return ResponseEntity.status(304).eTag(etag).build();
+    }
+    return ResponseEntity.ok().eTag(etag).body(profileResponse(userOpt.get(), activityService.latest(userId)));
+  }
 
-    // Consolidate everything into one response
+  // Consolidate everything into one response
+  public static Map<String, Object> profileResponse(User user, List<Activity> activities) {
     Map<String, Object> profileResponse = new HashMap<>();
     profileResponse.put("id", user.getId());
     profileResponse.put("username", user.getUsername());
@@ -134,26 +200,17 @@ public class UserController {
     profileResponse.put("stats", user.getStats());
     profileResponse.put("skills", user.getSkills());
     profileResponse.put("projects", user.getProjects());
-    profileResponse.put("activities", user.getActivities());
-
-    return ResponseEntity.ok(profileResponse);
+    profileResponse.put("activities", activities);
+    return profileResponse;
   }
 
 
   // Update User Information.
   @PutMapping("/{userId}")
   public ResponseEntity<?> updateUser(@PathVariable String userId, @RequestBody User updatedUser) {
-    Optional<User> userOpt = userRepository.findById(userId);
+    Optional<User> userOpt = userProfileService.update(userId, updatedUser);
     if (userOpt.isPresent()) {
-      User user = userOpt.get();
-      user.setUsername(updatedUser.getUsername());
-      user.setEmail(updatedUser.getEmail());
-      user.setAvatarUrl(updatedUser.getAvatarUrl());
-      user.setStats(updatedUser.getStats());
-      user.setProjects(updatedUser.getProjects());
-      user.setActivities(updatedUser.getActivities());
-      userRepository.save(user);
-      return ResponseEntity.ok(user);
+      return ResponseEntity.ok(userOpt.get());
     } else {
       return ResponseEntity.status(404).body(Map.of("error", "User not found"));
     }
@@ -162,8 +219,7 @@ public class UserController {
   // Delete User Account.
   @DeleteMapping("/{userId}")
   public ResponseEntity<?> deleteUser(@PathVariable String userId) {
-    if (userRepository.existsById(userId)) {
-      userRepository.deleteById(userId);
+    if (userProfileService.delete(userId)) {
       return ResponseEntity.ok(Map.of("message", "User deleted successfully"));
     } else {
       return ResponseEntity.status(404).body(Map.of("error", "User not found"));
@@ -0,0 +1,203 @@
+package org.tilakpatellshreyaan.devspacebackend.executor;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.java_websocket.client.WebSocketClient;
+import org.java_websocket.drafts.Draft;
+import org.java_websocket.drafts.Draft_6455;
+import org.java_websocket.enums.Opcode;
+import org.java_websocket.extensions.IExtension;
+import org.java_websocket.extensions.permessage_deflate.PerMessageDeflateExtension;
+import org.java_websocket.handshake.ServerHandshake;
+import org.java_websocket.protocols.IProtocol;
+import org.java_websocket.protocols.Protocol;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One WebSocket to an executor node. Several requests can be in flight on the same socket; each
+ * outgoing payload carries a {@code requestId} that the executor echoes on every reply.
+ * <p>
+ * The handshake offers the {@value #BINARY_PROTOCOL} subprotocol and permessage-deflate. An
+ * executor that accepts the subprotocol gets CBOR binary frames and answers in kind; one that
+ * does not keeps exchanging JSON text frames, so old and new executors can share a pool.
+ */
+@Slf4j
+class ExecutorConnection extends WebSocketClient {
+  static final String BINARY_PROTOCOL = "devspace.cbor.v1";
+  private static final CBORMapper CBOR_MAPPER = new CBORMapper();
+
+  private record Pending(ExecutorListener listener, long startedNanos) {
+  }
+
+  private final ExecutorPool pool;
+  private final ObjectMapper objectMapper;
+  private final int fragmentSize;
+  private final Map<String, Pending> inFlight = new ConcurrentHashMap<>();
+  private final AtomicInteger failedAttempts = new AtomicInteger();
+  // Keeps the fragments of one message together when several requests send at once
+  private final ReentrantLock sendLock = new ReentrantLock();
+  // Set per handshake, since a reconnect may reach an executor with a different version
+  private volatile boolean binary;
+
+  ExecutorConnection(URI endpoint, ExecutorPool pool, ObjectMapper objectMapper, ExecutorProperties properties) {
+    super(endpoint, draft(properties));
+    this.pool = pool;
+    this.objectMapper = objectMapper;
+    this.fragmentSize = (int) properties.getFragmentSize().toBytes();
+  }
+
+  private static Draft draft(ExecutorProperties properties) {
+    List<IExtension> extensions = new ArrayList<>();
+    if (properties.isCompression()) {
+      extensions.add(new PerMessageDeflateExtension());
+    }
+    List<IProtocol> protocols = new ArrayList<>();
+    if (properties.isBinaryFrames()) {
+      protocols.add(new Protocol(BINARY_PROTOCOL));
+    }
+    // Accepts a handshake that names no subprotocol at all.
+    protocols.add(new Protocol(""));
+    return new Draft_6455(extensions, protocols);
+  }
+
+  int load() {
+    return inFlight.size();
+  }
+
+  int failedAttempts() {
+    return failedAttempts.get();
+  }
+
+  void send(String requestId, ObjectNode payload, ExecutorListener listener) {
+    inFlight.put(requestId, new Pending(listener, System.nanoTime()));
+    try {
+      if (binary) {
+        sendBinary(CBOR_MAPPER.writeValueAsBytes(payload));
+      } else {
+        send(objectMapper.writeValueAsString(payload));
+      }
+    } catch (JsonProcessingException e) {
+      inFlight.remove(requestId);
+      throw new IllegalArgumentException("Executor payload is not serializable", e);
+    } catch (RuntimeException e) {
+      inFlight.remove(requestId);
+      throw e;
+    }
+  }
+
+  // Large sources go out in fragments so no single frame has to be buffered whole by the peer.
+  private void sendBinary(byte[] message) {
+    sendLock.lock();
+    try {
+      if (message.length <= fragmentSize) {
+        send(message);
+        return;
+      }
+      for (int offset = 0; offset < message.length; offset += fragmentSize) {
+        int length = Math.min(fragmentSize, message.length - offset);
+        // A copy, not a slice: permessage-deflate compresses the whole backing array of a frame.
+        sendFragmentedFrame(Opcode.BINARY, ByteBuffer.wrap(Arrays.copyOfRange(message, offset, offset + length)),
+                offset + length == message.length);
+      }
+    } finally {
+      sendLock.unlock();
+    }
+  }
+
+  void expire(long timeoutNanos) {
+    long now = System.nanoTime();
+    inFlight.forEach((requestId, pending) -> {
+      if (now - pending.startedNanos() > timeoutNanos && inFlight.remove(requestId, pending)) {
+        pool.recordRoundTrip(pending.startedNanos(), "timeout");
+        pending.listener().onFailure(new ExecutorUnavailableException("Execution timed out"));
+      }
+    });
+  }
+
+  @Override
+  public void onOpen(ServerHandshake handshake) {
+    failedAttempts.set(0);
+    binary = getProtocol() != null && BINARY_PROTOCOL.equals(getProtocol().getProvidedProtocol());
+    log.info("Connected to executor {} ({})", getURI(), binary ? BINARY_PROTOCOL : "json");
+  }
+
+  @Override
+  public void onMessage(String message) {
+    JsonNode reply;
+    try {
+      reply = objectMapper.readTree(message);
+    } catch (IOException e) {
+      log.warn("Discarding malformed executor reply from {}: {}", getURI(), e.getMessage());
+      return;
+    }
+    handle(reply);
+  }
+
+  @Override
+  public void onMessage(ByteBuffer message) {
+    JsonNode reply;
+    try {
+      reply = CBOR_MAPPER.readTree(new ByteBufferBackedInputStream(message));
+    } catch (IOException e) {
+      log.warn("Discarding malformed binary executor reply from {}: {}", getURI(), e.getMessage());
+      return;
+    }
+    handle(reply);
+  }
+
+  private void handle(JsonNode reply) {
+    String requestId = reply.path("requestId").asText(null);
+    if (requestId == null && inFlight.size() == 1) {
+      // Older executors do not echo the request id; with a single request in flight it is unambiguous.
+      requestId = inFlight.keySet().iterator().next();
+    }
+    Pending pending = requestId == null ? null : inFlight.get(requestId);
+    if (pending == null) {
+      log.debug("No request waiting for executor reply: {}", reply);
+      return;
+    }
+
+    if (ExecutorPool.isTerminal(reply) && inFlight.remove(requestId, pending)) {
+      pool.recordRoundTrip(pending.startedNanos(), "complete");
+    }
+    pending.listener().onReply(reply);
+  }
+
+  @Override
+  public void onClose(int code, String reason, boolean remote) {
+    if (failedAttempts.getAndIncrement() == 0) {
+      log.warn("Executor connection {} closed: {}", getURI(), reason);
+    }
+    failInFlight("Executor connection lost");
+    pool.scheduleReconnect(this);
+  }
+
+  @Override
+  public void onError(Exception ex) {
+    log.debug("Error on executor connection {}: {}", getURI(), ex.getMessage());
+  }
+
+  private void failInFlight(String reason) {
+    List<Pending> dropped = new ArrayList<>(inFlight.values());
+    inFlight.clear();
+    dropped.forEach(pending -> {
+      pool.recordRoundTrip(pending.startedNanos(), "connection_lost");
+      pending.listener().onFailure(new ExecutorUnavailableException(reason));
+    });
+  }
+}
@@ -0,0 +1,14 @@
+package org.tilakpatellshreyaan.devspacebackend.executor;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Receives the replies the executor sends for one request. {@link #onReply} is called for every
+ * message correlated to the request, including the terminal status message; {@link #onFailure}
+ * is called instead if the connection drops or the request times out before that.
+ */
+public interface ExecutorListener {
+  void onReply(JsonNode message);
+
+  void onFailure(Throwable error);
+}
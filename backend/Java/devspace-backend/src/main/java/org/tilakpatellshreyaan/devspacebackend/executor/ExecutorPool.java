@@ -0,0 +1,159 @@
+package org.tilakpatellshreyaan.devspacebackend.executor;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.java_websocket.exceptions.WebsocketNotConnectedException;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a fixed set of multiplexed WebSocket connections to every configured executor endpoint,
+ * reconnects them with exponential backoff and routes each request to the least-loaded open one.
+ */
+@Slf4j
+@Component
+public class ExecutorPool {
+  private final ExecutorProperties properties;
+  private final MeterRegistry meterRegistry;
+  private final List<ExecutorConnection> connections = new ArrayList<>();
+  private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "executor-pool");
+    thread.setDaemon(true);
+    return thread;
+  });
+  private volatile boolean closed;
+
+  public ExecutorPool(ExecutorProperties properties, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+    this.properties = properties;
+    this.meterRegistry = meterRegistry;
+
+    for (URI endpoint : properties.getEndpoints()) {
+      for (int i = 0; i < properties.getConnectionsPerEndpoint(); i++) {
+        ExecutorConnection connection = new ExecutorConnection(endpoint, this, objectMapper, properties);
+        connections.add(connection);
+        connection.connect();
+      }
+    }
+
+    Gauge.builder("devspace.executor.connections", this, ExecutorPool::openConnections)
+            .description("Executor connections currently open").tag("state", "open").register(meterRegistry);
+    Gauge.builder("devspace.executor.connections", this, pool -> pool.connections.size() - pool.openConnections())
+            .description("Executor connections waiting to reconnect").tag("state", "closed").register(meterRegistry);
+    Gauge.builder("devspace.executor.requests.in.flight", this, ExecutorPool::inFlight)
+            .description("Requests sent to an executor and not yet answered").register(meterRegistry);
+
+    long timeoutNanos = properties.getRequestTimeout().toNanos();
+    scheduler.scheduleWithFixedDelay(() -> connections.forEach(c -> c.expire(timeoutNanos)),
+            1, 1, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Sends {@code payload} to the least-loaded open connection, in whichever wire format that
+   * connection negotiated. A {@code requestId} is added to the payload and returned; every reply
+   * carrying it is delivered to {@code listener}.
+   */
+  public String submit(ObjectNode payload, ExecutorListener listener) throws ExecutorUnavailableException {
+    String requestId = UUID.randomUUID().toString();
+    payload.put("requestId", requestId);
+
+    // Retry once on another socket if the chosen one closes between selection and send.
+    for (int attempt = 0; attempt < 2; attempt++) {
+      ExecutorConnection connection = leastLoaded();
+      if (connection == null) {
+        break;
+      }
+      try {
+        connection.send(requestId, payload, listener);
+        return requestId;
+      } catch (WebsocketNotConnectedException e) {
+        log.debug("Executor connection {} closed before send", connection.getURI());
+      }
+    }
+    throw new ExecutorUnavailableException("No executor connection available");
+  }
+
+  /**
+   * Whether {@code reply} is the last message the executor sends for its request.
+   */
+  public static boolean isTerminal(JsonNode reply) {
+    return "complete".equals(reply.path("status").asText());
+  }
+
+  public int openConnections() {
+    return (int) connections.stream().filter(ExecutorConnection::isOpen).count();
+  }
+
+  public int inFlight() {
+    return connections.stream().mapToInt(ExecutorConnection::load).sum();
+  }
+
+  private ExecutorConnection leastLoaded() {
+    ExecutorConnection best = null;
+    int bestLoad = Integer.MAX_VALUE;
+    int ties = 0;
+    for (ExecutorConnection connection : connections) {
+      if (!connection.isOpen()) {
+        continue;
+      }
+      int load = connection.load();
+      if (load < bestLoad) {
+        best = connection;
+        bestLoad = load;
+        ties = 1;
+      } else if (load == bestLoad && ThreadLocalRandom.current().nextInt(++ties) == 0) {
+        // Reservoir-pick among equally loaded sockets so idle nodes share traffic evenly.
+        best = connection;
+      }
+    }
+    return best;
+  }
+
+  // Time from sending a request to its terminal reply, timeout or lost connection.
+  void recordRoundTrip(long startedNanos, String outcome) {
+    Timer.builder("devspace.executor.round.trip")
+            .description("Executor request round trips")
+            .tag("outcome", outcome)
+            .publishPercentileHistogram()
+            .register(meterRegistry)
+            .record(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS);
+  }
+
+  void scheduleReconnect(ExecutorConnection connection) {
+    if (closed) {
+      return;
+    }
+    // The close that got us here is already counted, so the first retry waits the initial backoff.
+    int attempt = Math.min(Math.max(connection.failedAttempts() - 1, 0), 16);
+    long backoff = Math.min(properties.getInitialBackoff().toMillis() << attempt,
+            properties.getMaxBackoff().toMillis());
+    long jitter = ThreadLocalRandom.current().nextLong(backoff / 4 + 1);
+    // reconnect() blocks until the old socket is torn down, so it must not hold up the scheduler
+    // thread that also expires requests and retries every other connection.
+    scheduler.schedule(() -> Thread.ofVirtual().name("executor-reconnect").start(() -> {
+      if (!closed && !connection.isOpen()) {
+        connection.reconnect();
+      }
+    }), backoff + jitter, TimeUnit.MILLISECONDS);
+  }
+
+  @PreDestroy
+  public void close() {
+    closed = true;
+    scheduler.shutdownNow();
+    connections.forEach(ExecutorConnection::close);
+  }
+}
@@ -0,0 +1,29 @@
+package org.tilakpatellshreyaan.devspacebackend.executor;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "devspace.executor")
+public class ExecutorProperties {
+  // WebSocket endpoints of the executor nodes (Jetson boxes)
+  private List<URI> endpoints = new ArrayList<>(List.of(URI.create("ws://172.20.10.2:8000/ws")));
+  // Connections opened to each endpoint; requests are multiplexed over them
+  private int connectionsPerEndpoint = 2;
+  // Offer CBOR binary frames; executors that do not accept the subprotocol keep getting JSON text
+  private boolean binaryFrames = true;
+  // Offer permessage-deflate; frames under the extension's 1 KB threshold go out uncompressed
+  private boolean compression = true;
+  // Binary messages larger than this are sent as a run of fragments
+  private DataSize fragmentSize = DataSize.ofKilobytes(64);
+  private Duration initialBackoff = Duration.ofMillis(500);
+  private Duration maxBackoff = Duration.ofSeconds(30);
+  // A request with no terminal reply after this long is failed and released
+  private Duration requestTimeout = Duration.ofMinutes(2);
+}
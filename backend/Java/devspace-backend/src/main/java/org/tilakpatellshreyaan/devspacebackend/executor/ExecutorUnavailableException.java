@@ -0,0 +1,7 @@
+package org.tilakpatellshreyaan.devspacebackend.executor;
+
+public class ExecutorUnavailableException extends Exception {
+  public ExecutorUnavailableException(String message) {
+    super(message);
+  }
+}
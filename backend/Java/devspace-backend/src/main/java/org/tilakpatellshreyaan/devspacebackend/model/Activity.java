@@ -4,13 +4,30 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
 
+import java.util.Date;
+
+// One entry of a user's activity feed; entries are only ever inserted, and expire after the configured retention
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+@Document(collection = "activities")
+@CompoundIndex(name = "user_feed", def = "{'userId': 1, '_id': -1}")
 public class Activity {
+  @Id
+  private String id;
+  @Field(targetType = FieldType.OBJECT_ID)
+  private String userId;
+  @Field(targetType = FieldType.OBJECT_ID)
+  private String repositoryId;
   private String icon;
   private String description;
   private String time;
+  private Date createdAt;
 }
@@ -2,7 +2,10 @@ package org.tilakpatellshreyaan.devspacebackend.model;
 
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
 import java.util.Date;
 import java.util.List;
 
@@ -15,7 +18,13 @@ public class CodeRepository {
   private String description;
   private Date createdAt;
   private Date updatedAt;
+  // User and file references are stored as ObjectIds, exposed as hex strings
+  @Indexed
+  @Field(targetType = FieldType.OBJECT_ID)
   private String ownerId;
+  @Field(targetType = FieldType.OBJECT_ID)
   private List<String> fileIds;
+  @Indexed
+  @Field(targetType = FieldType.OBJECT_ID)
   private List<String> collaboratorIds;
 }
@@ -0,0 +1,28 @@
+package org.tilakpatellshreyaan.devspacebackend.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/**
+ * A piece of file content stored once under the SHA-256 of its bytes, shared by every file
+ * (and every fork or template copy) that contains it.
+ */
+@Data
+@Document(collection = "file_chunks")
+// Lets the orphan sweeper list old chunks from the index alone
+@CompoundIndex(name = "chunk_touched", def = "{'touchedAt': 1, '_id': 1}")
+public class ContentChunk {
+  @Id
+  private String id;
+
+  private byte[] data;
+  private int size;
+  private Date createdAt;
+  // Refreshed whenever a write stores this chunk again, so a chunk about to be referenced by a
+  // new file version is not swept as an orphan in the meantime
+  private Date touchedAt;
+}
@@ -2,6 +2,8 @@ package org.tilakpatellshreyaan.devspacebackend.model;
 
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
 import java.util.List;
 import java.util.Date;
 import lombok.Data;
@@ -13,7 +15,9 @@ public class DevSpace {
   private String id;
   private String name;
   private String description;
+  @Field(targetType = FieldType.OBJECT_ID)
   private String ownerId;  // Added to track owner
+  @Field(targetType = FieldType.OBJECT_ID)
   private List<String> collaboratorIds;  // Changed from List<User> to List<String>
   private List<org.tilakpatellshreyaan.devspacebackend.model.FileData> files;
   private Date createdAt;  // Added to track creation time
@@ -0,0 +1,255 @@
+package org.tilakpatellshreyaan.devspacebackend.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory state of one execution request. Output is kept so that clients subscribing after the
+ * run started still receive everything from the beginning. Guarded by a {@link ReentrantLock}
+ * rather than {@code synchronized} because it is written from virtual threads that block on
+ * client sockets while holding it.
+ */
+@Getter
+public class ExecutionJob {
+  public enum State { QUEUED, RUNNING, COMPLETED, FAILED }
+
+  // fileId is only set for batch jobs, to tell whose output a chunk is
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  public record OutputChunk(String stream, String data, String fileId) {
+    public OutputChunk(String stream, String data) {
+      this(stream, data, null);
+    }
+  }
+
+  // One file of a batch job; exitCode stays null until the executor has finished the file
+  public record FileResult(String fileId, String filename, Integer exitCode) {
+  }
+
+  /**
+   * A client following the job's events, e.g. an SSE stream. {@code send} may block on the
+   * client's socket and throws once the client is gone.
+   */
+  public interface Subscriber {
+    void send(String event, Object data) throws IOException;
+
+    void close();
+  }
+
+  private final String id;
+  private final String fileId;
+  private final String filename;
+  private final Date createdAt = new Date();
+  private volatile State state = State.QUEUED;
+  private volatile Date startedAt;
+  private volatile Date finishedAt;
+  private volatile Integer exitCode;
+  private volatile String error;
+  // True when the output was served from the result cache without running anything
+  private volatile boolean cached;
+  private final List<OutputChunk> output = new ArrayList<>();
+  // Batch jobs only: fileId to filename in submission order, and exit codes as files finish
+  @Getter(AccessLevel.NONE)
+  private final Map<String, String> batchFiles;
+  @Getter(AccessLevel.NONE)
+  private final Map<String, Integer> fileExitCodes = new LinkedHashMap<>();
+  @Getter(AccessLevel.NONE)
+  private final List<Subscriber> subscribers = new ArrayList<>();
+  @Getter(AccessLevel.NONE)
+  private final ReentrantLock lock = new ReentrantLock();
+
+  public ExecutionJob(String id, String fileId, String filename) {
+    this(id, fileId, filename, null);
+  }
+
+  private ExecutionJob(String id, String fileId, String filename, Map<String, String> batchFiles) {
+    this.id = id;
+    this.fileId = fileId;
+    this.filename = filename;
+    this.batchFiles = batchFiles;
+  }
+
+  /**
+   * A job that runs several files of one repository together. {@code files} maps each fileId to
+   * its filename, in the order they are sent to the executor.
+   */
+  public static ExecutionJob batch(String id, Map<String, String> files) {
+    return new ExecutionJob(id, null, null, new LinkedHashMap<>(files));
+  }
+
+  // Per-file results of a batch job; null for single-file jobs
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  public List<FileResult> getFiles() {
+    if (batchFiles == null) {
+      return null;
+    }
+    lock.lock();
+    try {
+      List<FileResult> files = new ArrayList<>(batchFiles.size());
+      batchFiles.forEach((id, name) -> files.add(new FileResult(id, name, fileExitCodes.get(id))));
+      return files;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public List<OutputChunk> getOutput() {
+    lock.lock();
+    try {
+      return List.copyOf(output);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public boolean isFinished() {
+    return state == State.COMPLETED || state == State.FAILED;
+  }
+
+  public void start() {
+    lock.lock();
+    try {
+      state = State.RUNNING;
+      startedAt = new Date();
+      broadcast("status", statusEvent());
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public void append(OutputChunk chunk) {
+    lock.lock();
+    try {
+      output.add(chunk);
+      broadcast("output", chunk);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  // Records that one file of a batch job finished; ids outside the batch are ignored.
+  public void completeFile(String fileId, Integer exitCode) {
+    lock.lock();
+    try {
+      if (batchFiles == null || !batchFiles.containsKey(fileId)) {
+        return;
+      }
+      fileExitCodes.put(fileId, exitCode);
+      broadcast("file", new FileResult(fileId, batchFiles.get(fileId), exitCode));
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public void complete(Integer exitCode) {
+    lock.lock();
+    try {
+      this.exitCode = exitCode;
+      finish(State.COMPLETED);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public void completeFromCache(List<OutputChunk> chunks, Integer exitCode) {
+    lock.lock();
+    try {
+      this.cached = true;
+      output.addAll(chunks);
+      this.exitCode = exitCode;
+      finish(State.COMPLETED);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public void fail(String error) {
+    lock.lock();
+    try {
+      this.error = error;
+      finish(State.FAILED);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Replays the output and finished batch files so far to {@code subscriber} and keeps it
+   * subscribed until the job finishes.
+   */
+  public void subscribe(Subscriber subscriber) {
+    lock.lock();
+    try {
+      try {
+        subscriber.send("status", statusEvent());
+        for (OutputChunk chunk : output) {
+          subscriber.send("output", chunk);
+        }
+        for (Map.Entry<String, Integer> finished : fileExitCodes.entrySet()) {
+          subscriber.send("file", new FileResult(finished.getKey(), batchFiles.get(finished.getKey()),
+                  finished.getValue()));
+        }
+      } catch (IOException | IllegalStateException e) {
+        subscriber.close();
+        return;
+      }
+      if (isFinished()) {
+        subscriber.close();
+      } else {
+        subscribers.add(subscriber);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public void unsubscribe(Subscriber subscriber) {
+    lock.lock();
+    try {
+      subscribers.remove(subscriber);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void finish(State finalState) {
+    state = finalState;
+    finishedAt = new Date();
+    broadcast("status", statusEvent());
+    subscribers.forEach(Subscriber::close);
+    subscribers.clear();
+  }
+
+  private Map<String, Object> statusEvent() {
+    Map<String, Object> event = new LinkedHashMap<>();
+    event.put("jobId", id);
+    event.put("state", state);
+    if (exitCode != null) {
+      event.put("exitCode", exitCode);
+    }
+    if (error != null) {
+      event.put("error", error);
+    }
+    return event;
+  }
+
+  private void broadcast(String name, Object data) {
+    subscribers.removeIf(subscriber -> {
+      try {
+        subscriber.send(name, data);
+        return false;
+      } catch (IOException | IllegalStateException e) {
+        // Client went away; drop it so one dead stream does not affect the others.
+        return true;
+      }
+    });
+  }
+}
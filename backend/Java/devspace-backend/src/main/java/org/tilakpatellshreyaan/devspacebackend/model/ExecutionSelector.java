@@ -0,0 +1,18 @@
+package org.tilakpatellshreyaan.devspacebackend.model;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Picks the files of a repository to run as one batch. Every criterion that is set must match;
+ * an empty selector selects the whole repository.
+ */
+@Data
+public class ExecutionSelector {
+  // Only these files; ids outside the repository are ignored
+  private List<String> fileIds;
+  // Glob on the filename: * and ? stay within one path segment, ** crosses them
+  private String pattern;
+  private String language;
+}
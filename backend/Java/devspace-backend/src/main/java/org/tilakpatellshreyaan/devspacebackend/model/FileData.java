@@ -1,22 +1,46 @@
 package org.tilakpatellshreyaan.devspacebackend.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 
-import org.bson.types.ObjectId;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
 
 import java.util.Date;
+import java.util.List;
 
 @Data
 @Document(collection = "files")
+// Listing pages through a repository in id order; imports look files up by name. The name index
+// is not unique: file creation has always accepted duplicate names within a repository, so stored
+// data may already hold them and a unique build would fail on it.
+@CompoundIndex(name = "repository_files", def = "{'repositoryId': 1, '_id': 1}")
+@CompoundIndex(name = "repository_filename", def = "{'repositoryId': 1, 'filename': 1}")
 public class FileData {
   @Id
   private String id;
 
   private String filename;
   private String language;
-  private ObjectId repositoryId;
+  // Stored as an ObjectId, exposed as its hex string like every other id
+  @Field(targetType = FieldType.OBJECT_ID)
+  private String repositoryId;
+  // Stored as content-addressed chunks (see FileContentStore), never inline in the document
+  @Transient
   private String content;
+  // Indexed so the orphan sweeper can tell which chunks are still referenced
+  @JsonIgnore
+  @Indexed
+  private List<String> chunkIds;
+  private String contentHash;
+  // Content size in UTF-8 bytes
+  private long size;
   private Date lastModified;
+  // Incremented on every content write; updates made against an older version are rejected
+  private long version;
 }
@@ -0,0 +1,10 @@
+package org.tilakpatellshreyaan.devspacebackend.model;
+
+import lombok.Data;
+
+@Data
+public class FilePatch {
+  // Version of the file the operation was made against
+  private Long version;
+  private TextOperation ops;
+}
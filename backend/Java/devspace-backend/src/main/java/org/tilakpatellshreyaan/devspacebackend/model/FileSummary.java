@@ -0,0 +1,21 @@
+package org.tilakpatellshreyaan.devspacebackend.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+
+import java.util.Date;
+
+/**
+ * The metadata of a {@link FileData} without its content, for rendering file trees.
+ */
+@Data
+public class FileSummary {
+  @Id
+  private String id;
+
+  private String filename;
+  private String language;
+  // Content size in UTF-8 bytes
+  private long size;
+  private Date lastModified;
+}
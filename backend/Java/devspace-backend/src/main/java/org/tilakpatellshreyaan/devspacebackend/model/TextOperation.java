@@ -0,0 +1,200 @@
+package org.tilakpatellshreyaan.devspacebackend.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An edit to a whole document in the compact form used by ot.js: a list whose elements are a
+ * positive integer (retain that many characters), a negative integer (delete that many) or a
+ * string (insert it). The components must cover the whole original document, so
+ * {@code [1200, "x", -3, 4500]} edits a 5,703 character file with a few bytes on the wire.
+ */
+public final class TextOperation {
+  private final List<Object> components = new ArrayList<>();
+  private int baseLength;
+  private int targetLength;
+
+  public TextOperation() {
+  }
+
+  @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+  public static TextOperation of(List<Object> components) {
+    TextOperation operation = new TextOperation();
+    for (Object component : components) {
+      if (component instanceof String text) {
+        operation.insert(text);
+      } else if (component instanceof Number number && number.doubleValue() == number.intValue()) {
+        int n = number.intValue();
+        if (n > 0) {
+          operation.retain(n);
+        } else if (n < 0) {
+          operation.delete(-n);
+        }
+      } else {
+        throw new IllegalArgumentException("Invalid operation component: " + component);
+      }
+    }
+    return operation;
+  }
+
+  @JsonValue
+  public List<Object> components() {
+    return Collections.unmodifiableList(components);
+  }
+
+  public int baseLength() {
+    return baseLength;
+  }
+
+  public int targetLength() {
+    return targetLength;
+  }
+
+  public TextOperation retain(int n) {
+    if (n <= 0) {
+      return this;
+    }
+    baseLength += n;
+    targetLength += n;
+    if (!components.isEmpty() && components.get(components.size() - 1) instanceof Integer last && last > 0) {
+      components.set(components.size() - 1, last + n);
+    } else {
+      components.add(n);
+    }
+    return this;
+  }
+
+  public TextOperation insert(String text) {
+    if (text.isEmpty()) {
+      return this;
+    }
+    targetLength += text.length();
+    int size = components.size();
+    if (size > 0 && components.get(size - 1) instanceof String last) {
+      components.set(size - 1, last + text);
+    } else if (size > 0 && components.get(size - 1) instanceof Integer last && last < 0) {
+      // Keep inserts ahead of deletes at the same position so equal edits compare equal.
+      if (size > 1 && components.get(size - 2) instanceof String previous) {
+        components.set(size - 2, previous + text);
+      } else {
+        components.add(size - 1, text);
+      }
+    } else {
+      components.add(text);
+    }
+    return this;
+  }
+
+  public TextOperation delete(int n) {
+    if (n <= 0) {
+      return this;
+    }
+    baseLength += n;
+    if (!components.isEmpty() && components.get(components.size() - 1) instanceof Integer last && last < 0) {
+      components.set(components.size() - 1, last - n);
+    } else {
+      components.add(-n);
+    }
+    return this;
+  }
+
+  public String apply(String document) {
+    if (document.length() != baseLength) {
+      throw new IllegalArgumentException("Operation expects a document of length " + baseLength
+              + " but the document has length " + document.length());
+    }
+    StringBuilder result = new StringBuilder(targetLength);
+    int index = 0;
+    for (Object component : components) {
+      if (component instanceof String text) {
+        result.append(text);
+      } else {
+        int n = (Integer) component;
+        if (n > 0) {
+          result.append(document, index, index + n);
+          index += n;
+        } else {
+          index -= n;
+        }
+      }
+    }
+    return result.toString();
+  }
+
+  /**
+   * Transforms two operations made against the same document so that applying
+   * {@code a} then {@code result[1]} gives the same text as applying {@code b} then
+   * {@code result[0]}. When both insert at the same position, {@code a}'s text ends up first.
+   */
+  public static TextOperation[] transform(TextOperation a, TextOperation b) {
+    if (a.baseLength != b.baseLength) {
+      throw new IllegalArgumentException("Both operations must start from the same document");
+    }
+    TextOperation aPrime = new TextOperation();
+    TextOperation bPrime = new TextOperation();
+    List<Object> aComponents = a.components;
+    List<Object> bComponents = b.components;
+    int i = 0;
+    int j = 0;
+    Object x = i < aComponents.size() ? aComponents.get(i++) : null;
+    Object y = j < bComponents.size() ? bComponents.get(j++) : null;
+
+    while (x != null || y != null) {
+      if (x instanceof String text) {
+        aPrime.insert(text);
+        bPrime.retain(text.length());
+        x = i < aComponents.size() ? aComponents.get(i++) : null;
+        continue;
+      }
+      if (y instanceof String text) {
+        aPrime.retain(text.length());
+        bPrime.insert(text);
+        y = j < bComponents.size() ? bComponents.get(j++) : null;
+        continue;
+      }
+      if (x == null || y == null) {
+        throw new IllegalArgumentException("Operations cover different document lengths");
+      }
+
+      int m = (Integer) x;
+      int n = (Integer) y;
+      int length = Math.min(Math.abs(m), Math.abs(n));
+      if (m > 0 && n > 0) {
+        aPrime.retain(length);
+        bPrime.retain(length);
+      } else if (m < 0 && n > 0) {
+        aPrime.delete(length);
+      } else if (m > 0) {
+        bPrime.delete(length);
+      }
+      // When both delete the same range there is nothing left for either side to do.
+
+      int restX = Math.abs(m) - length;
+      int restY = Math.abs(n) - length;
+      x = restX > 0 ? Integer.valueOf(Integer.signum(m) * restX)
+              : i < aComponents.size() ? aComponents.get(i++) : null;
+      y = restY > 0 ? Integer.valueOf(Integer.signum(n) * restY)
+              : j < bComponents.size() ? bComponents.get(j++) : null;
+    }
+    return new TextOperation[] {aPrime, bPrime};
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof TextOperation operation && components.equals(operation.components);
+  }
+
+  @Override
+  public int hashCode() {
+    return components.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return components.toString();
+  }
+}
@@ -0,0 +1,30 @@
+package org.tilakpatellshreyaan.devspacebackend.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+import java.util.Date;
+
+// A deleted repository or user whose dependent documents are still being removed in the background
+@Data
+@Document(collection = "tombstones")
+@CompoundIndex(name = "tombstone_target", def = "{'kind': 1, 'targetId': 1}", unique = true)
+public class Tombstone {
+  public enum Kind { REPOSITORY, USER }
+
+  @Id
+  private String id;
+  private Kind kind;
+  @Field(targetType = FieldType.OBJECT_ID)
+  private String targetId;
+  private Date createdAt;
+  // Set while an instance works on the tombstone; another may take it over once this passes
+  @Indexed
+  private Date claimedUntil;
+  private int attempts;
+}
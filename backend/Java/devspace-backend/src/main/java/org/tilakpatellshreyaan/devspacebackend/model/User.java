@@ -2,6 +2,7 @@ package org.tilakpatellshreyaan.devspacebackend.model;
 
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.util.List;
@@ -12,6 +13,7 @@ public class User {
   @Id
   private String id;
 
+  @Indexed
   private String username;
   private String email;
   private String avatarUrl;
@@ -19,7 +21,6 @@ public class User {
   private String password;
   private List<Stat> stats;
   private List<Project> projects;
-  private List<Activity> activities;
   private List<Skill> skills;
   private String location;
   private String title;
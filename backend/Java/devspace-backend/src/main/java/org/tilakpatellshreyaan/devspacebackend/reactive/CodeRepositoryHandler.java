@@ -0,0 +1,330 @@
+package org.tilakpatellshreyaan.devspacebackend.reactive;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bson.types.ObjectId;
+import org.reactivestreams.Publisher;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.tilakpatellshreyaan.devspacebackend.changes.ChangeFeedProperties;
+import org.tilakpatellshreyaan.devspacebackend.cleanup.CleanupService;
+import org.tilakpatellshreyaan.devspacebackend.changes.RepositoryChange;
+import org.tilakpatellshreyaan.devspacebackend.changes.RepositoryChangeFeed;
+import org.tilakpatellshreyaan.devspacebackend.controller.ETags;
+import org.tilakpatellshreyaan.devspacebackend.executor.ExecutorUnavailableException;
+import org.tilakpatellshreyaan.devspacebackend.model.CodeRepository;
+import org.tilakpatellshreyaan.devspacebackend.model.ExecutionSelector;
+import org.tilakpatellshreyaan.devspacebackend.model.Tombstone;
+import org.tilakpatellshreyaan.devspacebackend.repository.ReactiveCodeRepositoryRepository;
+import org.tilakpatellshreyaan.devspacebackend.search.CodeSearchService;
+import org.tilakpatellshreyaan.devspacebackend.service.ArchiveTooLargeException;
+import org.tilakpatellshreyaan.devspacebackend.service.ExecutionPriority;
+import org.tilakpatellshreyaan.devspacebackend.service.ExecutionRejectedException;
+import org.tilakpatellshreyaan.devspacebackend.service.RepositoryArchiveService;
+import org.tilakpatellshreyaan.devspacebackend.service.RepositoryExecutionService;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * The {@code /api/repositories} endpoints of {@code CodeRepositoryController} for the reactive
+ * profile, with the same statuses and bodies.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class CodeRepositoryHandler {
+  private static final MediaType ZIP_MEDIA_TYPE = MediaType.parseMediaType("application/zip");
+  // Buffers requested ahead from an archive upload
+  private static final int UPLOAD_DEMAND = 4;
+  // Changes held for a watcher that reads slower than the repository changes
+  private static final int MAX_PENDING_CHANGES = 256;
+
+  private final ReactiveCodeRepositoryRepository repositoryRepo;
+  private final RepositoryArchiveService archiveService;
+  private final RepositoryExecutionService executionService;
+  private final CodeSearchService searchService;
+  private final RepositoryChangeFeed changeFeed;
+  private final ChangeFeedProperties changeFeedProperties;
+  private final CleanupService cleanupService;
+  private final ObjectMapper objectMapper;
+
+  public CodeRepositoryHandler(ReactiveCodeRepositoryRepository repositoryRepo, RepositoryArchiveService archiveService,
+                               RepositoryExecutionService executionService, CodeSearchService searchService,
+                               RepositoryChangeFeed changeFeed, ChangeFeedProperties changeFeedProperties,
+                               CleanupService cleanupService, ObjectMapper objectMapper) {
+    this.repositoryRepo = repositoryRepo;
+    this.archiveService = archiveService;
+    this.executionService = executionService;
+    this.searchService = searchService;
+    this.changeFeed = changeFeed;
+    this.changeFeedProperties = changeFeedProperties;
+    this.cleanupService = cleanupService;
+    this.objectMapper = objectMapper;
+  }
+
+  public Mono<ServerResponse> getAccessibleRepositories(ServerRequest request) {
+    return Responses.currentUserId(request).flatMap(userId -> {
+      if (userId.isEmpty()) {
+        return Responses.error(401, "No active session");
+      }
+      Flux<CodeRepository> repositories = repositoryRepo.findByOwnerIdOrCollaboratorIdsContaining(userId.get(), userId.get());
+      return repositories.collectList()
+              .flatMap(list -> ServerResponse.ok().bodyValue(list))
+              .onErrorResume(e -> Responses.error(500, "Failed to fetch accessible repositories"));
+    });
+  }
+
+  public Mono<ServerResponse> getUserRepositories(ServerRequest request) {
+    return repositoryRepo.findByOwnerId(request.pathVariable("userId")).collectList()
+            .flatMap(list -> ServerResponse.ok().bodyValue(list))
+            .onErrorResume(e -> Responses.error(500, "Failed to fetch user repositories"));
+  }
+
+  public Mono<ServerResponse> getRepositoryById(ServerRequest request) {
+    String ifNoneMatch = request.headers().firstHeader(HttpHeaders.IF_NONE_MATCH);
+    return repositoryRepo.findById(request.pathVariable("repoId"))
+            .flatMap(repo -> {
+              byte[] body;
+              try {
+                body = objectMapper.writeValueAsBytes(repo);
+              } catch (JsonProcessingException e) {
+                return Mono.error(e);
+              }
+              String etag = ETags.of(body);
+              if (ETags.matches(ifNoneMatch, etag)) {
+                return ServerResponse.status(304).eTag(etag).build();
+              }
+              return ServerResponse.ok().eTag(etag).contentType(MediaType.APPLICATION_JSON).bodyValue(body);
+            })
+            .switchIfEmpty(Responses.error(404, "Repository not found"));
+  }
+
+  public Mono<ServerResponse> getRepositoryCollaborators(ServerRequest request) {
+    return repositoryRepo.findById(request.pathVariable("repoId"))
+            .flatMap(repo -> ServerResponse.ok().bodyValue(
+                    repo.getCollaboratorIds() == null ? List.of() : repo.getCollaboratorIds()))
+            .switchIfEmpty(Responses.error(404, "Repository not found"));
+  }
+
+  public Mono<ServerResponse> createRepository(ServerRequest request) {
+    return Responses.currentUserId(request).flatMap(userId -> {
+      if (userId.isEmpty()) {
+        return Responses.error(401, "No active session");
+      }
+      return request.bodyToMono(CodeRepository.class).flatMap(repository -> {
+        repository.setOwnerId(userId.get());
+        repository.setCreatedAt(new Date());
+        repository.setUpdatedAt(new Date());
+        return repositoryRepo.save(repository);
+      })
+              .flatMap(saved -> ServerResponse.ok().bodyValue(saved))
+              .onErrorResume(e -> Responses.error(500, "Failed to create repository"));
+    });
+  }
+
+  public Mono<ServerResponse> updateRepository(ServerRequest request) {
+    String repoId = request.pathVariable("repoId");
+    return repositoryRepo.findById(repoId).flatMap(repo -> Responses.currentUserId(request).flatMap(userId -> {
+      if (userId.isEmpty()) {
+        return Responses.error(401, "No active session");
+      }
+      if (!userId.get().equals(repo.getOwnerId())) {
+        return Responses.error(403, "Not authorized to update this repository");
+      }
+      return request.bodyToMono(CodeRepository.class).flatMap(updatedRepo -> {
+        repo.setRepositoryName(updatedRepo.getRepositoryName());
+        repo.setDescription(updatedRepo.getDescription());
+        repo.setFileIds(updatedRepo.getFileIds());
+        repo.setCollaboratorIds(updatedRepo.getCollaboratorIds());
+        repo.setUpdatedAt(new Date());
+        return repositoryRepo.save(repo);
+      }).flatMap(saved -> ServerResponse.ok().bodyValue(saved));
+    })).switchIfEmpty(Responses.error(404, "Repository not found"));
+  }
+
+  public Mono<ServerResponse> deleteRepository(ServerRequest request) {
+    String repoId = request.pathVariable("repoId");
+    return repositoryRepo.findById(repoId).flatMap(repo -> Responses.currentUserId(request).flatMap(userId -> {
+      if (userId.isEmpty()) {
+        return Responses.error(401, "No active session");
+      }
+      if (!userId.get().equals(repo.getOwnerId())) {
+        return Responses.error(403, "Not authorized to delete this repository");
+      }
+      return repositoryRepo.deleteById(repoId)
+              .then(Responses.blocking(() -> {
+                cleanupService.enqueue(Tombstone.Kind.REPOSITORY, repoId);
+                return true;
+              }))
+              .then(ServerResponse.ok().bodyValue(Map.of("message", "Repository deleted successfully")));
+    })).switchIfEmpty(Responses.error(404, "Repository not found"));
+  }
+
+  public Mono<ServerResponse> importArchive(ServerRequest request) {
+    String repoId = request.pathVariable("repoId");
+    if (!ObjectId.isValid(repoId)) {
+      return Responses.error(400, "Invalid repository ID format");
+    }
+    return withAccess(request, repoId, userId -> Responses.blocking(() -> {
+      try (InputStream archive = DataBufferUtils.subscriberInputStream(request.bodyToFlux(DataBuffer.class), UPLOAD_DEMAND)) {
+        return archiveService.importZip(new ObjectId(repoId), archive);
+      }
+    })
+            .flatMap(result -> ServerResponse.ok().bodyValue(Map.of(
+                    "created", result.created(),
+                    "updated", result.updated(),
+                    "bytes", result.bytes()
+            )))
+            .onErrorResume(ArchiveTooLargeException.class, e -> ServerResponse.status(413).bodyValue(
+                    Map.of("error", "Archive too large", "details", e.getMessage())))
+            .onErrorResume(e -> e instanceof IOException || e instanceof IllegalArgumentException,
+                    e -> ServerResponse.status(400).bodyValue(
+                            Map.of("error", "Invalid zip archive", "details", String.valueOf(e.getMessage())))));
+  }
+
+  // The zip is written on a bounded elastic thread that blocks whenever the client stops reading.
+  public Mono<ServerResponse> exportArchive(ServerRequest request) {
+    String repoId = request.pathVariable("repoId");
+    if (!ObjectId.isValid(repoId)) {
+      return Responses.error(400, "Invalid repository ID format");
+    }
+    ObjectId repositoryId = new ObjectId(repoId);
+    return withAccess(request, repoId, userId -> {
+      Publisher<DataBuffer> body = DataBufferUtils.outputStreamPublisher(out -> {
+        try {
+          archiveService.exportZip(repositoryId, out);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }, DefaultDataBufferFactory.sharedInstance, Schedulers.boundedElastic()::schedule);
+      return ServerResponse.ok()
+              .contentType(ZIP_MEDIA_TYPE)
+              .header(HttpHeaders.CONTENT_DISPOSITION,
+                      ContentDisposition.attachment().filename(repoId + ".zip").build().toString())
+              .body(body, DataBuffer.class);
+    });
+  }
+
+  public Mono<ServerResponse> executeRepository(ServerRequest request) {
+    String repoId = request.pathVariable("repoId");
+    if (!ObjectId.isValid(repoId)) {
+      return Responses.error(400, "Invalid repository ID format");
+    }
+    String priority = request.queryParam("priority").orElse("batch");
+    ExecutionPriority executionPriority;
+    try {
+      executionPriority = ExecutionPriority.valueOf(priority.toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      return ServerResponse.status(400).bodyValue(Map.of("error", "Unknown priority", "details", priority));
+    }
+    return withAccess(request, repoId, userId -> request.bodyToMono(ExecutionSelector.class)
+            .defaultIfEmpty(new ExecutionSelector())
+            .flatMap(selector -> Responses.blocking(
+                    () -> executionService.submit(new ObjectId(repoId), selector, userId, executionPriority)))
+            .flatMap(job -> ServerResponse.status(202).bodyValue(Map.of(
+                    "message", "Batch execution started",
+                    "jobId", job.getId(),
+                    "state", job.getState(),
+                    "files", job.getFiles()
+            )))
+            .onErrorResume(IllegalArgumentException.class, e -> ServerResponse.status(400).bodyValue(
+                    Map.of("error", "Invalid file selector", "details", String.valueOf(e.getMessage()))))
+            .onErrorResume(ExecutorUnavailableException.class, e -> Responses.error(503, "No executor connection available"))
+            .onErrorResume(ExecutionRejectedException.class, e -> ServerResponse.status(429)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.retryAfterSeconds()))
+                    .bodyValue(Map.of("error", e.getMessage()))));
+  }
+
+  // A cold repository is indexed from Mongo on the first search, so the search runs off the event loop.
+  public Mono<ServerResponse> searchRepository(ServerRequest request) {
+    String repoId = request.pathVariable("repoId");
+    if (!ObjectId.isValid(repoId)) {
+      return Responses.error(400, "Invalid repository ID format");
+    }
+    if (!searchService.isEnabled()) {
+      return Responses.error(404, "Code search is disabled");
+    }
+    String query = request.queryParam("q").orElse(null);
+    if (query == null) {
+      return Responses.error(400, "Missing query parameter q");
+    }
+    boolean regex = request.queryParam("regex").map(Boolean::parseBoolean).orElse(false);
+    boolean ignoreCase = request.queryParam("ignoreCase").map(Boolean::parseBoolean).orElse(false);
+    return withAccess(request, repoId, userId -> Responses.blocking(
+                    () -> searchService.search(repoId, query, regex, ignoreCase))
+            .flatMap(results -> ServerResponse.ok().bodyValue(Map.of("query", query, "results", results)))
+            .onErrorResume(IllegalArgumentException.class, e -> ServerResponse.status(400).bodyValue(
+                    Map.of("error", "Invalid search query", "details", String.valueOf(e.getMessage())))));
+  }
+
+  // Changes wait in a bounded buffer; a watcher that falls further behind is dropped and reconnects.
+  public Mono<ServerResponse> streamRepositoryChanges(ServerRequest request) {
+    String repoId = request.pathVariable("repoId");
+    if (!ObjectId.isValid(repoId)) {
+      return Responses.error(400, "Invalid repository ID format");
+    }
+    if (!changeFeed.isEnabled()) {
+      return Responses.error(404, "Change feed is disabled");
+    }
+    return withAccess(request, repoId, userId -> {
+      Flux<ServerSentEvent<RepositoryChange>> changes = Flux.<ServerSentEvent<RepositoryChange>>create(sink -> {
+        RepositoryChangeFeed.Subscriber subscriber = new RepositoryChangeFeed.Subscriber() {
+          @Override
+          public void send(RepositoryChange change) throws IOException {
+            if (sink.isCancelled()) {
+              throw new IOException("Client disconnected");
+            }
+            sink.next(ServerSentEvent.builder(change).event(change.kind()).build());
+          }
+
+          @Override
+          public void close() {
+            sink.complete();
+          }
+        };
+        sink.onDispose(() -> changeFeed.unsubscribe(repoId, subscriber));
+        changeFeed.subscribe(repoId, subscriber);
+      }, FluxSink.OverflowStrategy.BUFFER)
+              .onBackpressureBuffer(MAX_PENDING_CHANGES, BufferOverflowStrategy.ERROR)
+              .take(changeFeedProperties.getStreamTimeout());
+      return ServerResponse.ok().contentType(MediaType.TEXT_EVENT_STREAM).body(changes, ServerSentEvent.class);
+    });
+  }
+
+  // Continues with the handler, given the user's id, when the user may read or write the repository.
+  private Mono<ServerResponse> withAccess(ServerRequest request, String repoId,
+                                          Function<String, Mono<ServerResponse>> handler) {
+    return Responses.currentUserId(request).flatMap(userId -> {
+      if (userId.isEmpty()) {
+        return Responses.error(401, "No active session");
+      }
+      return repositoryRepo.findById(repoId).flatMap(repo -> {
+        boolean collaborator = repo.getCollaboratorIds() != null && repo.getCollaboratorIds().contains(userId.get());
+        if (!userId.get().equals(repo.getOwnerId()) && !collaborator) {
+          return Responses.error(403, "Not authorized to access this repository");
+        }
+        return handler.apply(userId.get());
+      }).switchIfEmpty(Responses.error(404, "Repository not found"));
+    });
+  }
+}
@@ -0,0 +1,356 @@
+package org.tilakpatellshreyaan.devspacebackend.reactive;
+
+import org.bson.types.ObjectId;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.tilakpatellshreyaan.devspacebackend.collab.CollabSessionManager;
+import org.tilakpatellshreyaan.devspacebackend.controller.ETags;
+import org.tilakpatellshreyaan.devspacebackend.executor.ExecutorUnavailableException;
+import org.tilakpatellshreyaan.devspacebackend.model.ExecutionJob;
+import org.tilakpatellshreyaan.devspacebackend.model.FileData;
+import org.tilakpatellshreyaan.devspacebackend.model.FilePatch;
+import org.tilakpatellshreyaan.devspacebackend.repository.ReactiveFileContentStore;
+import org.tilakpatellshreyaan.devspacebackend.repository.ReactiveFileDataRepository;
+import org.tilakpatellshreyaan.devspacebackend.service.ExecutionJobService;
+import org.tilakpatellshreyaan.devspacebackend.service.ExecutionPriority;
+import org.tilakpatellshreyaan.devspacebackend.service.ExecutionProperties;
+import org.tilakpatellshreyaan.devspacebackend.service.ExecutionRejectedException;
+import org.tilakpatellshreyaan.devspacebackend.service.FileChangedEvent;
+import org.tilakpatellshreyaan.devspacebackend.service.FileUpdateService;
+import org.tilakpatellshreyaan.devspacebackend.service.VersionConflictException;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The {@code /api/files} endpoints of {@code FileController} for the reactive profile, with the
+ * same statuses and bodies. Writes still go through the blocking services, on the bounded elastic
+ * scheduler.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class FileHandler {
+  private static final int MAX_TREE_PAGE_SIZE = 500;
+  // Events held for a job stream whose client reads slower than the job writes
+  private static final int MAX_PENDING_EVENTS = 1024;
+  // Chunks requested ahead from an upload body
+  private static final int UPLOAD_DEMAND = 4;
+  private static final MediaType NDJSON = MediaType.APPLICATION_NDJSON;
+
+  private final ReactiveFileDataRepository fileRepository;
+  private final ReactiveFileContentStore contentStore;
+  private final ExecutionJobService executionJobService;
+  private final ExecutionProperties executionProperties;
+  private final FileUpdateService fileUpdateService;
+  private final CollabSessionManager collabSessionManager;
+  private final ApplicationEventPublisher eventPublisher;
+
+  public FileHandler(ReactiveFileDataRepository fileRepository, ReactiveFileContentStore contentStore,
+                     ExecutionJobService executionJobService, ExecutionProperties executionProperties,
+                     FileUpdateService fileUpdateService, CollabSessionManager collabSessionManager,
+                     ApplicationEventPublisher eventPublisher) {
+    this.fileRepository = fileRepository;
+    this.contentStore = contentStore;
+    this.executionJobService = executionJobService;
+    this.executionProperties = executionProperties;
+    this.fileUpdateService = fileUpdateService;
+    this.collabSessionManager = collabSessionManager;
+    this.eventPublisher = eventPublisher;
+  }
+
+  public Mono<ServerResponse> getFileById(ServerRequest request) {
+    String fileId = request.pathVariable("fileId");
+    if (!ObjectId.isValid(fileId)) {
+      return Responses.error(400, "Invalid file ID format");
+    }
+    String ifNoneMatch = request.headers().firstHeader(HttpHeaders.IF_NONE_MATCH);
+    return fileRepository.findMetadataById(new ObjectId(fileId))
+            .flatMap(metadata -> {
+              String etag = ETags.file(metadata);
+              if (ETags.matches(ifNoneMatch, etag)) {
+                return ServerResponse.status(304).eTag(etag).build();
+              }
+              return fileRepository.findById(fileId).flatMap(file -> etag == null
+                      ? ServerResponse.ok().bodyValue(file)
+                      : ServerResponse.ok().eTag(etag).bodyValue(file));
+            })
+            .switchIfEmpty(Responses.error(404, "File not found"));
+  }
+
+  public Mono<ServerResponse> updateFile(ServerRequest request) {
+    String fileId = request.pathVariable("fileId");
+    if (collabSessionManager.isActive(fileId)) {
+      return Responses.error(409, "File is open in a collaborative session");
+    }
+    if (!ObjectId.isValid(fileId)) {
+      return Responses.error(400, "Invalid file ID format");
+    }
+    return request.bodyToMono(FileData.class)
+            .flatMap(updated -> Responses.blocking(() -> fileUpdateService.replaceContent(new ObjectId(fileId), updated.getContent())))
+            .flatMap(fileOpt -> fileOpt.isPresent()
+                    ? ServerResponse.ok().bodyValue(fileOpt.get())
+                    : Responses.error(404, "File not found"))
+            .switchIfEmpty(Responses.error(400, "Request body is required"));
+  }
+
+  public Mono<ServerResponse> patchFile(ServerRequest request) {
+    String fileId = request.pathVariable("fileId");
+    if (!ObjectId.isValid(fileId)) {
+      return Responses.error(400, "Invalid file ID format");
+    }
+    return request.bodyToMono(FilePatch.class).flatMap(patch -> {
+      if (patch.getVersion() == null || patch.getOps() == null) {
+        return Responses.error(400, "Both version and ops are required");
+      }
+      if (collabSessionManager.isActive(fileId)) {
+        return Responses.error(409, "File is open in a collaborative session");
+      }
+      return Responses.blocking(() -> fileUpdateService.patch(new ObjectId(fileId), patch.getVersion(), patch.getOps()))
+              .flatMap(fileOpt -> {
+                if (fileOpt.isEmpty()) {
+                  return Responses.error(404, "File not found");
+                }
+                FileData file = fileOpt.get();
+                return ServerResponse.ok().bodyValue(Map.of(
+                        "id", file.getId(),
+                        "version", file.getVersion(),
+                        "lastModified", file.getLastModified()
+                ));
+              })
+              .onErrorResume(VersionConflictException.class, e -> ServerResponse.status(409).bodyValue(Map.of(
+                      "error", "Version conflict",
+                      "currentVersion", e.getCurrentVersion()
+              )))
+              .onErrorResume(IllegalArgumentException.class, e -> ServerResponse.status(422).bodyValue(Map.of(
+                      "error", "Operation does not apply to the current content",
+                      "details", e.getMessage()
+              )));
+    }).switchIfEmpty(Responses.error(400, "Both version and ops are required"));
+  }
+
+  public Mono<ServerResponse> executeFile(ServerRequest request) {
+    String fileId = request.pathVariable("fileId");
+    String priority = request.queryParam("priority").orElse("interactive");
+    ExecutionPriority executionPriority;
+    try {
+      executionPriority = ExecutionPriority.valueOf(priority.toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      return ServerResponse.status(400).bodyValue(Map.of("error", "Unknown priority", "details", priority));
+    }
+    if (!ObjectId.isValid(fileId)) {
+      return Responses.error(400, "Invalid file ID format");
+    }
+    return Responses.currentUserId(request).flatMap(userId -> {
+      String caller = userId.orElseGet(() -> "address:" + request.remoteAddress()
+              .map(address -> address.getAddress() == null ? address.getHostString() : address.getAddress().getHostAddress())
+              .orElse("unknown"));
+      return fileRepository.findById(fileId)
+              .flatMap(file -> Responses.blocking(() -> executionJobService.submit(file, caller, executionPriority)))
+              .flatMap(job -> ServerResponse.status(202).bodyValue(Map.of(
+                      "message", "File execution started",
+                      "jobId", job.getId(),
+                      "state", job.getState(),
+                      "cached", job.isCached()
+              )))
+              .switchIfEmpty(Responses.error(404, "File not found"))
+              .onErrorResume(ExecutorUnavailableException.class, e -> Responses.error(503, "No executor connection available"))
+              .onErrorResume(ExecutionRejectedException.class, e -> ServerResponse.status(429)
+                      .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.retryAfterSeconds()))
+                      .bodyValue(Map.of("error", e.getMessage())));
+    });
+  }
+
+  public Mono<ServerResponse> getExecutionJob(ServerRequest request) {
+    Optional<ExecutionJob> jobOpt = executionJobService.findJob(request.pathVariable("jobId"));
+    if (jobOpt.isPresent()) {
+      return ServerResponse.ok().bodyValue(jobOpt.get());
+    } else {
+      return Responses.error(404, "Job not found");
+    }
+  }
+
+  /**
+   * Streams job status and output as server-sent events. Events wait in a bounded buffer while
+   * the client catches up; a client that falls further behind is dropped, as the servlet stream
+   * drops a client whose socket stops accepting writes.
+   */
+  public Mono<ServerResponse> streamExecutionJob(ServerRequest request) {
+    Optional<ExecutionJob> jobOpt = executionJobService.findJob(request.pathVariable("jobId"));
+    if (jobOpt.isEmpty()) {
+      return Responses.error(404, "Job not found");
+    }
+
+    ExecutionJob job = jobOpt.get();
+    Flux<ServerSentEvent<Object>> events = Flux.<ServerSentEvent<Object>>create(sink -> {
+      ExecutionJob.Subscriber subscriber = new ExecutionJob.Subscriber() {
+        @Override
+        public void send(String event, Object data) throws IOException {
+          if (sink.isCancelled()) {
+            throw new IOException("Client disconnected");
+          }
+          sink.next(ServerSentEvent.builder(data).event(event).build());
+        }
+
+        @Override
+        public void close() {
+          sink.complete();
+        }
+      };
+      sink.onDispose(() -> job.unsubscribe(subscriber));
+      job.subscribe(subscriber);
+    }, FluxSink.OverflowStrategy.BUFFER)
+            .onBackpressureBuffer(MAX_PENDING_EVENTS, BufferOverflowStrategy.ERROR)
+            .take(executionProperties.getStreamTimeout());
+    return ServerResponse.ok().contentType(MediaType.TEXT_EVENT_STREAM).body(events, ServerSentEvent.class);
+  }
+
+  public Mono<ServerResponse> deleteFile(ServerRequest request) {
+    String fileId = request.pathVariable("fileId");
+    if (!ObjectId.isValid(fileId)) {
+      return Responses.error(400, "Invalid file ID format");
+    }
+    return fileRepository.findById(fileId)
+            .flatMap(file -> fileRepository.deleteById(fileId)
+                    .then(Responses.blocking(() -> {
+                      eventPublisher.publishEvent(new FileChangedEvent(
+                              fileId, file.getRepositoryId(), FileChangedEvent.Type.DELETED));
+                      return file;
+                    }))
+                    .then(ServerResponse.ok().bodyValue(Map.of("message", "File deleted successfully"))))
+            .switchIfEmpty(Responses.error(404, "File not found"));
+  }
+
+  /**
+   * Streams the repository's files as they arrive from Mongo, one per element under
+   * {@code application/x-ndjson} or as the usual JSON array otherwise. Either way only as many
+   * files are fetched as the client has taken.
+   */
+  public Mono<ServerResponse> getFilesByRepository(ServerRequest request) {
+    String repoId = request.pathVariable("repoId");
+    if (!ObjectId.isValid(repoId)) {
+      return Responses.error(400, "Invalid repository ID format");
+    }
+    Flux<FileData> files = fileRepository.findByRepositoryId(repoId);
+    MediaType contentType = request.headers().accept().contains(NDJSON) ? NDJSON : MediaType.APPLICATION_JSON;
+    return ServerResponse.ok().contentType(contentType).body(files, FileData.class);
+  }
+
+  public Mono<ServerResponse> getFileTree(ServerRequest request) {
+    String repoId = request.pathVariable("repoId");
+    Optional<String> cursor = request.queryParam("cursor");
+    if (!ObjectId.isValid(repoId)) {
+      return Responses.error(400, "Invalid repository ID format");
+    }
+    if (cursor.isPresent() && !ObjectId.isValid(cursor.get())) {
+      return Responses.error(400, "Invalid cursor");
+    }
+    int limit;
+    try {
+      limit = Integer.parseInt(request.queryParam("limit").orElse("100"));
+    } catch (NumberFormatException e) {
+      return Responses.error(400, "Invalid limit");
+    }
+
+    int pageSize = Math.max(1, Math.min(limit, MAX_TREE_PAGE_SIZE));
+    return fileRepository.findSummariesByRepositoryId(new ObjectId(repoId), cursor.map(ObjectId::new).orElse(null), pageSize)
+            .collectList()
+            .flatMap(files -> {
+              Map<String, Object> response = new HashMap<>();
+              response.put("files", files);
+              response.put("nextCursor", files.size() == pageSize ? files.get(files.size() - 1).getId() : null);
+              return ServerResponse.ok().bodyValue(response);
+            });
+  }
+
+  // Chunks are read from Mongo only as fast as the client consumes them.
+  public Mono<ServerResponse> getFileContent(ServerRequest request) {
+    String fileId = request.pathVariable("fileId");
+    if (!ObjectId.isValid(fileId)) {
+      return ServerResponse.status(400).contentType(MediaType.TEXT_PLAIN).bodyValue("Invalid file ID format");
+    }
+    String ifNoneMatch = request.headers().firstHeader(HttpHeaders.IF_NONE_MATCH);
+    return fileRepository.findMetadataById(new ObjectId(fileId))
+            .flatMap(metadata -> {
+              String etag = ETags.content(metadata);
+              if (ETags.matches(ifNoneMatch, etag)) {
+                return ServerResponse.status(304).eTag(etag).build();
+              }
+              ServerResponse.BodyBuilder ok = ServerResponse.ok()
+                      .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8));
+              if (etag != null) {
+                ok.eTag(etag);
+              }
+              return contentStore.openContent(new ObjectId(fileId)).flatMap(content -> ok.body(content, DataBuffer.class));
+            })
+            .switchIfEmpty(ServerResponse.status(404).contentType(MediaType.TEXT_PLAIN).bodyValue("File not found"));
+  }
+
+  public Mono<ServerResponse> uploadFileContent(ServerRequest request) {
+    String fileId = request.pathVariable("fileId");
+    if (!ObjectId.isValid(fileId)) {
+      return Responses.error(400, "Invalid file ID format");
+    }
+    if (collabSessionManager.isActive(fileId)) {
+      return Responses.error(409, "File is open in a collaborative session");
+    }
+    // The store reads its input a chunk at a time, which in turn requests the body a few buffers at a time.
+    return Responses.blocking(() -> {
+      try (InputStream content = DataBufferUtils.subscriberInputStream(request.bodyToFlux(DataBuffer.class), UPLOAD_DEMAND)) {
+        return fileUpdateService.replaceContent(new ObjectId(fileId), content);
+      }
+    }).flatMap(fileOpt -> {
+      if (fileOpt.isEmpty()) {
+        return Responses.error(404, "File not found");
+      }
+      FileData file = fileOpt.get();
+      return ServerResponse.ok().bodyValue(Map.of(
+              "id", file.getId(),
+              "version", file.getVersion(),
+              "size", file.getSize(),
+              "lastModified", file.getLastModified()
+      ));
+    });
+  }
+
+  public Mono<ServerResponse> createFile(ServerRequest request) {
+    return request.bodyToMono(FileData.class).flatMap(fileData -> {
+      if (fileData.getRepositoryId() == null || !ObjectId.isValid(fileData.getRepositoryId())) {
+        return ServerResponse.status(400).bodyValue(Map.of(
+                "error", "Invalid repository ID format",
+                "details", String.valueOf(fileData.getRepositoryId())
+        ));
+      }
+      fileData.setLastModified(new Date());
+      fileData.setVersion(0);
+      return fileRepository.save(fileData)
+              .flatMap(saved -> Responses.blocking(() -> {
+                eventPublisher.publishEvent(new FileChangedEvent(
+                        saved.getId(), saved.getRepositoryId(), FileChangedEvent.Type.CREATED));
+                return saved;
+              }))
+              .flatMap(saved -> ServerResponse.ok().bodyValue(saved))
+              .onErrorResume(e -> ServerResponse.status(500).bodyValue(Map.of(
+                      "error", "Failed to create file",
+                      "details", String.valueOf(e.getMessage())
+              )));
+    });
+  }
+}
@@ -0,0 +1,82 @@
+package org.tilakpatellshreyaan.devspacebackend.reactive;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.reactive.CorsWebFilter;
+import org.springframework.web.cors.reactive.UrlBasedCorsConfigurationSource;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import java.util.List;
+
+import static org.springframework.web.reactive.function.server.RouterFunctions.route;
+
+/**
+ * Routes for the reactive profile ({@code spring.profiles.active=reactive}). The paths are the
+ * ones the servlet controllers map; collaborative editing over WebSocket is servlet only.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveRoutes {
+  @Bean
+  public RouterFunction<ServerResponse> fileRoutes(FileHandler files) {
+    return route()
+            .path("/api/files", builder -> builder
+                    .GET("/jobs/{jobId}/stream", files::streamExecutionJob)
+                    .GET("/jobs/{jobId}", files::getExecutionJob)
+                    .GET("/repositories/{repoId}/files", files::getFilesByRepository)
+                    .GET("/repositories/{repoId}/tree", files::getFileTree)
+                    .GET("/{fileId}/content", files::getFileContent)
+                    .PUT("/{fileId}/content", files::uploadFileContent)
+                    .POST("/{fileId}/execute", files::executeFile)
+                    .GET("/{fileId}", files::getFileById)
+                    .PUT("/{fileId}", files::updateFile)
+                    .PATCH("/{fileId}", files::patchFile)
+                    .DELETE("/{fileId}", files::deleteFile)
+                    .POST("", files::createFile))
+            .build();
+  }
+
+  @Bean
+  public RouterFunction<ServerResponse> repositoryRoutes(CodeRepositoryHandler repositories) {
+    return route()
+            .path("/api/repositories", builder -> builder
+                    .GET("/accessible", repositories::getAccessibleRepositories)
+                    .GET("/user/{userId}", repositories::getUserRepositories)
+                    .POST("/{repoId}/import", repositories::importArchive)
+                    .GET("/{repoId}/export", repositories::exportArchive)
+                    .POST("/{repoId}/execute", repositories::executeRepository)
+                    .GET("/{repoId}/search", repositories::searchRepository)
+                    .GET("/{repoId}/changes", repositories::streamRepositoryChanges)
+                    .GET("/{repoId}/collaborators", repositories::getRepositoryCollaborators)
+                    .GET("/{repoId}", repositories::getRepositoryById)
+                    .PUT("/{repoId}", repositories::updateRepository)
+                    .DELETE("/{repoId}", repositories::deleteRepository)
+                    .POST("", repositories::createRepository))
+            .build();
+  }
+
+  @Bean
+  public RouterFunction<ServerResponse> sessionRoutes(SessionHandler sessions) {
+    return route()
+            .path("/api/auth", builder -> builder
+                    .POST("/signin", sessions::signIn)
+                    .POST("/signout", sessions::signOut)
+                    .GET("/check-session", sessions::checkSession))
+            .build();
+  }
+
+  @Bean
+  public CorsWebFilter corsWebFilter() {
+    CorsConfiguration config = new CorsConfiguration();
+    config.setAllowedOrigins(List.of("http://localhost:5173")); // Allow frontend
+    config.setAllowedMethods(List.of("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
+    config.setAllowedHeaders(List.of("*"));
+    config.setAllowCredentials(true);
+    UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
+    source.registerCorsConfiguration("/api/**", config);
+    return new CorsWebFilter(source);
+  }
+}
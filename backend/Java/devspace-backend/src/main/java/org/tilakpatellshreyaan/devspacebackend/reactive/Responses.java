@@ -0,0 +1,34 @@
+package org.tilakpatellshreyaan.devspacebackend.reactive;
+
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Map;
+import java.util.Optional;
+
+// Helpers shared by the handlers, matching the response bodies of the servlet controllers.
+final class Responses {
+  @FunctionalInterface
+  interface BlockingCall<T> {
+    T call() throws Exception;
+  }
+
+  private Responses() {
+  }
+
+  static Mono<ServerResponse> error(int status, String message) {
+    return ServerResponse.status(status).bodyValue(Map.of("error", message));
+  }
+
+  // Runs a call to the blocking services on the bounded elastic scheduler, off the event loop.
+  static <T> Mono<T> blocking(BlockingCall<T> call) {
+    return Mono.fromCallable(call::call).subscribeOn(Schedulers.boundedElastic());
+  }
+
+  // Set by ReactiveAuthenticationFilter from the session or the signed token.
+  static Mono<Optional<String>> currentUserId(ServerRequest request) {
+    return Mono.just(request.attribute("userId").map(String.class::cast));
+  }
+}
@@ -0,0 +1,90 @@
+package org.tilakpatellshreyaan.devspacebackend.reactive;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.tilakpatellshreyaan.devspacebackend.auth.SessionTokens;
+import org.tilakpatellshreyaan.devspacebackend.repository.UserRepository;
+import org.tilakpatellshreyaan.devspacebackend.service.UserProfileService;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Sign in, sign out and session checks for the reactive profile, so the repository endpoints see
+ * the same {@code userId} as under the servlet stack, from the session or from a signed token. The
+ * rest of {@code /api/auth} is only served by {@code UserController}.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class SessionHandler {
+  private static final ParameterizedTypeReference<Map<String, String>> CREDENTIALS = new ParameterizedTypeReference<>() {
+  };
+
+  private final UserRepository userRepository;
+  private final UserProfileService userProfileService;
+  private final SessionTokens sessionTokens;
+
+  public SessionHandler(UserRepository userRepository, UserProfileService userProfileService,
+                        SessionTokens sessionTokens) {
+    this.userRepository = userRepository;
+    this.userProfileService = userProfileService;
+    this.sessionTokens = sessionTokens;
+  }
+
+  public Mono<ServerResponse> signIn(ServerRequest request) {
+    return request.bodyToMono(CREDENTIALS)
+            .flatMap(credentials -> Responses.blocking(() -> userRepository.findByUsername(credentials.get("username"))))
+            .flatMap(userOpt -> {
+              if (userOpt.isEmpty()) {
+                return Responses.error(401, "Invalid credentials");
+              }
+              Map<String, Object> response = new HashMap<>();
+              response.put("message", "Sign in successful");
+              response.put("user", userOpt.get());
+              if (sessionTokens.isTokenMode()) {
+                String token = sessionTokens.issue(userOpt.get().getId());
+                response.put("token", token);
+                return ServerResponse.ok()
+                        .header(HttpHeaders.SET_COOKIE, sessionTokens.cookie(token).toString())
+                        .bodyValue(response);
+              }
+              return request.session().flatMap(session -> {
+                session.getAttributes().put("userId", userOpt.get().getId());
+                return ServerResponse.ok().bodyValue(response);
+              });
+            });
+  }
+
+  public Mono<ServerResponse> signOut(ServerRequest request) {
+    if (sessionTokens.isTokenMode()) {
+      return ServerResponse.ok()
+              .header(HttpHeaders.SET_COOKIE, sessionTokens.expiredCookie().toString())
+              .bodyValue(Map.of("message", "Signed out successfully"));
+    }
+    return request.session()
+            .flatMap(session -> session.invalidate())
+            .then(ServerResponse.ok().bodyValue(Map.of("message", "Signed out successfully")));
+  }
+
+  public Mono<ServerResponse> checkSession(ServerRequest request) {
+    return Responses.currentUserId(request).flatMap(userId -> {
+      if (userId.isEmpty()) {
+        return ServerResponse.status(401).bodyValue(Map.of("message", "No active session"));
+      }
+      return Responses.blocking(() -> userProfileService.findUser(userId.get())).flatMap(userOpt -> {
+        if (userOpt.isEmpty()) {
+          return ServerResponse.status(404).bodyValue(Map.of("message", "User not found"));
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("session", "active");
+        response.put("user", userOpt.get());
+        return ServerResponse.ok().bodyValue(response);
+      });
+    });
+  }
+}
@@ -1,7 +1,5 @@
 package org.tilakpatellshreyaan.devspacebackend.repository;
 
-import org.bson.types.ObjectId;
-import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 import org.tilakpatellshreyaan.devspacebackend.model.CodeRepository;
 import org.springframework.data.mongodb.repository.MongoRepository;
@@ -10,6 +8,5 @@ import java.util.List;
 @Repository
 public interface CodeRepositoryRepository extends MongoRepository<CodeRepository, String> {
   List<CodeRepository> findByOwnerId(String ownerId);
-  @Query("{ $or: [ { 'ownerId': ?0 }, { 'collaboratorIds': ?1 } ] }")
-  List<CodeRepository> findByOwnerIdOrCollaboratorIdsContaining(ObjectId ownerId, ObjectId collaboratorId);
+  List<CodeRepository> findByOwnerIdOrCollaboratorIdsContaining(String ownerId, String collaboratorId);
 }
\ No newline at end of file
@@ -0,0 +1,193 @@
+package org.tilakpatellshreyaan.devspacebackend.repository;
+
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import org.tilakpatellshreyaan.devspacebackend.model.ContentChunk;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stores file content in the {@code file_chunks} collection as fixed-size chunks keyed by the
+ * SHA-256 of their bytes. Identical chunks are written once no matter how many files contain
+ * them, and content is read and written as streams, one chunk in memory at a time.
+ */
+@Component
+public class FileContentStore {
+  // Same default as GridFS: comfortably below the 16MB document limit, few round trips.
+  static final int CHUNK_SIZE = 255 * 1024;
+  private static final int CHUNKS_PER_BULK_WRITE = 8;
+
+  public record StoredContent(List<String> chunkIds, String contentHash, long size) {
+  }
+
+  private final MongoTemplate mongoTemplate;
+
+  public FileContentStore(MongoTemplate mongoTemplate) {
+    this.mongoTemplate = mongoTemplate;
+  }
+
+  public StoredContent write(String content) {
+    try {
+      return write(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Reads {@code in} to the end, storing every chunk not already present.
+   */
+  public StoredContent write(InputStream in) throws IOException {
+    MessageDigest contentDigest = sha256();
+    List<String> chunkIds = new ArrayList<>();
+    BulkOperations pending = null;
+    int pendingCount = 0;
+    long size = 0;
+
+    byte[] buffer = new byte[CHUNK_SIZE];
+    int filled;
+    while ((filled = in.readNBytes(buffer, 0, CHUNK_SIZE)) > 0) {
+      byte[] data = filled == CHUNK_SIZE ? buffer.clone() : Arrays.copyOf(buffer, filled);
+      contentDigest.update(data);
+      String chunkId = HexFormat.of().formatHex(sha256().digest(data));
+      chunkIds.add(chunkId);
+      size += filled;
+
+      if (pending == null) {
+        pending = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ContentChunk.class);
+      }
+      // Upserting with $setOnInsert leaves the data of a chunk that already exists alone.
+      Date now = new Date();
+      pending.upsert(new Query(Criteria.where("_id").is(chunkId)), new Update()
+              .setOnInsert("data", data)
+              .setOnInsert("size", filled)
+              .setOnInsert("createdAt", now)
+              .set("touchedAt", now));
+      if (++pendingCount == CHUNKS_PER_BULK_WRITE) {
+        pending.execute();
+        pending = null;
+        pendingCount = 0;
+      }
+    }
+    if (pending != null) {
+      pending.execute();
+    }
+    return new StoredContent(chunkIds, HexFormat.of().formatHex(contentDigest.digest()), size);
+  }
+
+  /**
+   * Streams the content made of {@code chunkIds}, fetching each chunk only when the reader gets
+   * to it.
+   */
+  public InputStream openStream(List<String> chunkIds) {
+    Iterator<String> remaining = chunkIds.iterator();
+    return new InputStream() {
+      private InputStream current = InputStream.nullInputStream();
+
+      @Override
+      public int read() throws IOException {
+        byte[] single = new byte[1];
+        return read(single, 0, 1) == -1 ? -1 : single[0] & 0xff;
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+          return 0;
+        }
+        while (true) {
+          int n = current.read(b, off, len);
+          if (n != -1) {
+            return n;
+          }
+          if (!remaining.hasNext()) {
+            return -1;
+          }
+          current = new ByteArrayInputStream(load(remaining.next()));
+        }
+      }
+    };
+  }
+
+  public String readString(List<String> chunkIds) {
+    if (chunkIds.size() == 1) {
+      return new String(load(chunkIds.get(0)), StandardCharsets.UTF_8);
+    }
+    try (InputStream in = openStream(chunkIds)) {
+      return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Fetches every chunk in {@code chunkIds} with a single query, keyed by chunk id, for callers
+   * that assemble several files at once with {@link #readString(List, Map)}.
+   */
+  public Map<String, byte[]> loadAll(Collection<String> chunkIds) {
+    Map<String, byte[]> loaded = new HashMap<>();
+    mongoTemplate.find(new Query(Criteria.where("_id").in(chunkIds)), ContentChunk.class)
+            .forEach(chunk -> loaded.put(chunk.getId(), chunk.getData()));
+    return loaded;
+  }
+
+  public static String readString(List<String> chunkIds, Map<String, byte[]> loaded) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    for (String chunkId : chunkIds) {
+      byte[] data = loaded.get(chunkId);
+      if (data == null) {
+        throw new UncheckedIOException(new IOException("Missing content chunk " + chunkId));
+      }
+      out.writeBytes(data);
+    }
+    return out.toString(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * The update that points a {@code files} document at {@code stored} and drops any inline
+   * content left from before chunked storage.
+   */
+  public static Update contentUpdate(StoredContent stored) {
+    return new Update()
+            .set("chunkIds", stored.chunkIds())
+            .set("contentHash", stored.contentHash())
+            .set("size", stored.size())
+            .unset("content");
+  }
+
+  private byte[] load(String chunkId) {
+    ContentChunk chunk = mongoTemplate.findById(chunkId, ContentChunk.class);
+    if (chunk == null) {
+      throw new UncheckedIOException(new IOException("Missing content chunk " + chunkId));
+    }
+    return chunk.getData();
+  }
+
+  private static MessageDigest sha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,44 @@
+package org.tilakpatellshreyaan.devspacebackend.repository;
+
+import org.bson.Document;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.mongodb.core.mapping.event.AfterConvertCallback;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertCallback;
+import org.springframework.stereotype.Component;
+import org.tilakpatellshreyaan.devspacebackend.model.FileData;
+
+/**
+ * Moves {@link FileData#getContent() content} in and out of the {@link FileContentStore} so the
+ * rest of the code can keep treating it as a plain field. Files saved before chunked storage still
+ * have their content inline; it is read from there until the next write moves it.
+ */
+@Component
+class FileDataCallbacks implements BeforeConvertCallback<FileData>, AfterConvertCallback<FileData> {
+  private final FileContentStore contentStore;
+
+  // Lazy because the store needs the MongoTemplate, which looks up these callbacks when it is created.
+  FileDataCallbacks(@Lazy FileContentStore contentStore) {
+    this.contentStore = contentStore;
+  }
+
+  @Override
+  public FileData onBeforeConvert(FileData file, String collection) {
+    if (file.getContent() != null) {
+      FileContentStore.StoredContent stored = contentStore.write(file.getContent());
+      file.setChunkIds(stored.chunkIds());
+      file.setContentHash(stored.contentHash());
+      file.setSize(stored.size());
+    }
+    return file;
+  }
+
+  @Override
+  public FileData onAfterConvert(FileData file, Document document, String collection) {
+    if (file.getChunkIds() != null) {
+      file.setContent(contentStore.readString(file.getChunkIds()));
+    } else if (document.get("content") instanceof String legacy) {
+      file.setContent(legacy);
+    }
+    return file;
+  }
+}
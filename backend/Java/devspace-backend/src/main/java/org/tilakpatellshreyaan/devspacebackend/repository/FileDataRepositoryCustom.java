@@ -0,0 +1,33 @@
+package org.tilakpatellshreyaan.devspacebackend.repository;
+
+import org.bson.types.ObjectId;
+import org.tilakpatellshreyaan.devspacebackend.model.FileData;
+import org.tilakpatellshreyaan.devspacebackend.model.FileSummary;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.Optional;
+
+public interface FileDataRepositoryCustom {
+  /**
+   * Every file of a repository in id order, with its content. The chunks of all the files are
+   * fetched with one query rather than one per file.
+   */
+  List<FileData> findByRepositoryId(String repoId);
+
+  /**
+   * Returns up to {@code limit} file summaries of a repository in id order, starting after
+   * {@code after} (or from the beginning when it is {@code null}). Content is never loaded.
+   */
+  List<FileSummary> findSummariesByRepositoryId(ObjectId repoId, ObjectId after, int limit);
+
+  /**
+   * The file without its content, for checking versions and sizes before loading it.
+   */
+  Optional<FileData> findMetadataById(ObjectId fileId);
+
+  /**
+   * Opens the content of a file as a UTF-8 stream that reads one stored chunk at a time.
+   */
+  Optional<InputStream> openContent(ObjectId fileId);
+}
@@ -0,0 +1,132 @@
+package org.tilakpatellshreyaan.devspacebackend.repository;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.aggregation.StringOperators;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.tilakpatellshreyaan.devspacebackend.model.FileData;
+import org.tilakpatellshreyaan.devspacebackend.model.FileSummary;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+class FileDataRepositoryImpl implements FileDataRepositoryCustom {
+  private final MongoTemplate mongoTemplate;
+  private final FileContentStore contentStore;
+
+  FileDataRepositoryImpl(MongoTemplate mongoTemplate, FileContentStore contentStore) {
+    this.mongoTemplate = mongoTemplate;
+    this.contentStore = contentStore;
+  }
+
+  @Override
+  public List<FileData> findByRepositoryId(String repoId) {
+    if (!ObjectId.isValid(repoId)) {
+      return List.of();
+    }
+    // Read raw so the entity callbacks do not fetch each file's chunks with a query of its own.
+    List<Document> documents = mongoTemplate.find(byRepository(repoId), Document.class,
+            mongoTemplate.getCollectionName(FileData.class));
+    Set<String> chunkIds = chunkIds(documents);
+    Map<String, byte[]> chunks = chunkIds.isEmpty() ? Map.of() : contentStore.loadAll(chunkIds);
+    return withContent(mongoTemplate.getConverter(), documents, chunks);
+  }
+
+  // Shared with the reactive repository, like the summaries below.
+  static Query byRepository(String repoId) {
+    return new Query(Criteria.where("repositoryId").is(new ObjectId(repoId))).with(Sort.by("_id"));
+  }
+
+  static Set<String> chunkIds(List<Document> documents) {
+    Set<String> chunkIds = new LinkedHashSet<>();
+    for (Document document : documents) {
+      List<String> ids = document.getList("chunkIds", String.class);
+      if (ids != null) {
+        chunkIds.addAll(ids);
+      }
+    }
+    return chunkIds;
+  }
+
+  // The same result the entity callbacks give one file at a time, from chunks loaded up front.
+  static List<FileData> withContent(MongoConverter converter, List<Document> documents, Map<String, byte[]> chunks) {
+    List<FileData> files = new ArrayList<>(documents.size());
+    for (Document document : documents) {
+      FileData file = converter.read(FileData.class, document);
+      if (file.getChunkIds() != null) {
+        file.setContent(FileContentStore.readString(file.getChunkIds(), chunks));
+      } else if (document.get("content") instanceof String legacy) {
+        file.setContent(legacy);
+      }
+      files.add(file);
+    }
+    return files;
+  }
+
+  @Override
+  public List<FileSummary> findSummariesByRepositoryId(ObjectId repoId, ObjectId after, int limit) {
+    return mongoTemplate.aggregate(summaries(repoId, after, limit), FileData.class, FileSummary.class).getMappedResults();
+  }
+
+  // Shared with the reactive repository so both stacks page through the same index.
+  static Aggregation summaries(ObjectId repoId, ObjectId after, int limit) {
+    Criteria criteria = Criteria.where("repositoryId").is(repoId);
+    if (after != null) {
+      criteria = criteria.and("_id").gt(after);
+    }
+    // Files not yet moved to chunked storage get their size computed inside Mongo, so their
+    // inline content never leaves the server either.
+    return Aggregation.newAggregation(
+            Aggregation.match(criteria),
+            Aggregation.sort(Sort.Direction.ASC, "_id"),
+            Aggregation.limit(limit),
+            Aggregation.project("filename", "language", "lastModified")
+                    .and(ConditionalOperators.ifNull("size").thenValueOf(
+                            StringOperators.valueOf(ConditionalOperators.ifNull("content").then("")).length()))
+                    .as("size")
+    );
+  }
+
+  @Override
+  public Optional<FileData> findMetadataById(ObjectId fileId) {
+    return Optional.ofNullable(mongoTemplate.findOne(metadata(fileId), FileData.class));
+  }
+
+  // Without chunkIds the entity callbacks have no content to load.
+  static Query metadata(ObjectId fileId) {
+    Query query = new Query(Criteria.where("_id").is(fileId));
+    query.fields().exclude("content").exclude("chunkIds");
+    return query;
+  }
+
+  @Override
+  public Optional<InputStream> openContent(ObjectId fileId) {
+    Query query = new Query(Criteria.where("_id").is(fileId));
+    query.fields().include("chunkIds").include("content");
+    // Read as a raw document so the entity callbacks do not load the whole content up front.
+    Document file = mongoTemplate.findOne(query, Document.class, mongoTemplate.getCollectionName(FileData.class));
+    if (file == null) {
+      return Optional.empty();
+    }
+    List<String> chunkIds = file.getList("chunkIds", String.class);
+    if (chunkIds != null) {
+      return Optional.of(contentStore.openStream(chunkIds));
+    }
+    String legacy = file.getString("content");
+    return Optional.of(new ByteArrayInputStream(
+            (legacy == null ? "" : legacy).getBytes(StandardCharsets.UTF_8)));
+  }
+}
@@ -0,0 +1,12 @@
+package org.tilakpatellshreyaan.devspacebackend.repository;
+
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.tilakpatellshreyaan.devspacebackend.model.CodeRepository;
+import reactor.core.publisher.Flux;
+
+// Reactive counterpart of CodeRepositoryRepository, only created with the reactive profile
+public interface ReactiveCodeRepositoryRepository extends ReactiveMongoRepository<CodeRepository, String> {
+  Flux<CodeRepository> findByOwnerId(String ownerId);
+
+  Flux<CodeRepository> findByOwnerIdOrCollaboratorIdsContaining(String ownerId, String collaboratorId);
+}
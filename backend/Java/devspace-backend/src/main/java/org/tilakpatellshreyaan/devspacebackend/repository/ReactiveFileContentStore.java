@@ -0,0 +1,80 @@
+package org.tilakpatellshreyaan.devspacebackend.repository;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import org.tilakpatellshreyaan.devspacebackend.model.ContentChunk;
+import org.tilakpatellshreyaan.devspacebackend.model.FileData;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Non-blocking reads from the chunks written by {@link FileContentStore}. A chunk is only fetched
+ * once the subscriber asks for more data, so a slow client holds at most one chunk in memory.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveFileContentStore {
+  private final ReactiveMongoTemplate mongoTemplate;
+
+  public ReactiveFileContentStore(ReactiveMongoTemplate mongoTemplate) {
+    this.mongoTemplate = mongoTemplate;
+  }
+
+  public Flux<DataBuffer> openStream(List<String> chunkIds) {
+    return Flux.fromIterable(chunkIds)
+            .concatMap(chunkId -> mongoTemplate.findById(chunkId, ContentChunk.class)
+                    .switchIfEmpty(Mono.error(() -> new IOException("Missing content chunk " + chunkId)))
+                    .map(chunk -> (DataBuffer) DefaultDataBufferFactory.sharedInstance.wrap(chunk.getData())), 1);
+  }
+
+  public Mono<String> readString(List<String> chunkIds) {
+    return DataBufferUtils.join(openStream(chunkIds))
+            .map(buffer -> {
+              String content = buffer.toString(StandardCharsets.UTF_8);
+              DataBufferUtils.release(buffer);
+              return content;
+            })
+            .defaultIfEmpty("");
+  }
+
+  /**
+   * Fetches every chunk in {@code chunkIds} with a single query, keyed by chunk id; see
+   * {@link FileContentStore#loadAll}.
+   */
+  public Mono<Map<String, byte[]>> loadAll(Collection<String> chunkIds) {
+    return mongoTemplate.find(new Query(Criteria.where("_id").in(chunkIds)), ContentChunk.class)
+            .collectMap(ContentChunk::getId, ContentChunk::getData);
+  }
+
+  /**
+   * The content of a file as a stream, or an empty result when the file does not exist.
+   */
+  public Mono<Flux<DataBuffer>> openContent(ObjectId fileId) {
+    Query query = new Query(Criteria.where("_id").is(fileId));
+    query.fields().include("chunkIds").include("content");
+    return mongoTemplate.findOne(query, Document.class, mongoTemplate.getCollectionName(FileData.class))
+            .map(file -> {
+              List<String> chunkIds = file.getList("chunkIds", String.class);
+              if (chunkIds != null) {
+                return openStream(chunkIds);
+              }
+              String legacy = file.getString("content");
+              return Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(
+                      (legacy == null ? "" : legacy).getBytes(StandardCharsets.UTF_8)));
+            });
+  }
+}
@@ -0,0 +1,58 @@
+package org.tilakpatellshreyaan.devspacebackend.repository;
+
+import org.bson.Document;
+import org.reactivestreams.Publisher;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.mongodb.core.mapping.event.ReactiveAfterConvertCallback;
+import org.springframework.data.mongodb.core.mapping.event.ReactiveBeforeConvertCallback;
+import org.springframework.stereotype.Component;
+import org.tilakpatellshreyaan.devspacebackend.model.FileData;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * The reactive template's version of {@link FileDataCallbacks}. Reads go through the reactive
+ * store; writes reuse the blocking store on the bounded elastic scheduler, since they are short
+ * and already batched.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+class ReactiveFileDataCallbacks implements ReactiveBeforeConvertCallback<FileData>, ReactiveAfterConvertCallback<FileData> {
+  private final FileContentStore contentStore;
+  private final ReactiveFileContentStore reactiveContentStore;
+
+  // Lazy for the same reason as in FileDataCallbacks: the stores need the templates that look these up.
+  ReactiveFileDataCallbacks(@Lazy FileContentStore contentStore, @Lazy ReactiveFileContentStore reactiveContentStore) {
+    this.contentStore = contentStore;
+    this.reactiveContentStore = reactiveContentStore;
+  }
+
+  @Override
+  public Publisher<FileData> onBeforeConvert(FileData file, String collection) {
+    if (file.getContent() == null) {
+      return Mono.just(file);
+    }
+    return Mono.fromCallable(() -> {
+      FileContentStore.StoredContent stored = contentStore.write(file.getContent());
+      file.setChunkIds(stored.chunkIds());
+      file.setContentHash(stored.contentHash());
+      file.setSize(stored.size());
+      return file;
+    }).subscribeOn(Schedulers.boundedElastic());
+  }
+
+  @Override
+  public Publisher<FileData> onAfterConvert(FileData file, Document document, String collection) {
+    if (file.getChunkIds() != null) {
+      return reactiveContentStore.readString(file.getChunkIds()).map(content -> {
+        file.setContent(content);
+        return file;
+      });
+    }
+    if (document.get("content") instanceof String legacy) {
+      file.setContent(legacy);
+    }
+    return Mono.just(file);
+  }
+}
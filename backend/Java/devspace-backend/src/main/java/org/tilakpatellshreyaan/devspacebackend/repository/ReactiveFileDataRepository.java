@@ -0,0 +1,9 @@
+package org.tilakpatellshreyaan.devspacebackend.repository;
+
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.tilakpatellshreyaan.devspacebackend.model.FileData;
+
+// Reactive counterpart of FileDataRepository, only created with the reactive profile
+public interface ReactiveFileDataRepository extends ReactiveMongoRepository<FileData, String>,
+        ReactiveFileDataRepositoryCustom {
+}
@@ -0,0 +1,25 @@
+package org.tilakpatellshreyaan.devspacebackend.repository;
+
+import org.bson.types.ObjectId;
+import org.tilakpatellshreyaan.devspacebackend.model.FileData;
+import org.tilakpatellshreyaan.devspacebackend.model.FileSummary;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveFileDataRepositoryCustom {
+  /**
+   * Same files as {@link FileDataRepositoryCustom#findByRepositoryId}, fetched in batches as the
+   * subscriber asks for them, with one chunk query per batch.
+   */
+  Flux<FileData> findByRepositoryId(String repoId);
+
+  /**
+   * Same page of summaries as {@link FileDataRepositoryCustom#findSummariesByRepositoryId}.
+   */
+  Flux<FileSummary> findSummariesByRepositoryId(ObjectId repoId, ObjectId after, int limit);
+
+  /**
+   * Same as {@link FileDataRepositoryCustom#findMetadataById}.
+   */
+  Mono<FileData> findMetadataById(ObjectId fileId);
+}
@@ -0,0 +1,51 @@
+package org.tilakpatellshreyaan.devspacebackend.repository;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.tilakpatellshreyaan.devspacebackend.model.FileData;
+import org.tilakpatellshreyaan.devspacebackend.model.FileSummary;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.Set;
+
+class ReactiveFileDataRepositoryImpl implements ReactiveFileDataRepositoryCustom {
+  // Files whose content is fetched together; small enough to keep backpressure meaningful
+  private static final int CONTENT_BATCH = 32;
+
+  private final ReactiveMongoTemplate mongoTemplate;
+  private final ReactiveFileContentStore contentStore;
+
+  ReactiveFileDataRepositoryImpl(ReactiveMongoTemplate mongoTemplate, ReactiveFileContentStore contentStore) {
+    this.mongoTemplate = mongoTemplate;
+    this.contentStore = contentStore;
+  }
+
+  @Override
+  public Flux<FileData> findByRepositoryId(String repoId) {
+    if (!ObjectId.isValid(repoId)) {
+      return Flux.empty();
+    }
+    return mongoTemplate.find(FileDataRepositoryImpl.byRepository(repoId), Document.class,
+                    mongoTemplate.getCollectionName(FileData.class))
+            .buffer(CONTENT_BATCH)
+            .concatMap(documents -> {
+              Set<String> chunkIds = FileDataRepositoryImpl.chunkIds(documents);
+              Mono<Map<String, byte[]>> chunks = chunkIds.isEmpty() ? Mono.just(Map.of()) : contentStore.loadAll(chunkIds);
+              return chunks.flatMapIterable(loaded ->
+                      FileDataRepositoryImpl.withContent(mongoTemplate.getConverter(), documents, loaded));
+            }, 1);
+  }
+
+  @Override
+  public Flux<FileSummary> findSummariesByRepositoryId(ObjectId repoId, ObjectId after, int limit) {
+    return mongoTemplate.aggregate(FileDataRepositoryImpl.summaries(repoId, after, limit), FileData.class, FileSummary.class);
+  }
+
+  @Override
+  public Mono<FileData> findMetadataById(ObjectId fileId) {
+    return mongoTemplate.findOne(FileDataRepositoryImpl.metadata(fileId), FileData.class);
+  }
+}
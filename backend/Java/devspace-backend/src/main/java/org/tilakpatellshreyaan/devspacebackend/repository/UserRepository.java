@@ -1,9 +1,17 @@
 package org.tilakpatellshreyaan.devspacebackend.repository;
 
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.tilakpatellshreyaan.devspacebackend.model.User;
 import java.util.Optional;
 
 public interface UserRepository extends MongoRepository<User, String> {
   Optional<User> findByUsername(String username);
+
+  // Each of these loads a single embedded list; every other field of the returned user is null.
+  @Query(value = "{ '_id': ?0 }", fields = "{ 'stats': 1 }")
+  Optional<User> findStatsById(String id);
+
+  @Query(value = "{ '_id': ?0 }", fields = "{ 'projects': 1 }")
+  Optional<User> findProjectsById(String id);
 }
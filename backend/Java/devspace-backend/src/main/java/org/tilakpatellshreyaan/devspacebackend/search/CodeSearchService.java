@@ -0,0 +1,230 @@
+package org.tilakpatellshreyaan.devspacebackend.search;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.tilakpatellshreyaan.devspacebackend.model.FileData;
+import org.tilakpatellshreyaan.devspacebackend.service.FileChangedEvent;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import java.util.stream.Stream;
+
+/**
+ * Code search over one repository at a time. A repository's {@link TrigramIndex} is built from
+ * Mongo the first time it is searched, kept up to date from {@link FileChangedEvent}s while it is
+ * resident, and dropped least recently searched first when the indexes outgrow their budget or
+ * the heap runs short. File changes are applied on one background thread, in order, so saves do
+ * not wait for reindexing.
+ */
+@Slf4j
+@Service
+public class CodeSearchService {
+  private final MongoTemplate mongoTemplate;
+  private final SearchProperties properties;
+  // Access-ordered, so iteration starts at the least recently searched repository
+  private final LinkedHashMap<String, TrigramIndex> indexes = new LinkedHashMap<>(16, 0.75f, true);
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Map<String, CompletableFuture<TrigramIndex>> building = new ConcurrentHashMap<>();
+  // Files changed while their repository's index was being built, applied before it is published
+  private final Map<String, Set<String>> changedWhileBuilding = new ConcurrentHashMap<>();
+  private final ExecutorService indexer = Executors.newSingleThreadExecutor(
+          Thread.ofVirtual().name("search-indexer").factory());
+
+  public CodeSearchService(MongoTemplate mongoTemplate, SearchProperties properties) {
+    this.mongoTemplate = mongoTemplate;
+    this.properties = properties;
+  }
+
+  public boolean isEnabled() {
+    return properties.isEnabled();
+  }
+
+  /**
+   * Files of the repository matching {@code query}, a plain substring unless {@code regex} is set.
+   *
+   * @throws IllegalArgumentException if the query is blank, not a valid regex, matches the empty
+   *                                  string or takes longer than the regex timeout
+   */
+  public List<SearchResult> search(String repositoryId, String query, boolean regex, boolean ignoreCase) {
+    if (query == null || query.isEmpty()) {
+      throw new IllegalArgumentException("Query must not be empty");
+    }
+    Pattern pattern;
+    try {
+      int flags = ignoreCase ? Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE : 0;
+      pattern = Pattern.compile(regex ? query : Pattern.quote(query), flags | Pattern.MULTILINE);
+    } catch (PatternSyntaxException e) {
+      throw new IllegalArgumentException("Invalid regex: " + e.getDescription());
+    }
+    if (pattern.matcher("").find()) {
+      throw new IllegalArgumentException("Query matches the empty string");
+    }
+    List<String> literals = regex ? TrigramIndex.requiredLiterals(pattern) : List.of(query);
+    long deadline = System.nanoTime() + properties.getRegexTimeout().toNanos();
+    return index(repositoryId).search(pattern, literals, properties.getMaxResults(),
+            properties.getMaxLinesPerFile(), deadline);
+  }
+
+  @EventListener
+  public void onFileChanged(FileChangedEvent event) {
+    if (!properties.isEnabled() || event.repositoryId() == null) {
+      return;
+    }
+    indexer.execute(() -> {
+      try {
+        apply(event.repositoryId(), event.fileId());
+      } catch (RuntimeException e) {
+        // The index only lags; it is rebuilt from Mongo after its next eviction.
+        log.warn("Could not reindex file {} of repository {}: {}", event.fileId(), event.repositoryId(),
+                e.getMessage());
+      }
+    });
+  }
+
+  @Scheduled(fixedDelay = 30_000)
+  public void trim() {
+    lock.lock();
+    try {
+      evictLocked();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private TrigramIndex index(String repositoryId) {
+    lock.lock();
+    try {
+      TrigramIndex index = indexes.get(repositoryId);
+      if (index != null) {
+        return index;
+      }
+    } finally {
+      lock.unlock();
+    }
+
+    CompletableFuture<TrigramIndex> mine = new CompletableFuture<>();
+    CompletableFuture<TrigramIndex> existing = building.putIfAbsent(repositoryId, mine);
+    if (existing != null) {
+      return existing.join();
+    }
+    try {
+      TrigramIndex index = build(repositoryId);
+      lock.lock();
+      try {
+        // Changes that raced with the build are re-read under the cache lock, so none slips between.
+        Set<String> changed = changedWhileBuilding.remove(repositoryId);
+        if (changed != null) {
+          changed.forEach(fileId -> refresh(index, repositoryId, fileId));
+        }
+        indexes.put(repositoryId, index);
+        evictLocked();
+      } finally {
+        lock.unlock();
+      }
+      mine.complete(index);
+      return index;
+    } catch (RuntimeException e) {
+      mine.completeExceptionally(e);
+      throw e;
+    } finally {
+      building.remove(repositoryId, mine);
+      changedWhileBuilding.remove(repositoryId);
+    }
+  }
+
+  private TrigramIndex build(String repositoryId) {
+    long started = System.nanoTime();
+    TrigramIndex index = new TrigramIndex();
+    Query query = new Query(Criteria.where("repositoryId").is(new ObjectId(repositoryId)));
+    int indexed = 0;
+    try (Stream<FileData> files = mongoTemplate.stream(query, FileData.class)) {
+      for (FileData file : (Iterable<FileData>) files::iterator) {
+        if (add(index, file)) {
+          indexed++;
+        }
+      }
+    }
+    log.debug("Indexed {} files of repository {} in {} ms", indexed, repositoryId,
+            (System.nanoTime() - started) / 1_000_000);
+    return index;
+  }
+
+  private void apply(String repositoryId, String fileId) {
+    TrigramIndex index;
+    lock.lock();
+    try {
+      // Not get(): a file change is not a search and must not refresh the index's LRU position.
+      index = indexes.entrySet().stream().filter(entry -> entry.getKey().equals(repositoryId))
+              .map(Map.Entry::getValue).findFirst().orElse(null);
+      if (index == null && building.containsKey(repositoryId)) {
+        changedWhileBuilding.computeIfAbsent(repositoryId, id -> ConcurrentHashMap.newKeySet()).add(fileId);
+      }
+    } finally {
+      lock.unlock();
+    }
+    if (index != null) {
+      refresh(index, repositoryId, fileId);
+    }
+  }
+
+  // Re-reads the file, so any event simply brings the index in line with what Mongo holds now.
+  private void refresh(TrigramIndex index, String repositoryId, String fileId) {
+    FileData file = ObjectId.isValid(fileId) ? mongoTemplate.findById(new ObjectId(fileId), FileData.class) : null;
+    if (file == null || !repositoryId.equals(file.getRepositoryId()) || !add(index, file)) {
+      index.remove(fileId);
+    }
+  }
+
+  private boolean add(TrigramIndex index, FileData file) {
+    String content = file.getContent();
+    if (content == null || file.getSize() > properties.getMaxFileSize().toBytes()) {
+      return false;
+    }
+    index.put(file.getId(), file.getFilename(), content);
+    return true;
+  }
+
+  private void evictLocked() {
+    long budget = properties.getMaxIndexBytes().toBytes();
+    long total = indexes.values().stream().mapToLong(TrigramIndex::weight).sum();
+    // Freed heap only shows after a collection, so heap pressure costs one index per pass.
+    boolean evictForHeap = heapTight();
+    Iterator<Map.Entry<String, TrigramIndex>> eldest = indexes.entrySet().iterator();
+    // The most recently searched index always stays, even over budget.
+    while (indexes.size() > 1 && (total > budget || evictForHeap) && eldest.hasNext()) {
+      Map.Entry<String, TrigramIndex> entry = eldest.next();
+      total -= entry.getValue().weight();
+      eldest.remove();
+      evictForHeap = false;
+      log.debug("Evicted search index of repository {}", entry.getKey());
+    }
+  }
+
+  private boolean heapTight() {
+    Runtime runtime = Runtime.getRuntime();
+    long used = runtime.totalMemory() - runtime.freeMemory();
+    return used > properties.getHeapThreshold() * runtime.maxMemory();
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    indexer.shutdownNow();
+  }
+}
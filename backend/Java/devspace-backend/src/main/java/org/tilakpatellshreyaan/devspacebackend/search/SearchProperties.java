@@ -0,0 +1,24 @@
+package org.tilakpatellshreyaan.devspacebackend.search;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "devspace.search")
+public class SearchProperties {
+  private boolean enabled = true;
+  // Heap the resident repository indexes may use together; least recently searched go first
+  private DataSize maxIndexBytes = DataSize.ofMegabytes(256);
+  // Indexes are also dropped, oldest first, while heap use stays above this fraction of the max
+  private double heapThreshold = 0.85;
+  // Larger files are left out of the index and never match
+  private DataSize maxFileSize = DataSize.ofMegabytes(1);
+  // Files returned by one search, and matching lines returned per file
+  private int maxResults = 50;
+  private int maxLinesPerFile = 20;
+  // A regex still running after this long is abandoned, so one bad pattern cannot pin a thread
+  private Duration regexTimeout = Duration.ofSeconds(2);
+}
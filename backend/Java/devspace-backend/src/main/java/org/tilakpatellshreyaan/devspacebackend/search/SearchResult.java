@@ -0,0 +1,13 @@
+package org.tilakpatellshreyaan.devspacebackend.search;
+
+import java.util.List;
+
+/**
+ * The matches in one file, best files first. {@code matches} counts every match in the file even
+ * when only the first few lines are returned.
+ */
+public record SearchResult(String fileId, String filename, int matches, List<Line> lines) {
+  // line and column are 1-based; text is the whole line
+  public record Line(int line, int column, String text) {
+  }
+}
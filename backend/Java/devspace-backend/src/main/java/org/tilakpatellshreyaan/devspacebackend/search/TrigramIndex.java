@@ -0,0 +1,355 @@
+package org.tilakpatellshreyaan.devspacebackend.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Trigram index over the files of one repository. Each file's lower-cased content is split into
+ * overlapping three-character keys; a query intersects the posting sets of the trigrams its
+ * literals must contain and runs the real matcher only on the files left. Searches share the
+ * read lock, incremental updates take the write lock.
+ */
+final class TrigramIndex {
+  // Rough heap cost of one file's entry in one posting set, and of a file's own bookkeeping
+  private static final long POSTING_BYTES = 56;
+  private static final long FILE_BYTES = 128;
+  // Matches counted per file before counting stops; enough to rank by
+  private static final int MAX_COUNTED_MATCHES = 10_000;
+  // An inline flag group such as (?i), (?x) or (?s-m:...)
+  private static final Pattern INLINE_FLAGS = Pattern.compile("\\(\\?[a-zA-Z-]");
+
+  private record IndexedFile(String filename, String content, long[] trigrams) {
+    long weight() {
+      return FILE_BYTES + 2L * content.length() + POSTING_BYTES * trigrams.length;
+    }
+  }
+
+  private final Map<String, IndexedFile> files = new HashMap<>();
+  private final Map<Long, Set<String>> postings = new HashMap<>();
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+  private long weight;
+
+  void put(String fileId, String filename, String content) {
+    IndexedFile file = new IndexedFile(filename, content, trigrams(content));
+    lock.writeLock().lock();
+    try {
+      removeLocked(fileId);
+      files.put(fileId, file);
+      for (long trigram : file.trigrams()) {
+        postings.computeIfAbsent(trigram, t -> new HashSet<>()).add(fileId);
+      }
+      weight += file.weight();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  void remove(String fileId) {
+    lock.writeLock().lock();
+    try {
+      removeLocked(fileId);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  long weight() {
+    lock.readLock().lock();
+    try {
+      return weight;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Files matching {@code pattern}, best first: files whose name contains one of the literals,
+   * then by number of matches. Every file that can match must contain all of {@code literals}
+   * (case-insensitively); an empty list leaves the pattern to check every file.
+   *
+   * @throws IllegalArgumentException if matching runs past {@code deadlineNanos}
+   */
+  List<SearchResult> search(Pattern pattern, List<String> literals, int maxResults, int maxLinesPerFile,
+                            long deadlineNanos) {
+    List<String> lowered = literals.stream().map(literal -> literal.toLowerCase(Locale.ROOT)).toList();
+    List<SearchResult> results = new ArrayList<>();
+    Map<String, Boolean> filenameHits = new HashMap<>();
+    lock.readLock().lock();
+    try {
+      for (String fileId : candidates(lowered)) {
+        IndexedFile file = files.get(fileId);
+        SearchResult result = match(fileId, file, pattern, maxLinesPerFile, deadlineNanos);
+        if (result != null) {
+          results.add(result);
+          String name = file.filename() == null ? "" : file.filename().toLowerCase(Locale.ROOT);
+          filenameHits.put(fileId, lowered.stream().anyMatch(name::contains));
+        }
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+    results.sort(Comparator.<SearchResult, Boolean>comparing(result -> filenameHits.get(result.fileId())).reversed()
+            .thenComparing(Comparator.comparingInt(SearchResult::matches).reversed())
+            .thenComparing(result -> String.valueOf(result.filename())));
+    return results.size() > maxResults ? List.copyOf(results.subList(0, maxResults)) : results;
+  }
+
+  private Set<String> candidates(List<String> literals) {
+    List<Set<String>> required = new ArrayList<>();
+    for (String literal : literals) {
+      for (long trigram : trigrams(literal)) {
+        Set<String> posting = postings.get(trigram);
+        if (posting == null) {
+          return Set.of();
+        }
+        required.add(posting);
+      }
+    }
+    if (required.isEmpty()) {
+      return files.keySet();
+    }
+    required.sort(Comparator.comparingInt(Set::size));
+    Set<String> candidates = new HashSet<>(required.get(0));
+    for (int i = 1; i < required.size() && !candidates.isEmpty(); i++) {
+      candidates.retainAll(required.get(i));
+    }
+    return candidates;
+  }
+
+  private static SearchResult match(String fileId, IndexedFile file, Pattern pattern, int maxLines,
+                                    long deadlineNanos) {
+    String content = file.content();
+    Matcher matcher = pattern.matcher(new DeadlineSequence(content, deadlineNanos));
+    List<SearchResult.Line> lines = new ArrayList<>();
+    int matches = 0;
+    int lineNumber = 1;
+    int lineStart = 0;
+    int lastReportedLine = 0;
+    while (matches < MAX_COUNTED_MATCHES && matcher.find()) {
+      matches++;
+      int start = matcher.start();
+      // Matches come in order, so the line cursor only ever moves forward.
+      int newline;
+      while ((newline = content.indexOf('\n', lineStart)) >= 0 && newline < start) {
+        lineNumber++;
+        lineStart = newline + 1;
+      }
+      if (lines.size() < maxLines && lineNumber != lastReportedLine) {
+        int lineEnd = content.indexOf('\n', lineStart);
+        String text = content.substring(lineStart, lineEnd < 0 ? content.length() : lineEnd);
+        lines.add(new SearchResult.Line(lineNumber, start - lineStart + 1, text));
+        lastReportedLine = lineNumber;
+      }
+    }
+    return matches == 0 ? null : new SearchResult(fileId, file.filename(), matches, lines);
+  }
+
+  private void removeLocked(String fileId) {
+    IndexedFile previous = files.remove(fileId);
+    if (previous == null) {
+      return;
+    }
+    for (long trigram : previous.trigrams()) {
+      Set<String> posting = postings.get(trigram);
+      if (posting != null && posting.remove(fileId) && posting.isEmpty()) {
+        postings.remove(trigram);
+      }
+    }
+    weight -= previous.weight();
+  }
+
+  // Distinct trigrams of the lower-cased text, each packed as three 16-bit chars.
+  static long[] trigrams(String text) {
+    String lower = text.toLowerCase(Locale.ROOT);
+    Set<Long> trigrams = new HashSet<>();
+    for (int i = 0; i + 3 <= lower.length(); i++) {
+      trigrams.add(((long) lower.charAt(i) << 32) | ((long) lower.charAt(i + 1) << 16) | lower.charAt(i + 2));
+    }
+    return trigrams.stream().mapToLong(Long::longValue).toArray();
+  }
+
+  /**
+   * Literal runs that every match of {@code regex} must contain, for narrowing candidates.
+   * Deliberately conservative: anything inside groups or classes, characters made optional by a
+   * quantifier, escapes other than escaped punctuation and every pattern with top-level
+   * alternation contribute nothing, which only costs speed. Patterns in comments mode or with
+   * inline flags, which change how the rest of the pattern reads, contribute nothing at all.
+   */
+  static List<String> requiredLiterals(Pattern pattern) {
+    String regex = pattern.pattern();
+    if ((pattern.flags() & Pattern.COMMENTS) != 0 || regex.contains("\\Q") || INLINE_FLAGS.matcher(regex).find()) {
+      return List.of();
+    }
+    List<String> literals = new ArrayList<>();
+    StringBuilder run = new StringBuilder();
+    for (int i = 0; i < regex.length(); i++) {
+      char c = regex.charAt(i);
+      switch (c) {
+        case '\\' -> {
+          if (i + 1 < regex.length() && !Character.isLetterOrDigit(regex.charAt(i + 1))) {
+            run.append(regex.charAt(++i));
+          } else {
+            // A class, anchor, code point or back reference such as \d, \b, \x41 or \k<name>.
+            flush(run, literals);
+            i = skipEscape(regex, i);
+          }
+        }
+        case '*', '?' -> {
+          dropLast(run);
+          flush(run, literals);
+        }
+        case '{' -> {
+          dropLast(run);
+          flush(run, literals);
+          i = skipPast(regex, i, '}');
+        }
+        case '[' -> {
+          flush(run, literals);
+          i = skipClass(regex, i);
+        }
+        case '(' -> {
+          flush(run, literals);
+          i = skipGroup(regex, i);
+        }
+        case '|' -> {
+          // Groups and classes are skipped whole, so this alternation is top-level.
+          return List.of();
+        }
+        case '+', '.', '^', '$', ')' -> flush(run, literals);
+        default -> run.append(c);
+      }
+    }
+    flush(run, literals);
+    return literals;
+  }
+
+  private static void flush(StringBuilder run, List<String> literals) {
+    if (run.length() >= 3) {
+      literals.add(run.toString());
+    }
+    run.setLength(0);
+  }
+
+  private static void dropLast(StringBuilder run) {
+    if (!run.isEmpty()) {
+      run.setLength(run.length() - 1);
+    }
+  }
+
+  private static int skipPast(String regex, int from, char end) {
+    int index = regex.indexOf(end, from);
+    return index < 0 ? regex.length() : index;
+  }
+
+  // Index of the last character of the alphanumeric escape starting with the backslash at {@code backslash}.
+  private static int skipEscape(String regex, int backslash) {
+    int i = backslash + 1;
+    if (i >= regex.length()) {
+      return i;
+    }
+    char kind = regex.charAt(i);
+    boolean braced = i + 1 < regex.length() && regex.charAt(i + 1) == '{';
+    return switch (kind) {
+      case 'x' -> braced ? skipPast(regex, i, '}') : Math.min(i + 2, regex.length());
+      case 'u' -> Math.min(i + 4, regex.length());
+      case 'c' -> Math.min(i + 1, regex.length());
+      case 'p', 'P' -> braced ? skipPast(regex, i, '}') : Math.min(i + 1, regex.length());
+      case 'N' -> braced ? skipPast(regex, i, '}') : i;
+      case 'k' -> i + 1 < regex.length() && regex.charAt(i + 1) == '<' ? skipPast(regex, i, '>') : i;
+      case '0' -> skipWhile(regex, i, 3, "01234567");
+      case '1', '2', '3', '4', '5', '6', '7', '8', '9' -> skipWhile(regex, i, Integer.MAX_VALUE, "0123456789");
+      default -> i;
+    };
+  }
+
+  // Last index of the run of at most {@code max} characters from {@code allowed} following {@code from}.
+  private static int skipWhile(String regex, int from, int max, String allowed) {
+    int i = from;
+    while (i - from < max && i + 1 < regex.length() && allowed.indexOf(regex.charAt(i + 1)) >= 0) {
+      i++;
+    }
+    return i;
+  }
+
+  private static int skipClass(String regex, int open) {
+    int i = open + 1;
+    if (i < regex.length() && regex.charAt(i) == '^') {
+      i++;
+    }
+    if (i < regex.length() && regex.charAt(i) == ']') {
+      i++;
+    }
+    for (; i < regex.length(); i++) {
+      char c = regex.charAt(i);
+      if (c == '\\') {
+        i++;
+      } else if (c == '[') {
+        i = skipClass(regex, i);
+      } else if (c == ']') {
+        return i;
+      }
+    }
+    return regex.length();
+  }
+
+  private static int skipGroup(String regex, int open) {
+    int depth = 0;
+    for (int i = open; i < regex.length(); i++) {
+      char c = regex.charAt(i);
+      if (c == '\\') {
+        i++;
+      } else if (c == '[') {
+        i = skipClass(regex, i);
+      } else if (c == '(') {
+        depth++;
+      } else if (c == ')' && --depth == 0) {
+        return i;
+      }
+    }
+    return regex.length();
+  }
+
+  // Checks the clock every few thousand reads, so a backtracking pattern gives up instead of spinning.
+  private static final class DeadlineSequence implements CharSequence {
+    private final CharSequence text;
+    private final long deadlineNanos;
+    private int reads;
+
+    DeadlineSequence(CharSequence text, long deadlineNanos) {
+      this.text = text;
+      this.deadlineNanos = deadlineNanos;
+    }
+
+    @Override
+    public char charAt(int index) {
+      if ((++reads & 0xFFF) == 0 && System.nanoTime() - deadlineNanos > 0) {
+        throw new IllegalArgumentException("Search pattern took too long to match");
+      }
+      return text.charAt(index);
+    }
+
+    @Override
+    public int length() {
+      return text.length();
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+      return new DeadlineSequence(text.subSequence(start, end), deadlineNanos);
+    }
+
+    @Override
+    public String toString() {
+      return text.toString();
+    }
+  }
+}
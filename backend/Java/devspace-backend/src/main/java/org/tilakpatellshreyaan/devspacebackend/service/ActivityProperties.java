@@ -0,0 +1,19 @@
+package org.tilakpatellshreyaan.devspacebackend.service;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "devspace.activity")
+public class ActivityProperties {
+  // Entries older than this are removed by a TTL index
+  private Duration retention = Duration.ofDays(365);
+  // Most recent entries embedded in the profile response
+  private int profileLimit = 10;
+  // Record file and execution events in the repository owner's feed
+  private boolean fanOut = false;
+  // Repeated events for the same file within this window are recorded once
+  private Duration coalesceWindow = Duration.ofMinutes(1);
+}
@@ -0,0 +1,245 @@
+package org.tilakpatellshreyaan.devspacebackend.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import org.tilakpatellshreyaan.devspacebackend.model.Activity;
+import org.tilakpatellshreyaan.devspacebackend.model.CodeRepository;
+import org.tilakpatellshreyaan.devspacebackend.model.FileData;
+import org.tilakpatellshreyaan.devspacebackend.model.User;
+import org.tilakpatellshreyaan.devspacebackend.repository.CodeRepositoryRepository;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Activity feeds, stored one document per entry in the {@code activities} collection. Recording an
+ * entry is a single insert whatever the size of the feed, and reads page backwards through the
+ * {@code (userId, _id)} index.
+ */
+@Slf4j
+@Service
+public class ActivityService {
+  private static final int MAX_COALESCE_KEYS = 10_000;
+
+  private final MongoTemplate mongoTemplate;
+  private final CodeRepositoryRepository repositoryRepo;
+  private final ActivityProperties properties;
+  // Last time each (repository, file, kind) was fanned out, to coalesce bursts of saves
+  private final Map<String, Long> lastRecorded = new ConcurrentHashMap<>();
+
+  public ActivityService(MongoTemplate mongoTemplate, CodeRepositoryRepository repositoryRepo,
+                         ActivityProperties properties) {
+    this.mongoTemplate = mongoTemplate;
+    this.repositoryRepo = repositoryRepo;
+    this.properties = properties;
+  }
+
+  public Activity record(String userId, Activity activity) {
+    Date now = new Date();
+    activity.setId(null);
+    activity.setUserId(userId);
+    activity.setCreatedAt(now);
+    if (activity.getTime() == null) {
+      activity.setTime(now.toInstant().toString());
+    }
+    return mongoTemplate.insert(activity);
+  }
+
+  /**
+   * Returns up to {@code limit} of the user's entries, newest first, older than {@code before}
+   * (or the newest ones when it is {@code null}).
+   */
+  public List<Activity> feed(String userId, ObjectId before, int limit) {
+    Criteria criteria = Criteria.where("userId").is(userId);
+    if (before != null) {
+      criteria = criteria.and("_id").lt(before);
+    }
+    Query query = new Query(criteria).with(Sort.by(Sort.Direction.DESC, "_id")).limit(limit);
+    return mongoTemplate.find(query, Activity.class);
+  }
+
+  // Id of the user's newest entry, read from the feed index alone; changes whenever the feed does.
+  public Optional<String> newestId(String userId) {
+    Query query = new Query(Criteria.where("userId").is(userId)).with(Sort.by(Sort.Direction.DESC, "_id")).limit(1);
+    query.fields().include("_id");
+    return Optional.ofNullable(mongoTemplate.findOne(query, Activity.class)).map(Activity::getId);
+  }
+
+  public List<Activity> latest(String userId) {
+    return feed(userId, null, properties.getProfileLimit());
+  }
+
+  // Index creation and the one-off move of embedded activities run off the startup path, so the
+  // application still starts while Mongo is unreachable.
+  @EventListener(ApplicationReadyEvent.class)
+  public void prepareCollection() {
+    Thread.ofVirtual().name("activity-setup").start(() -> {
+      try {
+        ensureIndexes();
+        migrateEmbeddedActivities();
+      } catch (RuntimeException e) {
+        log.warn("Could not prepare the activities collection: {}", e.getMessage());
+      }
+    });
+  }
+
+  @EventListener
+  public void onFileChanged(FileChangedEvent event) {
+    // The instance that made the write already recorded it.
+    if (!properties.isFanOut() || event.fromChangeStream() || event.repositoryId() == null
+            || !claim(event.repositoryId(), event.fileId(), event.type().name())) {
+      return;
+    }
+    String filename = event.type() == FileChangedEvent.Type.DELETED ? null : filename(event.fileId());
+    String target = filename == null ? "a file" : filename;
+    switch (event.type()) {
+      case CREATED -> fanOut(event.repositoryId(), "create", "Created " + target);
+      case UPDATED -> fanOut(event.repositoryId(), "commit", "Updated " + target);
+      case DELETED -> fanOut(event.repositoryId(), "delete", "Deleted " + target);
+    }
+  }
+
+  @EventListener
+  public void onExecutionFinished(ExecutionFinishedEvent event) {
+    if (!properties.isFanOut() || event.repositoryId() == null || !claim(event.repositoryId(), event.fileId(), "EXECUTED")) {
+      return;
+    }
+    String outcome = Integer.valueOf(0).equals(event.exitCode()) ? "Ran " : "Ran (failed) ";
+    fanOut(event.repositoryId(), "deployment", outcome + event.filename());
+  }
+
+  private void fanOut(String repositoryId, String icon, String action) {
+    try {
+      Optional<CodeRepository> repoOpt = repositoryRepo.findById(repositoryId);
+      if (repoOpt.isEmpty() || repoOpt.get().getOwnerId() == null) {
+        return;
+      }
+      CodeRepository repo = repoOpt.get();
+      record(repo.getOwnerId(), Activity.builder()
+              .repositoryId(repositoryId)
+              .icon(icon)
+              .description(action + " in " + repo.getRepositoryName())
+              .build());
+    } catch (RuntimeException e) {
+      // The feed is best effort; it must never fail the save or execution that triggered it.
+      log.warn("Could not record activity for repository {}: {}", repositoryId, e.getMessage());
+    }
+  }
+
+  private boolean claim(String repositoryId, String fileId, String kind) {
+    long now = System.nanoTime();
+    long window = properties.getCoalesceWindow().toNanos();
+    if (lastRecorded.size() > MAX_COALESCE_KEYS) {
+      lastRecorded.values().removeIf(at -> now - at > window);
+    }
+    String key = repositoryId + '/' + fileId + '/' + kind;
+    boolean[] claimed = new boolean[1];
+    lastRecorded.compute(key, (k, at) -> {
+      claimed[0] = at == null || now - at > window;
+      return claimed[0] ? now : at;
+    });
+    return claimed[0];
+  }
+
+  private String filename(String fileId) {
+    if (!ObjectId.isValid(fileId)) {
+      return null;
+    }
+    Query query = new Query(Criteria.where("_id").is(new ObjectId(fileId)));
+    query.fields().include("filename");
+    Document file = mongoTemplate.findOne(query, Document.class, mongoTemplate.getCollectionName(FileData.class));
+    return file == null ? null : file.getString("filename");
+  }
+
+  private void ensureIndexes() {
+    // The feed index is declared on Activity; only the configurable TTL index is created here.
+    mongoTemplate.indexOps(Activity.class).ensureIndex(new Index().named("retention")
+            .on("createdAt", Sort.Direction.ASC).expire(properties.getRetention()));
+  }
+
+  /**
+   * Moves activities still embedded in user documents into the collection. Entries are written
+   * first and the embedded list is unset only afterwards, and only if it is still the list that was
+   * copied, so a node that stops halfway leaves the source in place for the next start to retry.
+   * Every entry gets an id derived from its user and position, so retries and nodes migrating the
+   * same user at once upsert the same documents instead of duplicating them.
+   *
+   * <p>{@code createdAt} comes from the entry's ISO-8601 {@code time}, so the retention TTL counts
+   * from when the activity happened; entries older than the retention are therefore removed soon
+   * after the migration, as they would have been had they been recorded here. An entry whose time
+   * cannot be parsed gets the migration time.
+   */
+  private void migrateEmbeddedActivities() {
+    String users = mongoTemplate.getCollectionName(User.class);
+    Query query = new Query(Criteria.where("activities").exists(true));
+    query.fields().include("activities");
+    for (Document user : mongoTemplate.find(query, Document.class, users)) {
+      Object id = user.get("_id");
+      String userId = id instanceof ObjectId objectId ? objectId.toHexString() : String.valueOf(id);
+      List<Document> stored = user.getList("activities", Document.class, List.of());
+      // The embedded list is shown newest first, so positions are counted from the oldest entry:
+      // entries added later never shift the ids of those already migrated.
+      List<Document> embedded = new ArrayList<>(stored);
+      Collections.reverse(embedded);
+      long seconds = id instanceof ObjectId objectId ? objectId.getTimestamp() : 0;
+      BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Activity.class);
+      for (int position = 0; position < embedded.size(); position++) {
+        Document legacy = embedded.get(position);
+        Instant time = parseTime(legacy.getString("time"));
+        // Ids must grow with position for the feed order, even when times are missing or unordered.
+        seconds = Math.max(seconds, time == null ? 0 : time.getEpochSecond());
+        bulk.upsert(new Query(Criteria.where("_id").is(migratedId(userId, position, seconds))), new Update()
+                .setOnInsert("userId", userId)
+                .setOnInsert("icon", legacy.getString("icon"))
+                .setOnInsert("description", legacy.getString("description"))
+                .setOnInsert("time", legacy.getString("time"))
+                .setOnInsert("createdAt", time == null ? new Date() : Date.from(time)));
+      }
+      if (!embedded.isEmpty()) {
+        bulk.execute();
+      }
+      mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(id).and("activities").is(stored)),
+              new Update().unset("activities"), users);
+      log.info("Moved {} embedded activities of user {} to the activities collection", embedded.size(), userId);
+    }
+  }
+
+  private static Instant parseTime(String time) {
+    if (time == null) {
+      return null;
+    }
+    try {
+      return Instant.parse(time);
+    } catch (DateTimeParseException e) {
+      return null;
+    }
+  }
+
+  // An ObjectId made of the entry's time, a hash of its user and its position in the embedded list.
+  private static ObjectId migratedId(String userId, int position, long epochSeconds) {
+    return new ObjectId(ByteBuffer.allocate(12)
+            .putInt((int) epochSeconds)
+            .putInt(userId.hashCode())
+            .putInt(position)
+            .array());
+  }
+}
@@ -0,0 +1,16 @@
+package org.tilakpatellshreyaan.devspacebackend.service;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+@Data
+@ConfigurationProperties(prefix = "devspace.archive")
+public class ArchiveProperties {
+  // Files written to Mongo per bulk write during an import
+  private int batchSize = 500;
+  // Imports with more files than this are rejected part way through
+  private int maxEntries = 10_000;
+  // Largest single file accepted from an archive, checked while it is read
+  private DataSize maxFileSize = DataSize.ofMegabytes(16);
+}
@@ -0,0 +1,7 @@
+package org.tilakpatellshreyaan.devspacebackend.service;
+
+public class ArchiveTooLargeException extends RuntimeException {
+  public ArchiveTooLargeException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,104 @@
+package org.tilakpatellshreyaan.devspacebackend.service;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decides whether an execution may join the queue. A caller is turned away when it has used up
+ * its token bucket, already has {@code maxJobsPerUser} jobs outstanding, or the queue has no
+ * room for its priority; batch runs only get the part of the queue interactive runs leave free.
+ * Every rejection says when to retry, so callers back off instead of hammering the endpoint.
+ */
+@Component
+class ExecutionAdmission {
+  private static final int MAX_BUCKETS = 10_000;
+
+  // Tokens left at a point in time; refilled lazily on the next request
+  private record Bucket(double tokens, long at) {
+  }
+
+  private final ExecutionProperties properties;
+  private final AtomicInteger outstanding = new AtomicInteger();
+  private final Map<String, AtomicInteger> perCaller = new ConcurrentHashMap<>();
+  private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+  ExecutionAdmission(ExecutionProperties properties) {
+    this.properties = properties;
+  }
+
+  /**
+   * Admits one execution for {@code caller} (a user id, or an address for anonymous callers).
+   * Every admitted execution must be followed by {@link #release}.
+   */
+  void admit(String caller, ExecutionPriority priority) {
+    int maxQueued = priority == ExecutionPriority.BATCH
+            ? Math.min(properties.getMaxQueuedBatchJobs(), properties.getMaxQueuedJobs())
+            : properties.getMaxQueuedJobs();
+    if (outstanding.incrementAndGet() > properties.getMaxConcurrentJobs() + maxQueued) {
+      outstanding.decrementAndGet();
+      throw new ExecutionRejectedException("Execution queue is full", properties.getRejectedRetryAfter());
+    }
+
+    boolean[] admitted = new boolean[1];
+    perCaller.compute(caller, (k, count) -> {
+      AtomicInteger current = count == null ? new AtomicInteger() : count;
+      admitted[0] = current.get() < properties.getMaxJobsPerUser();
+      if (admitted[0]) {
+        current.incrementAndGet();
+      }
+      return current.get() == 0 ? null : current;
+    });
+    if (!admitted[0]) {
+      outstanding.decrementAndGet();
+      throw new ExecutionRejectedException("Too many executions in progress", properties.getRejectedRetryAfter());
+    }
+
+    // The token is taken last so that a run turned away for any other reason does not spend one.
+    Duration wait = takeToken(caller);
+    if (!wait.isZero()) {
+      release(caller);
+      throw new ExecutionRejectedException("Execution rate limit exceeded", wait);
+    }
+  }
+
+  void release(String caller) {
+    outstanding.decrementAndGet();
+    perCaller.computeIfPresent(caller, (k, count) -> count.decrementAndGet() == 0 ? null : count);
+  }
+
+  int outstanding() {
+    return outstanding.get();
+  }
+
+  // Returns zero when a token was taken, otherwise how long until the next one.
+  private Duration takeToken(String caller) {
+    ExecutionProperties.RateLimit limit = properties.getRateLimit();
+    if (!limit.isEnabled()) {
+      return Duration.ZERO;
+    }
+    double perNano = limit.getPerMinute() / 60e9;
+    long now = System.nanoTime();
+    if (buckets.size() > MAX_BUCKETS) {
+      // Buckets that have refilled completely behave exactly like new ones.
+      buckets.values().removeIf(bucket -> bucket.tokens() + (now - bucket.at()) * perNano >= limit.getBurst());
+    }
+
+    long[] waitNanos = new long[1];
+    buckets.compute(caller, (k, bucket) -> {
+      double tokens = bucket == null
+              ? limit.getBurst()
+              : Math.min(limit.getBurst(), bucket.tokens() + (now - bucket.at()) * perNano);
+      if (tokens >= 1) {
+        waitNanos[0] = 0;
+        return new Bucket(tokens - 1, now);
+      }
+      waitNanos[0] = (long) Math.ceil((1 - tokens) / perNano);
+      return new Bucket(tokens, now);
+    });
+    return Duration.ofNanos(waitNanos[0]);
+  }
+}
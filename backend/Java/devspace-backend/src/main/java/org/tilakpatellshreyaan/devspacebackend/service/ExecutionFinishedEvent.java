@@ -0,0 +1,11 @@
+package org.tilakpatellshreyaan.devspacebackend.service;
+
+import org.tilakpatellshreyaan.devspacebackend.model.ExecutionJob;
+
+/**
+ * Published once an execution job has completed or failed, including jobs answered from the
+ * result cache.
+ */
+public record ExecutionFinishedEvent(String jobId, String fileId, String repositoryId, String filename,
+                                     ExecutionJob.State state, Integer exitCode) {
+}
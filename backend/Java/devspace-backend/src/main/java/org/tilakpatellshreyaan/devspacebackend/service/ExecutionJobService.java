@@ -0,0 +1,298 @@
+package org.tilakpatellshreyaan.devspacebackend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.tilakpatellshreyaan.devspacebackend.executor.ExecutorListener;
+import org.tilakpatellshreyaan.devspacebackend.executor.ExecutorPool;
+import org.tilakpatellshreyaan.devspacebackend.executor.ExecutorUnavailableException;
+import org.tilakpatellshreyaan.devspacebackend.model.ExecutionJob;
+import org.tilakpatellshreyaan.devspacebackend.model.FileData;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Runs execution jobs on virtual threads. At most {@code maxConcurrentJobs} talk to the executors
+ * at once and at most {@code maxQueuedJobs} wait behind them, interactive runs ahead of batch
+ * runs; {@link ExecutionAdmission} decides what may join the queue. Request threads only enqueue.
+ */
+@Slf4j
+@Service
+public class ExecutionJobService {
+  private static final ObjectMapper PAYLOAD_MAPPER = new ObjectMapper();
+
+  private final ExecutorPool executorPool;
+  private final ExecutionProperties properties;
+  private final ExecutionResultCache resultCache;
+  private final ApplicationEventPublisher eventPublisher;
+  private final ObservationRegistry observationRegistry;
+  private final ExecutionAdmission admission;
+  private final Map<String, ExecutionJob> jobs = new ConcurrentHashMap<>();
+  private final ExecutorService workers = Executors.newThreadPerTaskExecutor(
+          Thread.ofVirtual().name("execution-job-", 0).factory());
+  private final PrioritySlots runningSlots;
+
+  public ExecutionJobService(ExecutorPool executorPool, ExecutionProperties properties,
+                             ExecutionResultCache resultCache, ApplicationEventPublisher eventPublisher,
+                             ExecutionAdmission admission, MeterRegistry meterRegistry,
+                             ObservationRegistry observationRegistry) {
+    this.executorPool = executorPool;
+    this.properties = properties;
+    this.resultCache = resultCache;
+    this.eventPublisher = eventPublisher;
+    this.observationRegistry = observationRegistry;
+    this.admission = admission;
+    this.runningSlots = new PrioritySlots(properties.getMaxConcurrentJobs());
+
+    Gauge.builder("devspace.execution.jobs", this, ExecutionJobService::runningJobs)
+            .description("Execution jobs holding a slot").tag("state", "running").register(meterRegistry);
+    Gauge.builder("devspace.execution.jobs", this, service -> service.admission.outstanding() - service.runningJobs())
+            .description("Execution jobs waiting for a slot").tag("state", "queued").register(meterRegistry);
+  }
+
+  /**
+   * Queues {@code file} for execution on behalf of {@code caller} and returns immediately with the
+   * new job. If the same content already ran successfully, the job is completed from the result
+   * cache without queueing.
+   *
+   * @throws ExecutorUnavailableException if no executor connection is open
+   * @throws ExecutionRejectedException if admission control turns the execution away
+   */
+  public ExecutionJob submit(FileData file, String caller, ExecutionPriority priority)
+          throws ExecutorUnavailableException {
+    String repositoryId = file.getRepositoryId();
+    String cacheKey = resultCache.isEnabled() ? resultCache.key(file.getContent(), file.getLanguage()) : null;
+    if (cacheKey != null) {
+      Optional<ExecutionResultCache.CachedResult> cached = resultCache.get(cacheKey);
+      if (cached.isPresent()) {
+        ExecutionJob job = new ExecutionJob(UUID.randomUUID().toString(), file.getId(), file.getFilename());
+        job.completeFromCache(cached.get().output(), cached.get().exitCode());
+        jobs.put(job.getId(), job);
+        publishFinished(job, repositoryId);
+        return job;
+      }
+    }
+
+    if (executorPool.openConnections() == 0) {
+      throw new ExecutorUnavailableException("No executor connection available");
+    }
+    admission.admit(caller, priority);
+
+    ExecutionJob job = new ExecutionJob(UUID.randomUUID().toString(), file.getId(), file.getFilename());
+    ObjectNode payload = payload(file);
+    jobs.put(job.getId(), job);
+    // A child of the request's observation that lasts until the executor's last reply, so the
+    // trace covers the queue wait and the round trip after the response has gone out.
+    Observation observation = Observation.createNotStarted("devspace.execution", observationRegistry)
+            .parentObservation(observationRegistry.getCurrentObservation())
+            .contextualName("execute")
+            .lowCardinalityKeyValue("language", file.getLanguage() == null ? "unknown" : file.getLanguage())
+            .lowCardinalityKeyValue("priority", priority.name())
+            .highCardinalityKeyValue("job.id", job.getId())
+            .start();
+    workers.execute(() -> run(job, payload, cacheKey, repositoryId, caller, priority, observation));
+    return job;
+  }
+
+  /**
+   * Queues {@code files} of one repository as a single job: they go to the executor in one
+   * request and run together, so the batch costs one admission, one slot and one round trip
+   * instead of one per file. Results are never served from or stored in the result cache.
+   *
+   * @throws ExecutorUnavailableException if no executor connection is open
+   * @throws ExecutionRejectedException if admission control turns the execution away
+   */
+  public ExecutionJob submitBatch(String repositoryId, List<FileData> files, String caller,
+                                  ExecutionPriority priority) throws ExecutorUnavailableException {
+    if (executorPool.openConnections() == 0) {
+      throw new ExecutorUnavailableException("No executor connection available");
+    }
+    admission.admit(caller, priority);
+
+    Map<String, String> names = new LinkedHashMap<>();
+    files.forEach(file -> names.put(file.getId(), file.getFilename()));
+    ExecutionJob job = ExecutionJob.batch(UUID.randomUUID().toString(), names);
+    ObjectNode payload = batchPayload(files);
+    jobs.put(job.getId(), job);
+    Observation observation = Observation.createNotStarted("devspace.execution", observationRegistry)
+            .parentObservation(observationRegistry.getCurrentObservation())
+            .contextualName("execute-batch")
+            .lowCardinalityKeyValue("language", "batch")
+            .lowCardinalityKeyValue("priority", priority.name())
+            .highCardinalityKeyValue("job.id", job.getId())
+            .highCardinalityKeyValue("files", String.valueOf(files.size()))
+            .start();
+    workers.execute(() -> run(job, payload, null, repositoryId, caller, priority, observation));
+    return job;
+  }
+
+  // The request sent to the executor: only the fields it reads to run the file.
+  public static ObjectNode payload(FileData file) {
+    ObjectNode payload = PAYLOAD_MAPPER.createObjectNode();
+    payload.put("filename", file.getFilename());
+    payload.put("language", file.getLanguage());
+    payload.put("content", file.getContent());
+    return payload;
+  }
+
+  /**
+   * The request for a batch: the files' ids, names, languages and contents as a JSON array,
+   * deflated (zlib format) and base64 encoded into one field, since sources compress well and the
+   * whole batch has to fit in a single frame.
+   */
+  public static ObjectNode batchPayload(List<FileData> files) {
+    ArrayNode entries = PAYLOAD_MAPPER.createArrayNode();
+    for (FileData file : files) {
+      entries.addObject()
+              .put("fileId", file.getId())
+              .put("filename", file.getFilename())
+              .put("language", file.getLanguage())
+              .put("content", file.getContent());
+    }
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    try (DeflaterOutputStream deflater = new DeflaterOutputStream(compressed)) {
+      PAYLOAD_MAPPER.writeValue(deflater, entries);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    ObjectNode payload = PAYLOAD_MAPPER.createObjectNode();
+    payload.put("type", "batch");
+    payload.put("encoding", "deflate");
+    payload.put("count", files.size());
+    payload.put("files", Base64.getEncoder().encodeToString(compressed.toByteArray()));
+    return payload;
+  }
+
+  public Optional<ExecutionJob> findJob(String jobId) {
+    return Optional.ofNullable(jobs.get(jobId));
+  }
+
+  private int runningJobs() {
+    return runningSlots.inUse();
+  }
+
+  private void run(ExecutionJob job, ObjectNode payload, String cacheKey, String repositoryId, String caller,
+                   ExecutionPriority priority, Observation observation) {
+    try (Observation.Scope scope = observation.openScope()) {
+      runningSlots.acquire(priority);
+      try {
+        observation.event(Observation.Event.of("devspace.execution.started"));
+        execute(job, payload, cacheKey);
+      } finally {
+        runningSlots.release();
+      }
+    } catch (InterruptedException e) {
+      job.fail("Execution was interrupted");
+      Thread.currentThread().interrupt();
+    } catch (RuntimeException e) {
+      // Without this the job would stay RUNNING and its subscribers would never be released.
+      log.warn("Execution job {} failed: {}", job.getId(), e.getMessage(), e);
+      job.fail("Execution failed: " + e.getMessage());
+    } finally {
+      admission.release(caller);
+      observation.lowCardinalityKeyValue("state", job.getState().name()).stop();
+      log.atDebug().setMessage("Execution job finished")
+              .addKeyValue("jobId", job.getId())
+              .addKeyValue("state", job.getState())
+              .addKeyValue("exitCode", job.getExitCode())
+              .log();
+      publishFinished(job, repositoryId);
+    }
+  }
+
+  private void publishFinished(ExecutionJob job, String repositoryId) {
+    try {
+      String filename = job.getFiles() == null ? job.getFilename() : job.getFiles().size() + " files";
+      eventPublisher.publishEvent(new ExecutionFinishedEvent(job.getId(), job.getFileId(), repositoryId,
+              filename, job.getState(), job.getExitCode()));
+    } catch (RuntimeException e) {
+      log.warn("Listener failed for finished execution job {}: {}", job.getId(), e.getMessage());
+    }
+  }
+
+  private void execute(ExecutionJob job, ObjectNode payload, String cacheKey) throws InterruptedException {
+    // Replies are handed over from the socket's read thread and processed here, so a slow
+    // stream subscriber never stalls the executor connection.
+    BlockingQueue<Object> replies = new LinkedBlockingQueue<>();
+    job.start();
+    try {
+      executorPool.submit(payload, new ExecutorListener() {
+        @Override
+        public void onReply(JsonNode message) {
+          replies.add(message);
+        }
+
+        @Override
+        public void onFailure(Throwable error) {
+          replies.add(error);
+        }
+      });
+    } catch (ExecutorUnavailableException e) {
+      job.fail(e.getMessage());
+      return;
+    }
+
+    while (true) {
+      Object reply = replies.take();
+      if (reply instanceof Throwable error) {
+        log.warn("Execution job {} failed: {}", job.getId(), error.getMessage());
+        job.fail(error.getMessage());
+        return;
+      }
+      JsonNode message = (JsonNode) reply;
+      if (ExecutorPool.isTerminal(message)) {
+        JsonNode exitCode = message.path("exit_code");
+        job.complete(exitCode.isInt() ? exitCode.asInt() : null);
+        // Only clean runs are reused; a failure may come from the executor rather than the code.
+        if (cacheKey != null && Integer.valueOf(0).equals(job.getExitCode())) {
+          resultCache.put(cacheKey, job.getExitCode(), job.getOutput());
+        }
+        return;
+      }
+      String type = message.path("type").asText();
+      String fileId = message.path("fileId").isTextual() ? message.path("fileId").asText() : null;
+      if ("file_complete".equals(type)) {
+        JsonNode exitCode = message.path("exit_code");
+        job.completeFile(fileId, exitCode.isInt() ? exitCode.asInt() : null);
+        continue;
+      }
+      String stream = "error".equals(type) ? "stderr" : "stdout";
+      job.append(new ExecutionJob.OutputChunk(stream, message.path("data").asText(), fileId));
+    }
+  }
+
+  @Scheduled(fixedDelay = 60_000)
+  public void evictFinishedJobs() {
+    long cutoff = System.currentTimeMillis() - properties.getJobRetention().toMillis();
+    jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt().getTime() < cutoff);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    workers.shutdownNow();
+  }
+}
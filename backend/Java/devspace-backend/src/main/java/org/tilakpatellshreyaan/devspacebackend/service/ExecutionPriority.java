@@ -0,0 +1,9 @@
+package org.tilakpatellshreyaan.devspacebackend.service;
+
+/**
+ * Order in which queued executions get a slot; interactive runs always go ahead of batch runs.
+ */
+public enum ExecutionPriority {
+  INTERACTIVE,
+  BATCH
+}
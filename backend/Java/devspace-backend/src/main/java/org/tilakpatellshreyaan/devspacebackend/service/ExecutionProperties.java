@@ -0,0 +1,54 @@
+package org.tilakpatellshreyaan.devspacebackend.service;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "devspace.execution")
+public class ExecutionProperties {
+  // Jobs running against the executors at once; the rest wait in the queue
+  private int maxConcurrentJobs = 16;
+  // Jobs allowed to wait for a slot before new submissions are rejected
+  private int maxQueuedJobs = 256;
+  // Share of the queue batch runs may take; the rest stays free for interactive runs
+  private int maxQueuedBatchJobs = 128;
+  // Jobs one user (or anonymous address) may have queued or running at once
+  private int maxJobsPerUser = 4;
+  // Retry-After sent when a submission is turned away for lack of room
+  private Duration rejectedRetryAfter = Duration.ofSeconds(2);
+  private RateLimit rateLimit = new RateLimit();
+  // Files and total content one batch execution may send to the executor in a single request
+  private int maxBatchFiles = 200;
+  private DataSize maxBatchSize = DataSize.ofMegabytes(8);
+  // How long finished jobs stay available for status and stream requests
+  private Duration jobRetention = Duration.ofMinutes(10);
+  private Duration streamTimeout = Duration.ofMinutes(5);
+  private Cache cache = new Cache();
+
+  // Token bucket per user for executions that reach the executor; cached results are not counted
+  @Data
+  public static class RateLimit {
+    private boolean enabled = true;
+    // Executions a user can start back to back after being idle
+    private int burst = 10;
+    // Sustained rate the bucket refills at
+    private double perMinute = 30;
+  }
+
+  @Data
+  public static class Cache {
+    private boolean enabled = true;
+    // Part of every cache key; bump it when the executor images or compilers change
+    private String toolchainVersion = "l4t-r32.6.1";
+    private int maxEntries = 1_000;
+    private DataSize maxBytes = DataSize.ofMegabytes(64);
+    private Duration ttl = Duration.ofHours(1);
+    // Optional second tier that survives restarts; disabled when unset
+    private Path diskDirectory;
+    private int maxDiskEntries = 10_000;
+  }
+}
@@ -0,0 +1,25 @@
+package org.tilakpatellshreyaan.devspacebackend.service;
+
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Thrown when admission control turns an execution away; {@code retryAfter} is when the same
+ * caller can expect to be admitted again.
+ */
+@Getter
+public class ExecutionRejectedException extends RejectedExecutionException {
+  private final Duration retryAfter;
+
+  public ExecutionRejectedException(String message, Duration retryAfter) {
+    super(message);
+    this.retryAfter = retryAfter;
+  }
+
+  // For the Retry-After header: whole seconds, rounded up so waiting that long is enough.
+  public long retryAfterSeconds() {
+    return Math.max(1, (retryAfter.toMillis() + 999) / 1000);
+  }
+}
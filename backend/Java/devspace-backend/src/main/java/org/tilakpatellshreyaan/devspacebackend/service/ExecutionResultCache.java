@@ -0,0 +1,205 @@
+package org.tilakpatellshreyaan.devspacebackend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.tilakpatellshreyaan.devspacebackend.model.ExecutionJob;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Results of previous executions keyed by a SHA-256 of (toolchain version, language, content).
+ * A size-bounded Caffeine cache in memory sits in front of an optional directory of JSON files. Keys are
+ * content addressed, so saving a file never makes an entry stale: new content hashes to a new key
+ * and the old entry, which other files with the same content may share, ages out on its own.
+ */
+@Slf4j
+@Component
+public class ExecutionResultCache {
+  public record CachedResult(Integer exitCode, List<ExecutionJob.OutputChunk> output, long expiresAt) {
+    long weight() {
+      long bytes = 64;
+      for (ExecutionJob.OutputChunk chunk : output) {
+        bytes += 32 + 2L * chunk.data().length();
+      }
+      return bytes;
+    }
+  }
+
+  private final ExecutionProperties.Cache properties;
+  private final ObjectMapper objectMapper;
+  private final Cache<String, CachedResult> memory;
+
+  public ExecutionResultCache(ExecutionProperties properties, ObjectMapper objectMapper) {
+    this.properties = properties.getCache();
+    this.objectMapper = objectMapper;
+    // Caffeine bounds by count or by weight, not both. Charging every entry at least an even share
+    // of maxBytes caps the count at maxEntries while the total stays within maxBytes.
+    long maxBytes = this.properties.getMaxBytes().toBytes();
+    long minWeight = Math.max(1, maxBytes / Math.max(1, this.properties.getMaxEntries()));
+    this.memory = Caffeine.newBuilder()
+            .maximumWeight(maxBytes)
+            .weigher((String key, CachedResult result) -> (int) Math.min(Integer.MAX_VALUE,
+                    Math.max(minWeight, result.weight())))
+            .expireAfterWrite(this.properties.getTtl())
+            .build();
+
+    Path directory = this.properties.getDiskDirectory();
+    if (this.properties.isEnabled() && directory != null) {
+      try {
+        Files.createDirectories(directory);
+      } catch (IOException e) {
+        log.warn("Disabling on-disk execution cache at {}: {}", directory, e.getMessage());
+        this.properties.setDiskDirectory(null);
+      }
+    }
+  }
+
+  public boolean isEnabled() {
+    return properties.isEnabled();
+  }
+
+  public String key(String content, String language) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      digest.update(properties.getToolchainVersion().getBytes(StandardCharsets.UTF_8));
+      digest.update((byte) 0);
+      digest.update(String.valueOf(language).getBytes(StandardCharsets.UTF_8));
+      digest.update((byte) 0);
+      digest.update(String.valueOf(content).getBytes(StandardCharsets.UTF_8));
+      return HexFormat.of().formatHex(digest.digest());
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  public Optional<CachedResult> get(String key) {
+    if (!properties.isEnabled()) {
+      return Optional.empty();
+    }
+
+    long now = System.currentTimeMillis();
+    CachedResult result = memory.getIfPresent(key);
+    if (result != null) {
+      if (result.expiresAt() > now) {
+        return Optional.of(result);
+      }
+      memory.invalidate(key);
+    }
+
+    CachedResult fromDisk = readFromDisk(key, now);
+    if (fromDisk != null) {
+      putInMemory(key, fromDisk);
+    }
+    return Optional.ofNullable(fromDisk);
+  }
+
+  public void put(String key, Integer exitCode, List<ExecutionJob.OutputChunk> output) {
+    if (!properties.isEnabled()) {
+      return;
+    }
+    CachedResult result = new CachedResult(exitCode, List.copyOf(output),
+            System.currentTimeMillis() + properties.getTtl().toMillis());
+    putInMemory(key, result);
+    writeToDisk(key, result);
+  }
+
+  @Scheduled(fixedDelay = 600_000)
+  public void purgeDisk() {
+    Path directory = properties.getDiskDirectory();
+    if (!properties.isEnabled() || directory == null) {
+      return;
+    }
+    long cutoff = System.currentTimeMillis() - properties.getTtl().toMillis();
+    try (Stream<Path> files = Files.list(directory)) {
+      List<Path> live = new ArrayList<>();
+      files.filter(path -> path.toString().endsWith(".json")).forEach(path -> {
+        if (lastModified(path) < cutoff) {
+          deleteQuietly(path);
+        } else {
+          live.add(path);
+        }
+      });
+      // Beyond the bound the oldest entries go first.
+      live.sort(Comparator.comparingLong(ExecutionResultCache::lastModified).reversed());
+      live.stream().skip(properties.getMaxDiskEntries()).forEach(this::deleteQuietly);
+    } catch (IOException e) {
+      log.warn("Could not purge on-disk execution cache: {}", e.getMessage());
+    }
+  }
+
+  private void putInMemory(String key, CachedResult result) {
+    if (result.weight() > properties.getMaxBytes().toBytes()) {
+      return;
+    }
+    memory.put(key, result);
+  }
+
+  private CachedResult readFromDisk(String key, long now) {
+    Path path = diskPath(key);
+    if (path == null || !Files.exists(path)) {
+      return null;
+    }
+    try {
+      CachedResult result = objectMapper.readValue(path.toFile(), CachedResult.class);
+      if (result.expiresAt() > now) {
+        return result;
+      }
+      deleteQuietly(path);
+    } catch (IOException e) {
+      log.debug("Discarding unreadable cached result {}: {}", path, e.getMessage());
+      deleteQuietly(path);
+    }
+    return null;
+  }
+
+  private void writeToDisk(String key, CachedResult result) {
+    Path path = diskPath(key);
+    if (path == null) {
+      return;
+    }
+    try {
+      Path temp = Files.createTempFile(path.getParent(), key, ".tmp");
+      objectMapper.writeValue(temp.toFile(), result);
+      Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      log.debug("Could not write cached result {}: {}", path, e.getMessage());
+    }
+  }
+
+  private Path diskPath(String key) {
+    Path directory = properties.getDiskDirectory();
+    return directory == null ? null : directory.resolve(key + ".json");
+  }
+
+  private static long lastModified(Path path) {
+    try {
+      return Files.getLastModifiedTime(path).toMillis();
+    } catch (IOException e) {
+      return 0;
+    }
+  }
+
+  private void deleteQuietly(Path path) {
+    try {
+      Files.deleteIfExists(path);
+    } catch (IOException e) {
+      log.debug("Could not delete cached result {}: {}", path, e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,15 @@
+package org.tilakpatellshreyaan.devspacebackend.service;
+
+/**
+ * Published after a file's stored content or existence changes, so in-memory state derived from
+ * the file (cached results, indexes) can be refreshed. Events with {@code fromChangeStream} set
+ * are republished from the Mongo change stream and also cover writes made by other instances;
+ * the instance that made the write sees its change twice.
+ */
+public record FileChangedEvent(String fileId, String repositoryId, Type type, boolean fromChangeStream) {
+  public enum Type { CREATED, UPDATED, DELETED }
+
+  public FileChangedEvent(String fileId, String repositoryId, Type type) {
+    this(fileId, repositoryId, type, false);
+  }
+}
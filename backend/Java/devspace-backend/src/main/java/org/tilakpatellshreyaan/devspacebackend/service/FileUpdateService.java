@@ -0,0 +1,107 @@
+package org.tilakpatellshreyaan.devspacebackend.service;
+
+import org.bson.types.ObjectId;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import org.tilakpatellshreyaan.devspacebackend.model.FileData;
+import org.tilakpatellshreyaan.devspacebackend.model.TextOperation;
+import org.tilakpatellshreyaan.devspacebackend.repository.FileContentStore;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Date;
+import java.util.Optional;
+
+/**
+ * Writes file content with a single conditional update so concurrent saves cannot silently
+ * overwrite each other.
+ */
+@Service
+public class FileUpdateService {
+  private final MongoTemplate mongoTemplate;
+  private final FileContentStore contentStore;
+  private final ApplicationEventPublisher eventPublisher;
+
+  public FileUpdateService(MongoTemplate mongoTemplate, FileContentStore contentStore,
+                           ApplicationEventPublisher eventPublisher) {
+    this.mongoTemplate = mongoTemplate;
+    this.contentStore = contentStore;
+    this.eventPublisher = eventPublisher;
+  }
+
+  /**
+   * Applies {@code operation} to the file if it is still at {@code version}.
+   *
+   * @throws VersionConflictException if the file has moved past {@code version}
+   * @throws IllegalArgumentException if the operation does not fit the current content
+   */
+  public Optional<FileData> patch(ObjectId fileId, long version, TextOperation operation) {
+    FileData current = mongoTemplate.findById(fileId, FileData.class);
+    if (current == null) {
+      return Optional.empty();
+    }
+    if (current.getVersion() != version) {
+      throw new VersionConflictException(current.getVersion());
+    }
+    String content = operation.apply(current.getContent() == null ? "" : current.getContent());
+    return write(fileId, contentStore.write(content), version).map(file -> withContent(file, content));
+  }
+
+  /**
+   * Replaces the content unconditionally, still bumping the version so patch clients notice.
+   */
+  public Optional<FileData> replaceContent(ObjectId fileId, String content) {
+    return write(fileId, contentStore.write(content), null).map(file -> withContent(file, content));
+  }
+
+  /**
+   * Replaces the content with everything read from {@code content} without holding it in memory.
+   * The returned file has no content set.
+   */
+  public Optional<FileData> replaceContent(ObjectId fileId, InputStream content) throws IOException {
+    return write(fileId, contentStore.write(content), null);
+  }
+
+  private Optional<FileData> write(ObjectId fileId, FileContentStore.StoredContent stored, Long expectedVersion) {
+    Criteria criteria = Criteria.where("_id").is(fileId);
+    if (expectedVersion != null) {
+      // Documents written before versioning have no field and count as version 0.
+      criteria = expectedVersion == 0
+              ? criteria.and("version").in(0L, null)
+              : criteria.and("version").is(expectedVersion);
+    }
+    Update update = FileContentStore.contentUpdate(stored)
+            .set("lastModified", new Date())
+            .inc("version", 1);
+
+    Query query = new Query(criteria);
+    // The caller already has the content; leaving the chunk list out skips reading it back.
+    query.fields().exclude("chunkIds");
+    FileData saved = mongoTemplate.findAndModify(query, update,
+            FindAndModifyOptions.options().returnNew(true), FileData.class);
+    if (saved == null) {
+      if (expectedVersion == null) {
+        return Optional.empty();
+      }
+      FileData current = mongoTemplate.findById(fileId, FileData.class);
+      if (current == null) {
+        return Optional.empty();
+      }
+      throw new VersionConflictException(current.getVersion());
+    }
+
+    eventPublisher.publishEvent(new FileChangedEvent(
+            saved.getId(), saved.getRepositoryId(), FileChangedEvent.Type.UPDATED));
+    return Optional.of(saved);
+  }
+
+  private static FileData withContent(FileData file, String content) {
+    file.setContent(content);
+    return file;
+  }
+}
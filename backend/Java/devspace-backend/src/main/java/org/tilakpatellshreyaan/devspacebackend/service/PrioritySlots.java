@@ -0,0 +1,93 @@
+package org.tilakpatellshreyaan.devspacebackend.service;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A counting semaphore that hands a released slot to the waiter with the highest priority,
+ * first come first served within a priority.
+ */
+final class PrioritySlots {
+  private static final class Waiter {
+    private final ExecutionPriority priority;
+    private final long sequence;
+    private final Condition ready;
+    private boolean granted;
+
+    private Waiter(ExecutionPriority priority, long sequence, Condition ready) {
+      this.priority = priority;
+      this.sequence = sequence;
+      this.ready = ready;
+    }
+  }
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final PriorityQueue<Waiter> waiters = new PriorityQueue<>(
+          Comparator.<Waiter, ExecutionPriority>comparing(waiter -> waiter.priority)
+                  .thenComparingLong(waiter -> waiter.sequence));
+  private final int slots;
+  private int available;
+  private long sequence;
+
+  PrioritySlots(int slots) {
+    this.slots = slots;
+    this.available = slots;
+  }
+
+  void acquire(ExecutionPriority priority) throws InterruptedException {
+    lock.lock();
+    try {
+      if (available > 0 && waiters.isEmpty()) {
+        available--;
+        return;
+      }
+      Waiter waiter = new Waiter(priority, sequence++, lock.newCondition());
+      waiters.add(waiter);
+      try {
+        while (!waiter.granted) {
+          waiter.ready.await();
+        }
+      } catch (InterruptedException e) {
+        if (waiter.granted) {
+          // The slot arrived together with the interrupt; pass it on instead of losing it.
+          handOver();
+        } else {
+          waiters.remove(waiter);
+        }
+        throw e;
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  void release() {
+    lock.lock();
+    try {
+      handOver();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  int inUse() {
+    lock.lock();
+    try {
+      return slots - available;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void handOver() {
+    Waiter next = waiters.poll();
+    if (next == null) {
+      available++;
+    } else {
+      next.granted = true;
+      next.ready.signal();
+    }
+  }
+}
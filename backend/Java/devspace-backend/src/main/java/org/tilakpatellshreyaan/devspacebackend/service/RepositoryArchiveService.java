@@ -0,0 +1,262 @@
+package org.tilakpatellshreyaan.devspacebackend.service;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import org.tilakpatellshreyaan.devspacebackend.model.FileData;
+import org.tilakpatellshreyaan.devspacebackend.repository.FileContentStore;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Imports and exports a whole repository as a zip archive. Both directions stream: an import
+ * stores each entry's content chunk by chunk as it is read and writes the file documents in bulk,
+ * and an export copies one chunk at a time from Mongo to the response.
+ */
+@Slf4j
+@Service
+public class RepositoryArchiveService {
+  public record ImportResult(int created, int updated, long bytes) {
+  }
+
+  private record PendingFile(String filename, String existingId) {
+  }
+
+  private final MongoTemplate mongoTemplate;
+  private final FileContentStore contentStore;
+  private final ArchiveProperties properties;
+  private final ApplicationEventPublisher eventPublisher;
+
+  public RepositoryArchiveService(MongoTemplate mongoTemplate, FileContentStore contentStore,
+                                  ArchiveProperties properties, ApplicationEventPublisher eventPublisher) {
+    this.mongoTemplate = mongoTemplate;
+    this.contentStore = contentStore;
+    this.properties = properties;
+    this.eventPublisher = eventPublisher;
+  }
+
+  /**
+   * Adds every file in the archive to the repository, replacing the content of files that already
+   * exist under the same name. Batches are written as they fill up, so a failed import leaves the
+   * files before the failure in place; importing the same archive again is safe.
+   *
+   * @throws ArchiveTooLargeException if the archive has too many files or one that is too large
+   */
+  public ImportResult importZip(ObjectId repositoryId, InputStream archive) throws IOException {
+    Map<String, String> existingIds = existingFileIds(repositoryId);
+    String repoId = repositoryId.toHexString();
+    long maxFileSize = properties.getMaxFileSize().toBytes();
+    List<PendingFile> batch = new ArrayList<>();
+    BulkOperations bulk = null;
+    int entries = 0;
+    int created = 0;
+    int updated = 0;
+    long bytes = 0;
+
+    ZipInputStream zip = new ZipInputStream(archive, StandardCharsets.UTF_8);
+    ZipEntry entry;
+    while ((entry = zip.getNextEntry()) != null) {
+      String filename = normalize(entry.getName());
+      if (entry.isDirectory() || filename == null) {
+        continue;
+      }
+      if (++entries > properties.getMaxEntries()) {
+        throw new ArchiveTooLargeException("Archive has more than " + properties.getMaxEntries() + " files");
+      }
+
+      FileContentStore.StoredContent stored = contentStore.write(new LimitedInputStream(zip, maxFileSize, filename));
+      bytes += stored.size();
+      if (bulk == null) {
+        bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, FileData.class);
+      }
+      // The equality criteria become the new document's fields when nothing matches. Two imports
+      // racing on the same new name can still insert it twice; see the index note on FileData.
+      Query query = new Query(Criteria.where("repositoryId").is(repositoryId).and("filename").is(filename));
+      Update update = FileContentStore.contentUpdate(stored)
+              .setOnInsert("language", language(filename))
+              .set("lastModified", new Date())
+              .inc("version", 1);
+      bulk.upsert(query, update);
+      batch.add(new PendingFile(filename, existingIds.get(filename)));
+
+      if (batch.size() == properties.getBatchSize()) {
+        int inserted = flush(bulk, batch, repoId);
+        created += inserted;
+        updated += batch.size() - inserted;
+        bulk = null;
+        batch.clear();
+      }
+    }
+    if (bulk != null) {
+      int inserted = flush(bulk, batch, repoId);
+      created += inserted;
+      updated += batch.size() - inserted;
+    }
+    return new ImportResult(created, updated, bytes);
+  }
+
+  /**
+   * Writes every file of the repository to {@code out} as a zip archive, in id order.
+   */
+  public void exportZip(ObjectId repositoryId, OutputStream out) throws IOException {
+    Query query = new Query(Criteria.where("repositoryId").is(repositoryId))
+            .with(Sort.by("_id"));
+    query.fields().include("filename").include("chunkIds").include("content");
+    query.cursorBatchSize(properties.getBatchSize());
+
+    ZipOutputStream zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+    Set<String> written = new HashSet<>();
+    // Raw documents, so entity callbacks do not pull each file's whole content into memory.
+    try (Stream<Document> files = mongoTemplate.stream(query, Document.class,
+            mongoTemplate.getCollectionName(FileData.class))) {
+      for (Document file : (Iterable<Document>) files::iterator) {
+        String filename = normalize(file.getString("filename"));
+        if (filename == null || !written.add(filename)) {
+          log.debug("Leaving file {} out of the export of repository {}", file.get("_id"), repositoryId);
+          continue;
+        }
+        zip.putNextEntry(new ZipEntry(filename));
+        try (InputStream content = openContent(file)) {
+          content.transferTo(zip);
+        }
+        zip.closeEntry();
+      }
+    }
+    zip.finish();
+  }
+
+  private int flush(BulkOperations bulk, List<PendingFile> batch, String repositoryId) {
+    BulkWriteResult result = bulk.execute();
+    Map<Integer, String> insertedIds = new HashMap<>();
+    for (BulkWriteUpsert upsert : result.getUpserts()) {
+      insertedIds.put(upsert.getIndex(), upsert.getId().asObjectId().getValue().toHexString());
+    }
+    for (int i = 0; i < batch.size(); i++) {
+      String insertedId = insertedIds.get(i);
+      String fileId = insertedId != null ? insertedId : batch.get(i).existingId();
+      if (fileId != null) {
+        eventPublisher.publishEvent(new FileChangedEvent(fileId, repositoryId,
+                insertedId != null ? FileChangedEvent.Type.CREATED : FileChangedEvent.Type.UPDATED));
+      }
+    }
+    return insertedIds.size();
+  }
+
+  private Map<String, String> existingFileIds(ObjectId repositoryId) {
+    Query query = new Query(Criteria.where("repositoryId").is(repositoryId));
+    query.fields().include("filename");
+    Map<String, String> ids = new HashMap<>();
+    for (Document file : mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(FileData.class))) {
+      ids.putIfAbsent(file.getString("filename"), file.getObjectId("_id").toHexString());
+    }
+    return ids;
+  }
+
+  private InputStream openContent(Document file) {
+    List<String> chunkIds = file.getList("chunkIds", String.class);
+    if (chunkIds != null) {
+      return contentStore.openStream(chunkIds);
+    }
+    String legacy = file.getString("content");
+    return new ByteArrayInputStream((legacy == null ? "" : legacy).getBytes(StandardCharsets.UTF_8));
+  }
+
+  // Archive paths are kept as relative, slash-separated file names; metadata folders are skipped.
+  static String normalize(String name) {
+    if (name == null) {
+      return null;
+    }
+    String filename = name.replace('\\', '/');
+    while (filename.startsWith("/") || filename.startsWith("./")) {
+      filename = filename.substring(filename.startsWith("/") ? 1 : 2);
+    }
+    if (filename.isEmpty() || filename.startsWith("__MACOSX/")) {
+      return null;
+    }
+    // Any parent segment could point outside the repository once the archive is extracted again.
+    for (String segment : filename.split("/")) {
+      if (segment.equals("..")) {
+        return null;
+      }
+    }
+    return filename;
+  }
+
+  // Same convention as the editor: the extension doubles as the language.
+  private static String language(String filename) {
+    String basename = filename.substring(filename.lastIndexOf('/') + 1);
+    int dot = basename.lastIndexOf('.');
+    return dot < 0 || dot == basename.length() - 1 ? "text" : basename.substring(dot + 1);
+  }
+
+  /**
+   * Reads one archive entry, failing once it goes past the size limit and never closing the
+   * archive underneath.
+   */
+  private static final class LimitedInputStream extends FilterInputStream {
+    private final long limit;
+    private final String filename;
+    private long read;
+
+    LimitedInputStream(InputStream in, long limit, String filename) {
+      super(in);
+      this.limit = limit;
+      this.filename = filename;
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = super.read();
+      if (b != -1) {
+        count(1);
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int n = super.read(b, off, len);
+      if (n > 0) {
+        count(n);
+      }
+      return n;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private void count(int n) {
+      read += n;
+      if (read > limit) {
+        throw new ArchiveTooLargeException(filename + " is larger than " + limit + " bytes");
+      }
+    }
+  }
+}
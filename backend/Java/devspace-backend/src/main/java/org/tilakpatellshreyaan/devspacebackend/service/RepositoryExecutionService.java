@@ -0,0 +1,179 @@
+package org.tilakpatellshreyaan.devspacebackend.service;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.ArrayOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.aggregation.StringOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import org.tilakpatellshreyaan.devspacebackend.executor.ExecutorUnavailableException;
+import org.tilakpatellshreyaan.devspacebackend.model.ExecutionJob;
+import org.tilakpatellshreyaan.devspacebackend.model.ExecutionSelector;
+import org.tilakpatellshreyaan.devspacebackend.model.FileData;
+import org.tilakpatellshreyaan.devspacebackend.repository.FileContentStore;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Runs a selection of a repository's files as one batch job. The selector becomes a single query
+ * on the repository's files index, the filename glob included, so files that are not selected are
+ * never loaded. Both batch limits are checked against that query's metadata before any content is
+ * read; the contents are then fetched with one query on the chunks collection.
+ */
+@Service
+public class RepositoryExecutionService {
+  private final MongoTemplate mongoTemplate;
+  private final FileContentStore contentStore;
+  private final ExecutionJobService executionJobService;
+  private final ExecutionProperties properties;
+
+  public RepositoryExecutionService(MongoTemplate mongoTemplate, FileContentStore contentStore,
+                                    ExecutionJobService executionJobService, ExecutionProperties properties) {
+    this.mongoTemplate = mongoTemplate;
+    this.contentStore = contentStore;
+    this.executionJobService = executionJobService;
+    this.properties = properties;
+  }
+
+  /**
+   * Queues the selected files of the repository as one batch job.
+   *
+   * @throws IllegalArgumentException if the selector is malformed, matches nothing or matches
+   *                                  more than a batch may hold
+   * @throws ExecutorUnavailableException if no executor connection is open
+   * @throws ExecutionRejectedException if admission control turns the execution away
+   */
+  public ExecutionJob submit(ObjectId repositoryId, ExecutionSelector selector, String caller,
+                             ExecutionPriority priority) throws ExecutorUnavailableException {
+    List<Document> selected = select(repositoryId, selector);
+    if (selected.isEmpty()) {
+      throw new IllegalArgumentException("No files match the selector");
+    }
+    long bytes = selected.stream().mapToLong(file -> ((Number) file.get("size")).longValue()).sum();
+    if (bytes > properties.getMaxBatchSize().toBytes()) {
+      throw new IllegalArgumentException("Selected files hold " + bytes + " bytes, more than the limit of "
+              + properties.getMaxBatchSize().toBytes());
+    }
+    return executionJobService.submitBatch(repositoryId.toHexString(), load(repositoryId, selected), caller, priority);
+  }
+
+  // Metadata of the selected files: filename, language, chunkIds and size, never content.
+  private List<Document> select(ObjectId repositoryId, ExecutionSelector selector) {
+    Criteria criteria = Criteria.where("repositoryId").is(repositoryId);
+    if (selector.getFileIds() != null) {
+      List<ObjectId> ids = selector.getFileIds().stream().map(id -> {
+        if (!ObjectId.isValid(id)) {
+          throw new IllegalArgumentException("Invalid file ID format: " + id);
+        }
+        return new ObjectId(id);
+      }).toList();
+      criteria = criteria.and("_id").in(ids);
+    }
+    if (selector.getPattern() != null && !selector.getPattern().isBlank()) {
+      criteria = criteria.and("filename").regex(globToRegex(selector.getPattern()));
+    }
+    if (selector.getLanguage() != null && !selector.getLanguage().isBlank()) {
+      criteria = criteria.and("language").is(selector.getLanguage());
+    }
+
+    int maxFiles = properties.getMaxBatchFiles();
+    // One more than allowed, to tell a full batch from an oversized one. Files not yet moved to
+    // chunked storage have no stored size; theirs is measured inside Mongo.
+    Aggregation aggregation = Aggregation.newAggregation(
+            Aggregation.match(criteria),
+            Aggregation.sort(Sort.Direction.ASC, "_id"),
+            Aggregation.limit(maxFiles + 1),
+            Aggregation.project("filename", "language", "chunkIds")
+                    .and(ConditionalOperators.when(ArrayOperators.IsArray.isArray("chunkIds"))
+                            .thenValueOf("size")
+                            .otherwiseValueOf(StringOperators.valueOf(
+                                    ConditionalOperators.ifNull("content").then("")).length()))
+                    .as("size")
+    );
+    List<Document> files = mongoTemplate.aggregate(aggregation, mongoTemplate.getCollectionName(FileData.class),
+            Document.class).getMappedResults();
+    if (files.size() > maxFiles) {
+      throw new IllegalArgumentException("Selector matches more than " + maxFiles + " files");
+    }
+    return files;
+  }
+
+  private List<FileData> load(ObjectId repositoryId, List<Document> selected) {
+    Set<String> chunkIds = new LinkedHashSet<>();
+    List<Object> legacyIds = new ArrayList<>();
+    for (Document file : selected) {
+      List<String> fileChunks = file.getList("chunkIds", String.class);
+      if (fileChunks != null) {
+        chunkIds.addAll(fileChunks);
+      } else {
+        legacyIds.add(file.get("_id"));
+      }
+    }
+    Map<String, byte[]> chunks = chunkIds.isEmpty() ? Map.of() : contentStore.loadAll(chunkIds);
+    Map<Object, String> legacyContent = new HashMap<>();
+    if (!legacyIds.isEmpty()) {
+      Query query = new Query(Criteria.where("_id").in(legacyIds));
+      query.fields().include("content");
+      mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(FileData.class))
+              .forEach(file -> legacyContent.put(file.get("_id"), file.getString("content")));
+    }
+
+    List<FileData> files = new ArrayList<>(selected.size());
+    for (Document selectedFile : selected) {
+      Object id = selectedFile.get("_id");
+      List<String> fileChunks = selectedFile.getList("chunkIds", String.class);
+      FileData file = new FileData();
+      file.setId(id instanceof ObjectId objectId ? objectId.toHexString() : String.valueOf(id));
+      file.setRepositoryId(repositoryId.toHexString());
+      file.setFilename(selectedFile.getString("filename"));
+      file.setLanguage(selectedFile.getString("language"));
+      file.setChunkIds(fileChunks);
+      file.setSize(((Number) selectedFile.get("size")).longValue());
+      file.setContent(fileChunks != null
+              ? FileContentStore.readString(fileChunks, chunks)
+              : legacyContent.getOrDefault(id, ""));
+      files.add(file);
+    }
+    return files;
+  }
+
+  // Anchored regex for a filename glob; everything except *, ** and ? matches literally.
+  static Pattern globToRegex(String glob) {
+    StringBuilder regex = new StringBuilder("^");
+    StringBuilder literal = new StringBuilder();
+    for (int i = 0; i < glob.length(); i++) {
+      char c = glob.charAt(i);
+      if (c != '*' && c != '?') {
+        literal.append(c);
+        continue;
+      }
+      if (!literal.isEmpty()) {
+        regex.append(Pattern.quote(literal.toString()));
+        literal.setLength(0);
+      }
+      if (c == '?') {
+        regex.append("[^/]");
+      } else if (i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+        regex.append(".*");
+        i++;
+      } else {
+        regex.append("[^/]*");
+      }
+    }
+    if (!literal.isEmpty()) {
+      regex.append(Pattern.quote(literal.toString()));
+    }
+    return Pattern.compile(regex.append('$').toString());
+  }
+}
@@ -0,0 +1,84 @@
+package org.tilakpatellshreyaan.devspacebackend.service;
+
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.stereotype.Service;
+import org.tilakpatellshreyaan.devspacebackend.cleanup.CleanupService;
+import org.tilakpatellshreyaan.devspacebackend.model.Tombstone;
+import org.tilakpatellshreyaan.devspacebackend.model.User;
+import org.tilakpatellshreyaan.devspacebackend.repository.UserRepository;
+
+import java.util.Optional;
+
+/**
+ * Read-through cache in front of {@link UserRepository} for the dashboard and profile pages.
+ * Sizes and expiry come from {@code spring.cache.caffeine.spec}. Every write to a user goes through
+ * here so all of that user's entries are evicted together.
+ *
+ * <p>Cached users are shared between requests and must not be modified; load a fresh copy from
+ * the repository to change one.
+ */
+@Service
+public class UserProfileService {
+  public static final String USERS = "users";
+  public static final String USER_STATS = "userStats";
+  public static final String USER_PROJECTS = "userProjects";
+
+  private final UserRepository userRepository;
+  private final CleanupService cleanupService;
+
+  public UserProfileService(UserRepository userRepository, CleanupService cleanupService) {
+    this.userRepository = userRepository;
+    this.cleanupService = cleanupService;
+  }
+
+  @Cacheable(cacheNames = USERS, unless = "#result == null")
+  public Optional<User> findUser(String userId) {
+    return userRepository.findById(userId);
+  }
+
+  // The sub-resource lookups return a user with only that list loaded.
+  @Cacheable(cacheNames = USER_STATS, unless = "#result == null")
+  public Optional<User> findStats(String userId) {
+    return userRepository.findStatsById(userId);
+  }
+
+  @Cacheable(cacheNames = USER_PROJECTS, unless = "#result == null")
+  public Optional<User> findProjects(String userId) {
+    return userRepository.findProjectsById(userId);
+  }
+
+  @Caching(evict = {
+          @CacheEvict(cacheNames = USERS, key = "#p0"),
+          @CacheEvict(cacheNames = USER_STATS, key = "#p0"),
+          @CacheEvict(cacheNames = USER_PROJECTS, key = "#p0")
+  })
+  public Optional<User> update(String userId, User updatedUser) {
+    Optional<User> userOpt = userRepository.findById(userId);
+    userOpt.ifPresent(user -> {
+      user.setUsername(updatedUser.getUsername());
+      user.setEmail(updatedUser.getEmail());
+      user.setAvatarUrl(updatedUser.getAvatarUrl());
+      user.setStats(updatedUser.getStats());
+      user.setProjects(updatedUser.getProjects());
+      userRepository.save(user);
+    });
+    return userOpt;
+  }
+
+  @Caching(evict = {
+          @CacheEvict(cacheNames = USERS, key = "#p0"),
+          @CacheEvict(cacheNames = USER_STATS, key = "#p0"),
+          @CacheEvict(cacheNames = USER_PROJECTS, key = "#p0")
+  })
+  public boolean delete(String userId) {
+    if (!userRepository.existsById(userId)) {
+      return false;
+    }
+    userRepository.deleteById(userId);
+    // Owned repositories, collaborator entries and activities are removed in the background.
+    cleanupService.enqueue(Tombstone.Kind.USER, userId);
+    return true;
+  }
+}
@@ -0,0 +1,13 @@
+package org.tilakpatellshreyaan.devspacebackend.service;
+
+import lombok.Getter;
+
+@Getter
+public class VersionConflictException extends RuntimeException {
+  private final long currentVersion;
+
+  public VersionConflictException(long currentVersion) {
+    super("File was modified concurrently; current version is " + currentVersion);
+    this.currentVersion = currentVersion;
+  }
+}
@@ -0,0 +1,70 @@
+package org.tilakpatellshreyaan.devspacebackend.auth;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SessionTokensTest {
+  private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+
+  private static AuthProperties properties(String secret) {
+    AuthProperties properties = new AuthProperties();
+    properties.setMode(AuthProperties.Mode.TOKEN);
+    properties.setSecret(Base64.getEncoder().encodeToString(secret.getBytes()));
+    properties.setTtl(Duration.ofHours(1));
+    return properties;
+  }
+
+  private static SessionTokens tokens(String secret, Instant now) {
+    return new SessionTokens(properties(secret), Clock.fixed(now, ZoneOffset.UTC));
+  }
+
+  @Test
+  void issuedTokenVerifiesOnAnotherNodeWithTheSameSecret() {
+    String token = tokens("shared-secret", NOW).issue("65a1f0c2e4b0a1b2c3d4e5f6");
+
+    assertEquals(Optional.of("65a1f0c2e4b0a1b2c3d4e5f6"), tokens("shared-secret", NOW).verify(token));
+    assertEquals(Optional.of("65a1f0c2e4b0a1b2c3d4e5f6"),
+            tokens("shared-secret", NOW).resolve("Bearer " + token, null));
+  }
+
+  @Test
+  void rejectsForgedTamperedAndMalformedTokens() {
+    String token = tokens("shared-secret", NOW).issue("alice");
+    SessionTokens verifier = tokens("shared-secret", NOW);
+
+    assertTrue(tokens("other-secret", NOW).verify(token).isEmpty());
+    String payload = Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(("mallory." + NOW.plusSeconds(3600).getEpochSecond()).getBytes());
+    assertTrue(verifier.verify(payload + token.substring(token.indexOf('.'))).isEmpty());
+    assertTrue(verifier.verify("not-a-token").isEmpty());
+    assertTrue(verifier.verify("a.b.c").isEmpty());
+    assertTrue(verifier.verify("%%%.%%%").isEmpty());
+  }
+
+  @Test
+  void expiredTokensAreRejectedEvenWhenCached() {
+    String token = tokens("shared-secret", NOW).issue("alice");
+
+    assertTrue(tokens("shared-secret", NOW.plus(Duration.ofHours(2))).verify(token).isEmpty());
+    SessionTokens sameNode = tokens("shared-secret", NOW.plus(Duration.ofMinutes(59)));
+    assertEquals(Optional.of("alice"), sameNode.verify(token));
+  }
+
+  @Test
+  void tokenModeRequiresASecret() {
+    AuthProperties properties = properties("x");
+    properties.setSecret(null);
+
+    assertThrows(IllegalStateException.class, () -> new SessionTokens(properties));
+  }
+}
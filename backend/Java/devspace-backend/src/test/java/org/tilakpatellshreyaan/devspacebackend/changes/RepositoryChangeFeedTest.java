@@ -0,0 +1,73 @@
+package org.tilakpatellshreyaan.devspacebackend.changes;
+
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.tilakpatellshreyaan.devspacebackend.model.FileData;
+import org.tilakpatellshreyaan.devspacebackend.service.FileChangedEvent;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Writes files straight to Mongo, as another instance would, and checks that watchers of the
+ * repository hear about each change. The container runs a single-node replica set, which change
+ * streams need.
+ */
+@SpringBootTest
+@Testcontainers(disabledWithoutDocker = true)
+class RepositoryChangeFeedTest {
+  @Container
+  @ServiceConnection
+  static MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+
+  @Autowired
+  private MongoTemplate mongoTemplate;
+  @Autowired
+  private RepositoryChangeFeed changeFeed;
+
+  @Test
+  void watchersReceiveFileChangesMadeDirectlyInMongo() throws Exception {
+    String repositoryId = new ObjectId().toHexString();
+    BlockingQueue<RepositoryChange> received = new LinkedBlockingQueue<>();
+    changeFeed.subscribe(repositoryId, new RepositoryChangeFeed.Subscriber() {
+      @Override
+      public void send(RepositoryChange change) {
+        received.add(change);
+      }
+
+      @Override
+      public void close() {
+      }
+    });
+    // The tail thread starts after the context is ready; give it a moment to open the cursor.
+    Thread.sleep(2000);
+
+    FileData file = new FileData();
+    file.setFilename("main.py");
+    file.setRepositoryId(repositoryId);
+    file.setContent("print('hi')");
+    file = mongoTemplate.save(file);
+    mongoTemplate.remove(file);
+
+    RepositoryChange created = received.poll(10, TimeUnit.SECONDS);
+    assertNotNull(created);
+    assertEquals(FileChangedEvent.Type.CREATED, created.type());
+    assertEquals(file.getId(), created.fileId());
+    assertEquals("main.py", created.filename());
+
+    RepositoryChange deleted = received.poll(10, TimeUnit.SECONDS);
+    assertNotNull(deleted);
+    assertEquals(FileChangedEvent.Type.DELETED, deleted.type());
+  }
+}
@@ -0,0 +1,109 @@
+package org.tilakpatellshreyaan.devspacebackend.cleanup;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.tilakpatellshreyaan.devspacebackend.model.CodeRepository;
+import org.tilakpatellshreyaan.devspacebackend.model.ContentChunk;
+import org.tilakpatellshreyaan.devspacebackend.model.FileData;
+import org.tilakpatellshreyaan.devspacebackend.model.Tombstone;
+import org.tilakpatellshreyaan.devspacebackend.model.User;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+@SpringBootTest(properties = "devspace.cleanup.batch-size=2")
+@Testcontainers(disabledWithoutDocker = true)
+class CleanupServiceTest {
+  @Container
+  @ServiceConnection
+  static MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+
+  @Autowired
+  private MongoTemplate mongoTemplate;
+  @Autowired
+  private CleanupService cleanupService;
+  @Autowired
+  private OrphanSweeper orphanSweeper;
+
+  @Test
+  void deletedUserCascadesToRepositoriesFilesAndCollaboratorEntries() throws Exception {
+    User owner = mongoTemplate.save(new User());
+    User collaborator = mongoTemplate.save(new User());
+    CodeRepository owned = repository(owner.getId(), List.of());
+    CodeRepository shared = repository(new ObjectId().toHexString(), List.of(owner.getId(), collaborator.getId()));
+    for (int i = 0; i < 5; i++) {
+      file(owned.getId(), "f" + i + ".py");
+    }
+    file(shared.getId(), "kept.py");
+
+    mongoTemplate.remove(owner);
+    cleanupService.enqueue(Tombstone.Kind.USER, owner.getId());
+
+    awaitEmpty(Tombstone.class);
+    assertFalse(mongoTemplate.exists(new Query(where("_id").is(owned.getId())), CodeRepository.class));
+    assertEquals(0, mongoTemplate.count(new Query(where("repositoryId").is(new ObjectId(owned.getId()))), FileData.class));
+    assertEquals(1, mongoTemplate.count(new Query(where("repositoryId").is(new ObjectId(shared.getId()))), FileData.class));
+    assertEquals(List.of(collaborator.getId()),
+            mongoTemplate.findById(shared.getId(), CodeRepository.class).getCollaboratorIds());
+  }
+
+  @Test
+  void sweeperQueuesOrphanedFilesAndRemovesOnlyUnreferencedOldChunks() throws Exception {
+    String goneRepositoryId = new ObjectId().toHexString();
+    file(goneRepositoryId, "orphan.py");
+    Date old = new Date(System.currentTimeMillis() - 86_400_000L);
+    FileData kept = file(repository(new ObjectId().toHexString(), List.of()).getId(), "kept.py");
+    String referenced = kept.getChunkIds().get(0);
+    mongoTemplate.getCollection("file_chunks").updateOne(new Document("_id", referenced),
+            new Document("$set", new Document("touchedAt", old)));
+    mongoTemplate.getCollection("file_chunks").insertOne(new Document("_id", "unreferenced")
+            .append("data", new byte[]{1}).append("size", 1).append("touchedAt", old));
+    mongoTemplate.getCollection("file_chunks").insertOne(new Document("_id", "just-written")
+            .append("data", new byte[]{2}).append("size", 1).append("touchedAt", new Date()));
+
+    orphanSweeper.sweep();
+    awaitEmpty(Tombstone.class);
+
+    assertEquals(0, mongoTemplate.count(new Query(where("repositoryId").is(new ObjectId(goneRepositoryId))), FileData.class));
+    assertTrue(mongoTemplate.exists(new Query(where("_id").is(referenced)), ContentChunk.class));
+    assertTrue(mongoTemplate.exists(new Query(where("_id").is("just-written")), ContentChunk.class));
+    assertFalse(mongoTemplate.exists(new Query(where("_id").is("unreferenced")), ContentChunk.class));
+  }
+
+  private CodeRepository repository(String ownerId, List<String> collaboratorIds) {
+    CodeRepository repository = new CodeRepository();
+    repository.setOwnerId(ownerId);
+    repository.setCollaboratorIds(collaboratorIds);
+    return mongoTemplate.save(repository);
+  }
+
+  private FileData file(String repositoryId, String filename) {
+    FileData file = new FileData();
+    file.setFilename(filename);
+    file.setRepositoryId(repositoryId);
+    file.setContent("print('" + filename + "')");
+    return mongoTemplate.save(file);
+  }
+
+  private void awaitEmpty(Class<?> entity) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 30_000;
+    while (mongoTemplate.count(new Query(), entity) > 0 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(100);
+    }
+    assertEquals(0, mongoTemplate.count(new Query(), entity));
+  }
+}
@@ -0,0 +1,50 @@
+package org.tilakpatellshreyaan.devspacebackend.controller;
+
+import org.junit.jupiter.api.Test;
+import org.tilakpatellshreyaan.devspacebackend.model.FileData;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ETagsTest {
+  private static FileData metadata(String contentHash, long version) {
+    FileData file = new FileData();
+    file.setId("65a1f0c2e4b0a1b2c3d4e5f6");
+    file.setFilename("main.cu");
+    file.setContentHash(contentHash);
+    file.setVersion(version);
+    return file;
+  }
+
+  @Test
+  void fileTagFollowsContentAndVersion() {
+    String tag = ETags.file(metadata("abc", 3));
+
+    assertEquals(tag, ETags.file(metadata("abc", 3)));
+    assertNotEquals(tag, ETags.file(metadata("abc", 4)));
+    assertNotEquals(tag, ETags.file(metadata("abd", 3)));
+    assertNotEquals(tag, ETags.content(metadata("abc", 3)));
+    assertTrue(tag.startsWith("\"") && tag.endsWith("\""));
+  }
+
+  @Test
+  void filesWithoutContentHashHaveNoTag() {
+    assertNull(ETags.file(metadata(null, 0)));
+    assertNull(ETags.content(metadata(null, 0)));
+    assertFalse(ETags.matches("*", null));
+  }
+
+  @Test
+  void ifNoneMatchUsesWeakComparisonOverLists() {
+    String tag = ETags.of("x");
+
+    assertTrue(ETags.matches(tag, tag));
+    assertTrue(ETags.matches("\"other\", W/" + tag, tag));
+    assertTrue(ETags.matches("*", tag));
+    assertFalse(ETags.matches("\"other\"", tag));
+    assertFalse(ETags.matches(null, tag));
+  }
+}
@@ -0,0 +1,89 @@
+package org.tilakpatellshreyaan.devspacebackend.executor;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.java_websocket.enums.Opcode;
+import org.junit.jupiter.api.Test;
+import org.tilakpatellshreyaan.devspacebackend.load.StubExecutor;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExecutorWireFormatTest {
+  // Larger than several fragments, so the binary path has to reassemble it
+  private static final String SOURCE = "int main() { return 0; }\n".repeat(12_000);
+
+  @Test
+  void binaryExecutorGetsFragmentedCborAndRepliesInKind() throws Exception {
+    StubExecutor executor = roundTrip(true);
+    assertEquals(Opcode.BINARY, executor.lastRequestOpcode());
+    assertTrue(executor.lastRequestFragments() > 1, "fragments: " + executor.lastRequestFragments());
+  }
+
+  @Test
+  void jsonOnlyExecutorStillWorks() throws Exception {
+    StubExecutor executor = roundTrip(false);
+    assertEquals(Opcode.TEXT, executor.lastRequestOpcode());
+    assertEquals(1, executor.lastRequestFragments());
+  }
+
+  private static StubExecutor roundTrip(boolean binary) throws Exception {
+    StubExecutor executor = new StubExecutor(Duration.ZERO, 3, binary);
+    URI endpoint = executor.start(Duration.ofSeconds(10));
+    ExecutorProperties properties = new ExecutorProperties();
+    properties.setEndpoints(List.of(endpoint));
+    properties.setConnectionsPerEndpoint(1);
+    ExecutorPool pool = new ExecutorPool(properties, new ObjectMapper(), new SimpleMeterRegistry());
+    try {
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+      while (pool.openConnections() == 0 && System.nanoTime() < deadline) {
+        Thread.sleep(20);
+      }
+      assertEquals(1, pool.openConnections());
+
+      ObjectNode payload = new ObjectMapper().createObjectNode()
+              .put("filename", "main.cpp").put("language", "cpp").put("content", SOURCE);
+      List<JsonNode> replies = new CopyOnWriteArrayList<>();
+      CompletableFuture<JsonNode> terminal = new CompletableFuture<>();
+      pool.submit(payload, new ExecutorListener() {
+        @Override
+        public void onReply(JsonNode message) {
+          replies.add(message);
+          if (ExecutorPool.isTerminal(message)) {
+            terminal.complete(message);
+          }
+        }
+
+        @Override
+        public void onFailure(Throwable error) {
+          terminal.completeExceptionally(error);
+        }
+      });
+
+      assertEquals(0, terminal.get(10, TimeUnit.SECONDS).path("exit_code").asInt());
+      assertEquals(4, replies.size());
+      assertEquals(SOURCE, executor.lastRequest().path("content").asText());
+      assertTrue(executor.lastRequest().hasNonNull("requestId"));
+      // Decoders stop after the first value, so equal content alone would not catch trailing bytes.
+      int sent = binary
+              ? new CBORMapper().writeValueAsBytes(payload).length
+              : new ObjectMapper().writeValueAsString(payload).getBytes(StandardCharsets.UTF_8).length;
+      assertEquals(sent, executor.lastRequestBytes());
+      return executor;
+    } finally {
+      pool.close();
+      executor.stop();
+    }
+  }
+}
@@ -0,0 +1,248 @@
+package org.tilakpatellshreyaan.devspacebackend.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.tilakpatellshreyaan.devspacebackend.DevspaceBackendApplication;
+import org.tilakpatellshreyaan.devspacebackend.executor.ExecutorPool;
+import org.tilakpatellshreyaan.devspacebackend.model.CodeRepository;
+import org.tilakpatellshreyaan.devspacebackend.model.FileData;
+import org.tilakpatellshreyaan.devspacebackend.model.User;
+
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the application against a Mongo container and a {@link StubExecutor}, and has
+ * {@code load.users} simulated users sign in and then list, read, save and execute files for
+ * {@code load.seconds}. Throughput and p50/p99 latency per endpoint are logged at the end.
+ * Run with {@code mvn test -Pload}; the other {@code load.*} system properties below tune the run.
+ */
+@Tag("load")
+@Testcontainers(disabledWithoutDocker = true)
+class EndToEndLoadTest {
+  private static final Logger log = LoggerFactory.getLogger(EndToEndLoadTest.class);
+  private static final ObjectMapper JSON = new ObjectMapper();
+
+  private static final int USERS = Integer.getInteger("load.users", 50);
+  private static final int SECONDS = Integer.getInteger("load.seconds", 60);
+  private static final int FILES = Integer.getInteger("load.files", 100);
+  private static final Duration EXECUTOR_LATENCY = Duration.ofMillis(Integer.getInteger("load.executor-latency-ms", 200));
+  private static final int OUTPUT_CHUNKS = Integer.getInteger("load.output-chunks", 5);
+  // Off by default so executions reach the stub instead of the result cache
+  private static final boolean RESULT_CACHE = Boolean.getBoolean("load.result-cache");
+  // Off by default so the run measures the system rather than the per-user execution rate limit
+  private static final boolean RATE_LIMIT = Boolean.getBoolean("load.rate-limit");
+  private static final double MAX_ERROR_RATE = 0.01;
+
+  @Container
+  static MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+
+  private record Fixture(String repositoryId, List<String> fileIds) {
+  }
+
+  @Test
+  void mixedWorkload() throws Exception {
+    StubExecutor executor = new StubExecutor(EXECUTOR_LATENCY, OUTPUT_CHUNKS);
+    URI executorUri = executor.start(Duration.ofSeconds(10));
+    try (ConfigurableApplicationContext context = new SpringApplicationBuilder(DevspaceBackendApplication.class)
+            .properties(
+                    "server.port=0",
+                    "spring.data.mongodb.uri=" + mongo.getReplicaSetUrl("load"),
+                    "devspace.executor.endpoints=" + executorUri,
+                    "devspace.execution.cache.enabled=" + RESULT_CACHE,
+                    "devspace.execution.rate-limit.enabled=" + RATE_LIMIT)
+            .run()) {
+      awaitExecutor(context.getBean(ExecutorPool.class));
+      Fixture fixture = seed(context.getBean(MongoTemplate.class));
+      URI base = URI.create("http://127.0.0.1:" + context.getEnvironment().getRequiredProperty("local.server.port"));
+
+      LatencyRecorder recorder = new LatencyRecorder();
+      long deadline = System.nanoTime() + Duration.ofSeconds(SECONDS).toNanos();
+      long started = System.nanoTime();
+      try (ExecutorService users = Executors.newVirtualThreadPerTaskExecutor()) {
+        List<Future<?>> running = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+          String username = "load-user-" + i;
+          running.add(users.submit(() -> {
+            new SimulatedUser(base, username, fixture, recorder).run(deadline);
+            return null;
+          }));
+        }
+        for (Future<?> user : running) {
+          user.get();
+        }
+      }
+      double seconds = (System.nanoTime() - started) / 1e9;
+
+      List<LatencyRecorder.Summary> summaries = recorder.summarize(seconds);
+      log.info("{} users for {}s, executor latency {}ms, {} executor requests:{}", USERS, SECONDS,
+              EXECUTOR_LATENCY.toMillis(), executor.requests(), LatencyRecorder.format(summaries));
+      for (LatencyRecorder.Summary summary : summaries) {
+        assertTrue(summary.errors() <= summary.count() * MAX_ERROR_RATE,
+                summary.endpoint() + " failed " + summary.errors() + " of " + summary.count() + " requests");
+      }
+    } finally {
+      executor.stop();
+    }
+  }
+
+  private static void awaitExecutor(ExecutorPool pool) throws InterruptedException {
+    long deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+    while (pool.openConnections() == 0) {
+      if (System.nanoTime() > deadline) {
+        throw new IllegalStateException("The application never connected to the stub executor");
+      }
+      Thread.sleep(100);
+    }
+  }
+
+  private static Fixture seed(MongoTemplate mongoTemplate) {
+    String ownerId = null;
+    for (int i = 0; i < USERS; i++) {
+      User user = new User();
+      user.setUsername("load-user-" + i);
+      user.setEmail("load-user-" + i + "@example.com");
+      User saved = mongoTemplate.insert(user);
+      if (ownerId == null) {
+        ownerId = saved.getId();
+      }
+    }
+
+    String repositoryId = new ObjectId().toHexString();
+    List<FileData> files = new ArrayList<>();
+    for (int i = 0; i < FILES; i++) {
+      FileData file = new FileData();
+      file.setFilename("src/module" + i + ".py");
+      file.setLanguage("python");
+      file.setRepositoryId(repositoryId);
+      file.setContent("def f" + i + "():\n    return " + i + "\n\nprint(f" + i + "())\n");
+      files.add(file);
+    }
+    List<String> fileIds = mongoTemplate.insertAll(files).stream().map(FileData::getId).toList();
+
+    CodeRepository repository = new CodeRepository();
+    repository.setId(repositoryId);
+    repository.setRepositoryName("load-test");
+    repository.setOwnerId(ownerId);
+    repository.setFileIds(fileIds);
+    mongoTemplate.insert(repository);
+    return new Fixture(repositoryId, fileIds);
+  }
+
+  /**
+   * One browser session: signs in once, then picks an action by weight until the deadline. An
+   * execution counts as one request for the submit and one for the time until the job finished.
+   */
+  private static final class SimulatedUser {
+    private final URI base;
+    private final String username;
+    private final Fixture fixture;
+    private final LatencyRecorder recorder;
+    private final HttpClient http;
+
+    SimulatedUser(URI base, String username, Fixture fixture, LatencyRecorder recorder) {
+      this.base = base;
+      this.username = username;
+      this.fixture = fixture;
+      this.recorder = recorder;
+      this.http = HttpClient.newBuilder().cookieHandler(new CookieManager()).build();
+    }
+
+    void run(long deadline) throws InterruptedException {
+      call("POST /api/auth/signin", post("/api/auth/signin", JSON.createObjectNode()
+              .put("username", username).put("password", "load").toString()));
+      while (System.nanoTime() < deadline) {
+        String fileId = fixture.fileIds().get(ThreadLocalRandom.current().nextInt(fixture.fileIds().size()));
+        int roll = ThreadLocalRandom.current().nextInt(100);
+        if (roll < 40) {
+          call("GET tree", get("/api/files/repositories/" + fixture.repositoryId() + "/tree?limit=100"));
+        } else if (roll < 65) {
+          call("GET file", get("/api/files/" + fileId));
+        } else if (roll < 75) {
+          call("GET accessible", get("/api/repositories/accessible"));
+        } else if (roll < 90) {
+          call("PUT file", HttpRequest.newBuilder(base.resolve("/api/files/" + fileId))
+                  .header("Content-Type", "application/json")
+                  .PUT(HttpRequest.BodyPublishers.ofString(JSON.createObjectNode()
+                          .put("content", "print('" + username + " " + System.nanoTime() + "')\n").toString()))
+                  .build());
+        } else {
+          execute(fileId);
+        }
+      }
+    }
+
+    private void execute(String fileId) throws InterruptedException {
+      long started = System.nanoTime();
+      JsonNode submitted = call("POST execute", post("/api/files/" + fileId + "/execute", ""));
+      if (submitted == null) {
+        recorder.record("execute (finished)", System.nanoTime() - started, false);
+        return;
+      }
+      String jobId = submitted.path("jobId").asText();
+      while (true) {
+        JsonNode job = send(get("/api/files/jobs/" + jobId));
+        String state = job == null ? "FAILED" : job.path("state").asText();
+        if (!"QUEUED".equals(state) && !"RUNNING".equals(state)) {
+          recorder.record("execute (finished)", System.nanoTime() - started, "COMPLETED".equals(state));
+          return;
+        }
+        Thread.sleep(20);
+      }
+    }
+
+    // Sends the request and records it; returns the JSON body of a 2xx response, otherwise null.
+    private JsonNode call(String endpoint, HttpRequest request) {
+      long started = System.nanoTime();
+      JsonNode body = send(request);
+      recorder.record(endpoint, System.nanoTime() - started, body != null);
+      return body;
+    }
+
+    private JsonNode send(HttpRequest request) {
+      try {
+        HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() / 100 != 2) {
+          return null;
+        }
+        return JSON.readTree(response.body());
+      } catch (Exception e) {
+        return null;
+      }
+    }
+
+    private HttpRequest get(String path) {
+      return HttpRequest.newBuilder(base.resolve(path)).GET().build();
+    }
+
+    private HttpRequest post(String path, String json) {
+      return HttpRequest.newBuilder(base.resolve(path))
+              .header("Content-Type", "application/json")
+              .POST(HttpRequest.BodyPublishers.ofString(json))
+              .build();
+    }
+  }
+}
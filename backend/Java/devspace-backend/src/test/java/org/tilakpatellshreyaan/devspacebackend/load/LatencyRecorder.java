@@ -0,0 +1,58 @@
+package org.tilakpatellshreyaan.devspacebackend.load;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-endpoint latencies and failures of a load run, reported as throughput and percentiles.
+ */
+class LatencyRecorder {
+  record Summary(String endpoint, int count, long errors, double perSecond, double p50Millis, double p99Millis,
+                 double maxMillis) {
+  }
+
+  private final Map<String, Queue<Long>> latencies = new ConcurrentSkipListMap<>();
+  private final Map<String, AtomicLong> errors = new ConcurrentHashMap<>();
+
+  void record(String endpoint, long nanos, boolean success) {
+    latencies.computeIfAbsent(endpoint, e -> new ConcurrentLinkedQueue<>()).add(nanos);
+    if (!success) {
+      errors.computeIfAbsent(endpoint, e -> new AtomicLong()).incrementAndGet();
+    }
+  }
+
+  List<Summary> summarize(double seconds) {
+    List<Summary> summaries = new ArrayList<>();
+    latencies.forEach((endpoint, samples) -> {
+      long[] sorted = samples.stream().mapToLong(Long::longValue).toArray();
+      Arrays.sort(sorted);
+      long failed = errors.getOrDefault(endpoint, new AtomicLong()).get();
+      summaries.add(new Summary(endpoint, sorted.length, failed, sorted.length / seconds,
+              percentile(sorted, 0.50), percentile(sorted, 0.99), sorted[sorted.length - 1] / 1e6));
+    });
+    return summaries;
+  }
+
+  static String format(List<Summary> summaries) {
+    StringBuilder table = new StringBuilder(String.format("%n%-28s %8s %7s %9s %9s %9s %9s%n",
+            "endpoint", "count", "errors", "req/s", "p50 ms", "p99 ms", "max ms"));
+    for (Summary s : summaries) {
+      table.append(String.format("%-28s %8d %7d %9.1f %9.2f %9.2f %9.2f%n",
+              s.endpoint(), s.count(), s.errors(), s.perSecond(), s.p50Millis(), s.p99Millis(), s.maxMillis()));
+    }
+    return table.toString();
+  }
+
+  // Nearest-rank percentile, in milliseconds.
+  private static double percentile(long[] sorted, double quantile) {
+    int rank = (int) Math.ceil(quantile * sorted.length);
+    return sorted[Math.max(0, rank - 1)] / 1e6;
+  }
+}
@@ -0,0 +1,271 @@
+package org.tilakpatellshreyaan.devspacebackend.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.java_websocket.WebSocket;
+import org.java_websocket.WebSocketImpl;
+import org.java_websocket.drafts.Draft;
+import org.java_websocket.drafts.Draft_6455;
+import org.java_websocket.enums.Opcode;
+import org.java_websocket.exceptions.InvalidDataException;
+import org.java_websocket.extensions.IExtension;
+import org.java_websocket.extensions.permessage_deflate.PerMessageDeflateExtension;
+import org.java_websocket.framing.Framedata;
+import org.java_websocket.handshake.ClientHandshake;
+import org.java_websocket.protocols.IProtocol;
+import org.java_websocket.protocols.Protocol;
+import org.java_websocket.server.WebSocketServer;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Stands in for an executor node. It answers every request the way the Jetson service does, with
+ * {@code outputChunks} output messages followed by a {@code complete} status, after
+ * {@code latency}. Requests on one connection are answered concurrently, as the real one does.
+ * A batch request gets that output and a {@code file_complete} for each of its files first.
+ * With {@code binary} set it also accepts the CBOR subprotocol and permessage-deflate, as the
+ * current executor does; without it, it behaves like an executor that only speaks JSON text.
+ * The frame type and fragment count of the latest request are recorded for wire-format tests.
+ */
+public class StubExecutor extends WebSocketServer {
+  private static final String BINARY_PROTOCOL = "devspace.cbor.v1";
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final CBORMapper cborMapper = new CBORMapper();
+  private final ScheduledExecutorService replies = Executors.newScheduledThreadPool(2);
+  private final CountDownLatch started = new CountDownLatch(1);
+  private final AtomicLong requests = new AtomicLong();
+  private final Duration latency;
+  private final int outputChunks;
+  private final FrameLog frames;
+  private volatile JsonNode lastRequest;
+  private volatile int lastRequestBytes;
+
+  public StubExecutor(Duration latency, int outputChunks) {
+    this(latency, outputChunks, true);
+  }
+
+  public StubExecutor(Duration latency, int outputChunks, boolean binary) {
+    this(latency, outputChunks, binary, new FrameLog());
+  }
+
+  private StubExecutor(Duration latency, int outputChunks, boolean binary, FrameLog frames) {
+    super(new InetSocketAddress("127.0.0.1", 0), List.of(draft(binary, frames)));
+    this.latency = latency;
+    this.outputChunks = outputChunks;
+    this.frames = frames;
+    setReuseAddr(true);
+  }
+
+  private static Draft draft(boolean binary, FrameLog frames) {
+    List<IExtension> extensions = new ArrayList<>();
+    List<IProtocol> protocols = new ArrayList<>();
+    if (binary) {
+      extensions.add(new PerMessageDeflateExtension());
+      protocols.add(new Protocol(BINARY_PROTOCOL));
+    }
+    protocols.add(new Protocol(""));
+    return new RecordingDraft(extensions, protocols, frames);
+  }
+
+  public URI start(Duration timeout) throws InterruptedException {
+    start();
+    if (!started.await(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+      throw new IllegalStateException("Stub executor did not start");
+    }
+    return URI.create("ws://127.0.0.1:" + getPort() + "/ws");
+  }
+
+  public long requests() {
+    return requests.get();
+  }
+
+  // The most recent request, decoded from whichever format it arrived in
+  public JsonNode lastRequest() {
+    return lastRequest;
+  }
+
+  // Size of the most recent request as delivered, after reassembly and decompression
+  public int lastRequestBytes() {
+    return lastRequestBytes;
+  }
+
+  // TEXT or BINARY: the opcode of the first frame of the most recent request
+  public Opcode lastRequestOpcode() {
+    return frames.opcode;
+  }
+
+  // How many frames the most recent request arrived in
+  public int lastRequestFragments() {
+    return frames.fragments;
+  }
+
+  @Override
+  public void onStart() {
+    started.countDown();
+  }
+
+  @Override
+  public void onOpen(WebSocket socket, ClientHandshake handshake) {
+  }
+
+  @Override
+  public void onMessage(WebSocket socket, String message) {
+    lastRequestBytes = message.getBytes(StandardCharsets.UTF_8).length;
+    try {
+      answer(socket, objectMapper.readTree(message));
+    } catch (IOException e) {
+      // Malformed requests get no answer.
+    }
+  }
+
+  @Override
+  public void onMessage(WebSocket socket, ByteBuffer message) {
+    lastRequestBytes = message.remaining();
+    try {
+      answer(socket, cborMapper.readTree(new ByteBufferBackedInputStream(message)));
+    } catch (IOException e) {
+      // Malformed requests get no answer.
+    }
+  }
+
+  private void answer(WebSocket socket, JsonNode request) {
+    requests.incrementAndGet();
+    lastRequest = request;
+    String requestId;
+    List<String> batchFileIds = new ArrayList<>();
+    try {
+      requestId = request.path("requestId").asText(null);
+      if ("batch".equals(request.path("type").asText())) {
+        byte[] compressed = Base64.getDecoder().decode(request.path("files").asText());
+        JsonNode files = objectMapper.readTree(new InflaterInputStream(new ByteArrayInputStream(compressed)));
+        files.forEach(file -> batchFileIds.add(file.path("fileId").asText()));
+      }
+    } catch (IOException | IllegalArgumentException e) {
+      return;
+    }
+    replies.schedule(() -> {
+      if (batchFileIds.isEmpty()) {
+        sendOutput(socket, requestId, null);
+      }
+      for (String fileId : batchFileIds) {
+        sendOutput(socket, requestId, fileId);
+        send(socket, reply(requestId).put("type", "file_complete").put("fileId", fileId).put("exit_code", 0));
+      }
+      send(socket, reply(requestId).put("type", "status").put("status", "complete").put("exit_code", 0));
+    }, latency.toNanos(), TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public void onClose(WebSocket socket, int code, String reason, boolean remote) {
+  }
+
+  @Override
+  public void onError(WebSocket socket, Exception e) {
+  }
+
+  @Override
+  public void stop() throws InterruptedException {
+    replies.shutdownNow();
+    super.stop();
+  }
+
+  private void sendOutput(WebSocket socket, String requestId, String fileId) {
+    for (int i = 0; i < outputChunks; i++) {
+      ObjectNode reply = reply(requestId).put("type", "output").put("data", "line " + i + "\n");
+      if (fileId != null) {
+        reply.put("fileId", fileId);
+      }
+      send(socket, reply);
+    }
+  }
+
+  private ObjectNode reply(String requestId) {
+    ObjectNode reply = objectMapper.createObjectNode();
+    if (requestId != null) {
+      reply.put("requestId", requestId);
+    }
+    return reply;
+  }
+
+  private void send(WebSocket socket, ObjectNode reply) {
+    if (!socket.isOpen()) {
+      return;
+    }
+    if (socket.getProtocol() != null && BINARY_PROTOCOL.equals(socket.getProtocol().getProvidedProtocol())) {
+      try {
+        socket.send(cborMapper.writeValueAsBytes(reply));
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+    } else {
+      socket.send(reply.toString());
+    }
+  }
+
+  // Written by the connection's read thread before the message is delivered, read by the test after.
+  private static final class FrameLog {
+    private volatile Opcode opcode;
+    private volatile int fragments;
+    private Opcode pendingOpcode;
+    private int pendingFragments;
+
+    void record(Framedata frame) {
+      if (frame.getOpcode() == Opcode.TEXT || frame.getOpcode() == Opcode.BINARY) {
+        pendingOpcode = frame.getOpcode();
+        pendingFragments = 1;
+      } else if (frame.getOpcode() == Opcode.CONTINUOUS) {
+        pendingFragments++;
+      } else {
+        return;
+      }
+      if (frame.isFin()) {
+        opcode = pendingOpcode;
+        fragments = pendingFragments;
+      }
+    }
+  }
+
+  // Sees every frame before Draft_6455 reassembles fragments into a message.
+  private static final class RecordingDraft extends Draft_6455 {
+    private final FrameLog frames;
+
+    RecordingDraft(List<IExtension> extensions, List<IProtocol> protocols, FrameLog frames) {
+      super(extensions, protocols);
+      this.frames = frames;
+    }
+
+    @Override
+    public void processFrame(WebSocketImpl webSocket, Framedata frame) throws InvalidDataException {
+      frames.record(frame);
+      super.processFrame(webSocket, frame);
+    }
+
+    @Override
+    public Draft copyInstance() {
+      List<IExtension> extensions = new ArrayList<>();
+      getKnownExtensions().forEach(extension -> extensions.add(extension.copyInstance()));
+      List<IProtocol> protocols = new ArrayList<>();
+      getKnownProtocols().forEach(protocol -> protocols.add(protocol.copyInstance()));
+      return new RecordingDraft(extensions, protocols, frames);
+    }
+  }
+}
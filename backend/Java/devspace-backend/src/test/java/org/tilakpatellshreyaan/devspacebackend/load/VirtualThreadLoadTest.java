@@ -0,0 +1,125 @@
+package org.tilakpatellshreyaan.devspacebackend.load;
+
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.tilakpatellshreyaan.devspacebackend.DevspaceBackendApplication;
+import org.tilakpatellshreyaan.devspacebackend.model.FileData;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Drives the file tree endpoint with many concurrent clients, once on Tomcat's platform thread
+ * pool and once on virtual threads, and logs the throughput of each. The Tomcat pool is kept
+ * small so it, rather than the Mongo pool, is what limits the platform-thread run.
+ * Run with {@code mvn test -Pload}.
+ */
+@Tag("load")
+@Testcontainers(disabledWithoutDocker = true)
+class VirtualThreadLoadTest {
+  private static final Logger log = LoggerFactory.getLogger(VirtualThreadLoadTest.class);
+  private static final int CLIENTS = 400;
+  private static final int REQUESTS_PER_CLIENT = 50;
+  private static final int WARMUP_REQUESTS = 2_000;
+  private static final int TOMCAT_THREADS = 32;
+  private static final int FILES = 200;
+
+  private record Result(double requestsPerSecond, int errors) {
+  }
+
+  @Container
+  static MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+
+  @Test
+  void compareThroughput() throws Exception {
+    Result platform = run(false);
+    Result virtual = run(true);
+    log.info("Platform threads: {} req/s, virtual threads: {} req/s ({}x)",
+            Math.round(platform.requestsPerSecond()), Math.round(virtual.requestsPerSecond()),
+            String.format("%.2f", virtual.requestsPerSecond() / platform.requestsPerSecond()));
+    assertEquals(0, platform.errors(), "failed requests on platform threads");
+    assertEquals(0, virtual.errors(), "failed requests on virtual threads");
+  }
+
+  private Result run(boolean virtualThreads) throws Exception {
+    try (ConfigurableApplicationContext context = new SpringApplicationBuilder(DevspaceBackendApplication.class)
+            .properties(
+                    "server.port=0",
+                    "spring.data.mongodb.uri=" + mongo.getReplicaSetUrl("load"),
+                    "spring.threads.virtual.enabled=" + virtualThreads,
+                    "server.tomcat.threads.max=" + TOMCAT_THREADS,
+                    "devspace.mongo.pool.max-size=200")
+            .run()) {
+      String repositoryId = seed(context.getBean(MongoTemplate.class));
+      int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+      URI uri = URI.create("http://127.0.0.1:" + port + "/api/files/repositories/" + repositoryId + "/tree?limit=50");
+
+      try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+           HttpClient http = HttpClient.newBuilder().executor(clients).build()) {
+        drive(http, clients, uri, 100, WARMUP_REQUESTS / 100);
+        long started = System.nanoTime();
+        int errors = drive(http, clients, uri, CLIENTS, REQUESTS_PER_CLIENT);
+        double seconds = (System.nanoTime() - started) / 1e9;
+        return new Result(CLIENTS * REQUESTS_PER_CLIENT / seconds, errors);
+      }
+    }
+  }
+
+  // Each client sends its requests one after another; returns the number that did not get a 200.
+  private static int drive(HttpClient http, ExecutorService clients, URI uri, int clientCount, int requests)
+          throws Exception {
+    AtomicInteger errors = new AtomicInteger();
+    HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+    List<Future<?>> running = new ArrayList<>();
+    for (int i = 0; i < clientCount; i++) {
+      running.add(clients.submit(() -> {
+        for (int r = 0; r < requests; r++) {
+          try {
+            if (http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() != 200) {
+              errors.incrementAndGet();
+            }
+          } catch (Exception e) {
+            errors.incrementAndGet();
+          }
+        }
+      }));
+    }
+    for (Future<?> client : running) {
+      client.get();
+    }
+    return errors.get();
+  }
+
+  private static String seed(MongoTemplate mongoTemplate) {
+    String repositoryId = new ObjectId().toHexString();
+    List<FileData> files = new ArrayList<>();
+    for (int i = 0; i < FILES; i++) {
+      FileData file = new FileData();
+      file.setFilename("file" + i + ".py");
+      file.setRepositoryId(repositoryId);
+      file.setContent("print(" + i + ")\n");
+      files.add(file);
+    }
+    mongoTemplate.insertAll(files);
+    return repositoryId;
+  }
+}
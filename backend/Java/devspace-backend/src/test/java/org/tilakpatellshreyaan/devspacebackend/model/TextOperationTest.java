@@ -0,0 +1,74 @@
+package org.tilakpatellshreyaan.devspacebackend.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TextOperationTest {
+
+  @Test
+  void appliesRetainInsertDelete() {
+    TextOperation operation = TextOperation.of(List.of(6, "there", -5, 1));
+    assertEquals("Hello there!", operation.apply("Hello world!"));
+  }
+
+  @Test
+  void rejectsOperationForDifferentLength() {
+    TextOperation operation = TextOperation.of(List.of(3, "x"));
+    assertThrows(IllegalArgumentException.class, () -> operation.apply("four"));
+  }
+
+  @Test
+  void concurrentInsertsAtSamePositionKeepFirstOperandFirst() {
+    TextOperation a = TextOperation.of(List.of(2, "A", 1));
+    TextOperation b = TextOperation.of(List.of(2, "B", 1));
+    TextOperation[] transformed = TextOperation.transform(a, b);
+    assertEquals("abABc", transformed[0].apply(b.apply("abc")));
+    assertEquals("abABc", transformed[1].apply(a.apply("abc")));
+  }
+
+  @Test
+  void transformConvergesForRandomOperations() {
+    Random random = new Random(42);
+    for (int i = 0; i < 500; i++) {
+      String document = randomString(random, random.nextInt(20));
+      TextOperation a = randomOperation(random, document);
+      TextOperation b = randomOperation(random, document);
+      TextOperation[] transformed = TextOperation.transform(a, b);
+      assertEquals(transformed[1].apply(a.apply(document)), transformed[0].apply(b.apply(document)));
+    }
+  }
+
+  private static TextOperation randomOperation(Random random, String document) {
+    TextOperation operation = new TextOperation();
+    int remaining = document.length();
+    while (remaining > 0) {
+      int n = 1 + random.nextInt(remaining);
+      switch (random.nextInt(3)) {
+        case 0 -> operation.retain(n);
+        case 1 -> operation.delete(n);
+        default -> {
+          operation.insert(randomString(random, 1 + random.nextInt(4)));
+          continue;
+        }
+      }
+      remaining -= n;
+    }
+    if (random.nextBoolean()) {
+      operation.insert(randomString(random, 1 + random.nextInt(4)));
+    }
+    return operation;
+  }
+
+  private static String randomString(Random random, int length) {
+    StringBuilder builder = new StringBuilder(length);
+    for (int i = 0; i < length; i++) {
+      builder.append((char) ('a' + random.nextInt(26)));
+    }
+    return builder.toString();
+  }
+}
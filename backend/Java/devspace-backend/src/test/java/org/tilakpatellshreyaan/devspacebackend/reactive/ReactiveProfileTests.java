@@ -0,0 +1,46 @@
+package org.tilakpatellshreyaan.devspacebackend.reactive;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+@SpringBootTest
+@AutoConfigureWebTestClient
+@ActiveProfiles("reactive")
+class ReactiveProfileTests {
+  @Autowired
+  private WebTestClient client;
+
+  @Test
+  void unknownJobIsNotFound() {
+    client.get().uri("/api/files/jobs/unknown").exchange()
+            .expectStatus().isNotFound()
+            .expectBody().jsonPath("$.error").isEqualTo("Job not found");
+  }
+
+  @Test
+  void invalidFileIdIsRejected() {
+    client.get().uri("/api/files/not-an-id").exchange()
+            .expectStatus().isBadRequest()
+            .expectBody().jsonPath("$.error").isEqualTo("Invalid file ID format");
+  }
+
+  @Test
+  void emptyUpdateBodiesAreRejected() {
+    client.put().uri("/api/files/{id}", "0123456789abcdef01234567").exchange()
+            .expectStatus().isBadRequest()
+            .expectBody().jsonPath("$.error").isEqualTo("Request body is required");
+    client.patch().uri("/api/files/{id}", "0123456789abcdef01234567").exchange()
+            .expectStatus().isBadRequest()
+            .expectBody().jsonPath("$.error").isEqualTo("Both version and ops are required");
+  }
+
+  @Test
+  void repositoryImportNeedsSession() {
+    client.post().uri("/api/repositories/{id}/import", "0123456789abcdef01234567").exchange()
+            .expectStatus().isUnauthorized();
+  }
+}
@@ -0,0 +1,256 @@
+package org.tilakpatellshreyaan.devspacebackend.repository;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.SimpleReactiveMongoDatabaseFactory;
+import org.springframework.data.mongodb.repository.support.ReactiveMongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.tilakpatellshreyaan.devspacebackend.config.MongoIndexReconciler;
+import org.tilakpatellshreyaan.devspacebackend.model.CodeRepository;
+import org.tilakpatellshreyaan.devspacebackend.model.FileData;
+import org.tilakpatellshreyaan.devspacebackend.model.User;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Runs every query method of the repositories against a real Mongo with the declared indexes,
+ * captures the commands they send and fails if any of them is planned as a collection scan.
+ * A query method added without an entry here fails the coverage check; the reactive profile's
+ * repositories are checked the same way.
+ */
+@SpringBootTest
+@Testcontainers(disabledWithoutDocker = true)
+class RepositoryQueryPlanTest {
+  private static final Set<String> QUERY_COMMANDS = Set.of("find", "aggregate", "count", "distinct", "findAndModify");
+  private static final ThreadLocal<String> CURRENT_METHOD = new ThreadLocal<>();
+  private static final Map<String, List<BsonDocument>> CAPTURED = new LinkedHashMap<>();
+
+  @Container
+  @ServiceConnection
+  static MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+
+  @TestConfiguration
+  static class CommandCapture {
+    @Bean
+    MongoClientSettingsBuilderCustomizer captureQueries() {
+      return settings -> settings.addCommandListener(new CommandListener() {
+        @Override
+        public void commandStarted(CommandStartedEvent event) {
+          String method = CURRENT_METHOD.get();
+          if (method != null && QUERY_COMMANDS.contains(event.getCommandName())) {
+            CAPTURED.computeIfAbsent(method, m -> new ArrayList<>()).add(event.getCommand().clone());
+          }
+        }
+      });
+    }
+  }
+
+  @Autowired
+  private MongoTemplate mongoTemplate;
+  @Autowired
+  private MongoIndexReconciler indexReconciler;
+  @Autowired
+  private CodeRepositoryRepository codeRepositoryRepository;
+  @Autowired
+  private FileDataRepository fileDataRepository;
+  @Autowired
+  private UserRepository userRepository;
+
+  private final ObjectId ownerId = new ObjectId();
+  private final ObjectId repositoryId = new ObjectId();
+  private ObjectId fileId;
+
+  @BeforeEach
+  void seedAndIndex() {
+    CodeRepository repo = new CodeRepository();
+    repo.setId(repositoryId.toHexString());
+    repo.setOwnerId(ownerId.toHexString());
+    repo.setCollaboratorIds(List.of(new ObjectId().toHexString()));
+    mongoTemplate.save(repo);
+
+    FileData file = new FileData();
+    file.setFilename("main.py");
+    file.setRepositoryId(repositoryId.toHexString());
+    file.setContent("print('hi')");
+    fileId = new ObjectId(mongoTemplate.save(file).getId());
+
+    User user = new User();
+    user.setUsername("query-plan");
+    mongoTemplate.save(user);
+
+    indexReconciler.reconcile();
+    CAPTURED.clear();
+  }
+
+  @Test
+  void repositoryQueriesUseIndexes() {
+    Map<String, Runnable> calls = new LinkedHashMap<>();
+    calls.put("findByOwnerId", () -> codeRepositoryRepository.findByOwnerId(ownerId.toHexString()));
+    calls.put("findByOwnerIdOrCollaboratorIdsContaining",
+            () -> codeRepositoryRepository.findByOwnerIdOrCollaboratorIdsContaining(
+                    ownerId.toHexString(), ownerId.toHexString()));
+    calls.put("findByRepositoryId", () -> fileDataRepository.findByRepositoryId(repositoryId.toHexString()));
+    calls.put("findSummariesByRepositoryId", () -> {
+      fileDataRepository.findSummariesByRepositoryId(repositoryId, null, 10);
+      fileDataRepository.findSummariesByRepositoryId(repositoryId, fileId, 10);
+    });
+    calls.put("findMetadataById", () -> fileDataRepository.findMetadataById(fileId));
+    calls.put("openContent", () -> fileDataRepository.openContent(fileId));
+    calls.put("findByUsername", () -> userRepository.findByUsername("query-plan"));
+    calls.put("findStatsById", () -> userRepository.findStatsById(ownerId.toHexString()));
+    calls.put("findProjectsById", () -> userRepository.findProjectsById(ownerId.toHexString()));
+
+    assertCovered(calls, CodeRepositoryRepository.class, FileDataRepository.class,
+            FileDataRepositoryCustom.class, UserRepository.class);
+
+    calls.forEach((method, call) -> {
+      CURRENT_METHOD.set(method);
+      try {
+        call.run();
+      } finally {
+        CURRENT_METHOD.remove();
+      }
+    });
+    assertNoCollectionScans(calls.keySet(), CAPTURED);
+  }
+
+  /**
+   * The reactive profile's repositories, built on their own reactive client so its commands can be
+   * captured. Replies arrive on driver threads, hence a plain field instead of the thread local;
+   * nothing else uses this client.
+   */
+  @Test
+  void reactiveRepositoryQueriesUseIndexes() {
+    Map<String, List<BsonDocument>> captured = new ConcurrentHashMap<>();
+    AtomicReference<String> currentMethod = new AtomicReference<>();
+    MongoClientSettings settings = MongoClientSettings.builder()
+            .applyConnectionString(new ConnectionString(mongo.getConnectionString()))
+            .addCommandListener(new CommandListener() {
+              @Override
+              public void commandStarted(CommandStartedEvent event) {
+                String method = currentMethod.get();
+                if (method != null && QUERY_COMMANDS.contains(event.getCommandName())) {
+                  captured.computeIfAbsent(method, m -> new CopyOnWriteArrayList<>()).add(event.getCommand().clone());
+                }
+              }
+            })
+            .build();
+    try (MongoClient client = MongoClients.create(settings)) {
+      ReactiveMongoTemplate template = new ReactiveMongoTemplate(
+              new SimpleReactiveMongoDatabaseFactory(client, mongoTemplate.getDb().getName()), mongoTemplate.getConverter());
+      ReactiveMongoRepositoryFactory factory = new ReactiveMongoRepositoryFactory(template);
+      ReactiveCodeRepositoryRepository reactiveCodeRepositoryRepository =
+              factory.getRepository(ReactiveCodeRepositoryRepository.class);
+      ReactiveFileDataRepository reactiveFileDataRepository = factory.getRepository(ReactiveFileDataRepository.class,
+              RepositoryComposition.RepositoryFragments.just(
+                      new ReactiveFileDataRepositoryImpl(template, new ReactiveFileContentStore(template))));
+
+      Map<String, Runnable> calls = new LinkedHashMap<>();
+      calls.put("findByOwnerId",
+              () -> reactiveCodeRepositoryRepository.findByOwnerId(ownerId.toHexString()).collectList().block());
+      calls.put("findByOwnerIdOrCollaboratorIdsContaining",
+              () -> reactiveCodeRepositoryRepository.findByOwnerIdOrCollaboratorIdsContaining(
+                      ownerId.toHexString(), ownerId.toHexString()).collectList().block());
+      calls.put("findByRepositoryId",
+              () -> reactiveFileDataRepository.findByRepositoryId(repositoryId.toHexString()).collectList().block());
+      calls.put("findSummariesByRepositoryId", () -> {
+        reactiveFileDataRepository.findSummariesByRepositoryId(repositoryId, null, 10).collectList().block();
+        reactiveFileDataRepository.findSummariesByRepositoryId(repositoryId, fileId, 10).collectList().block();
+      });
+      calls.put("findMetadataById", () -> reactiveFileDataRepository.findMetadataById(fileId).block());
+
+      assertCovered(calls, ReactiveCodeRepositoryRepository.class, ReactiveFileDataRepository.class,
+              ReactiveFileDataRepositoryCustom.class);
+
+      calls.forEach((method, call) -> {
+        currentMethod.set(method);
+        try {
+          call.run();
+        } finally {
+          currentMethod.set(null);
+        }
+      });
+      assertNoCollectionScans(calls.keySet(), captured);
+    }
+  }
+
+  private static void assertCovered(Map<String, Runnable> calls, Class<?>... repositories) {
+    for (Class<?> repository : repositories) {
+      for (Method method : repository.getDeclaredMethods()) {
+        assertTrue(calls.containsKey(method.getName()),
+                repository.getSimpleName() + "." + method.getName() + " has no query plan check");
+      }
+    }
+  }
+
+  private void assertNoCollectionScans(Set<String> methods, Map<String, List<BsonDocument>> captured) {
+    List<String> scans = new ArrayList<>();
+    methods.forEach(method -> {
+      List<BsonDocument> commands = captured.getOrDefault(method, List.of());
+      assertFalse(commands.isEmpty(), method + " sent no query to Mongo");
+      for (BsonDocument command : commands) {
+        Document plan = explain(command);
+        if (containsStage(plan, "COLLSCAN")) {
+          scans.add(method + ": " + command.toJson());
+        }
+      }
+    });
+    if (!scans.isEmpty()) {
+      fail("Queries planned as collection scans:\n" + String.join("\n", scans));
+    }
+  }
+
+  private Document explain(BsonDocument command) {
+    BsonDocument explainable = command.clone();
+    for (String driverField : Arrays.asList("$db", "lsid", "$clusterTime", "$readPreference", "txnNumber")) {
+      explainable.remove(driverField);
+    }
+    return mongoTemplate.getDb().runCommand(new Document("explain", explainable).append("verbosity", "queryPlanner"));
+  }
+
+  private static boolean containsStage(Object node, String stage) {
+    if (node instanceof Document document) {
+      if (stage.equals(document.get("stage"))) {
+        return true;
+      }
+      return document.values().stream().anyMatch(value -> containsStage(value, stage));
+    }
+    if (node instanceof List<?> list) {
+      return list.stream().anyMatch(value -> containsStage(value, stage));
+    }
+    return false;
+  }
+}
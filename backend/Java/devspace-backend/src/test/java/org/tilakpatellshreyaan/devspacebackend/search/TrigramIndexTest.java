@@ -0,0 +1,95 @@
+package org.tilakpatellshreyaan.devspacebackend.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrigramIndexTest {
+  private static List<SearchResult> search(TrigramIndex index, String regex, List<String> literals) {
+    return index.search(Pattern.compile(regex, Pattern.MULTILINE), literals, 10, 5,
+            System.nanoTime() + TimeUnit.SECONDS.toNanos(5));
+  }
+
+  @Test
+  void substringHitsAreRankedWithLinePositions() {
+    TrigramIndex index = new TrigramIndex();
+    index.put("a", "main.py", "import os\nprint(os.getcwd())\nprint(os.sep)\n");
+    index.put("b", "util/printer.py", "def printer():\n    print('x')\n");
+    index.put("c", "README.md", "nothing to see\n");
+
+    List<SearchResult> results = search(index, Pattern.quote("print("), List.of("print("));
+    assertEquals(List.of("a", "b"), results.stream().map(SearchResult::fileId).toList());
+    assertEquals(2, results.get(0).matches());
+    assertEquals(new SearchResult.Line(2, 1, "print(os.getcwd())"), results.get(0).lines().get(0));
+    assertEquals(new SearchResult.Line(2, 5, "    print('x')"), results.get(1).lines().get(0));
+
+    // A file whose name contains the query ranks first even with fewer matches.
+    List<SearchResult> byName = search(index, Pattern.quote("printer"), List.of("printer"));
+    assertEquals("b", byName.get(0).fileId());
+  }
+
+  @Test
+  void updatesAndRemovalsReachPostings() {
+    TrigramIndex index = new TrigramIndex();
+    index.put("a", "a.c", "int alpha;");
+    long weight = index.weight();
+    index.put("a", "a.c", "int beta;");
+    assertTrue(search(index, "alpha", List.of("alpha")).isEmpty());
+    assertEquals(1, search(index, "beta", List.of("beta")).size());
+
+    index.remove("a");
+    assertTrue(search(index, "beta", List.of("beta")).isEmpty());
+    assertEquals(0, index.weight());
+    assertTrue(weight > 0);
+  }
+
+  @Test
+  void regexLiteralsOnlyIncludeWhatEveryMatchContains() {
+    assertEquals(List.of("cudaMalloc(", "sizeof"),
+            TrigramIndex.requiredLiterals(Pattern.compile("cudaMalloc\\(.*sizeof")));
+    assertEquals(List.of("std::"), TrigramIndex.requiredLiterals(Pattern.compile("std::(vector|map)<")));
+    assertEquals(List.of("colo"), TrigramIndex.requiredLiterals(Pattern.compile("colou?r")));
+    assertEquals(List.of("int main"), TrigramIndex.requiredLiterals(Pattern.compile("^\\s*int main[(]")));
+    assertEquals(List.of(), TrigramIndex.requiredLiterals(Pattern.compile("foo|bar")));
+
+    TrigramIndex index = new TrigramIndex();
+    index.put("a", "k.cu", "cudaMalloc(&d, n * sizeof(float));");
+    index.put("b", "k2.cu", "cudaMalloc(&d, bytes);");
+    List<SearchResult> results = search(index, "cudaMalloc\\(.*sizeof",
+            TrigramIndex.requiredLiterals(Pattern.compile("cudaMalloc\\(.*sizeof")));
+    assertEquals(List.of("a"), results.stream().map(SearchResult::fileId).toList());
+  }
+
+  @Test
+  void escapesAndFlagsContributeNoLiterals() {
+    String content = "Abcd ababxyz foobar";
+    TrigramIndex index = new TrigramIndex();
+    index.put("a", "a.txt", content);
+    for (String regex : List.of("\\x41bcd", "\\u0041bcd", "(?<n>ab)\\k<n>xyz", "(?x)f o o bar", "(?i)ABCD",
+            "\\x{41}bcd", "\\0101bcd", "\\p{Lu}bcd", "\\N{LATIN CAPITAL LETTER A}bcd")) {
+      Pattern pattern = Pattern.compile(regex);
+      assertTrue(pattern.matcher(content).find(), regex);
+      for (String literal : TrigramIndex.requiredLiterals(pattern)) {
+        assertTrue(content.toLowerCase().contains(literal.toLowerCase()), regex + " -> " + literal);
+      }
+      assertEquals(1, search(index, regex, TrigramIndex.requiredLiterals(pattern)).size(), regex);
+    }
+    assertEquals(List.of("bcd"), TrigramIndex.requiredLiterals(Pattern.compile("\\x41bcd")));
+    assertEquals(List.of("bcd"), TrigramIndex.requiredLiterals(Pattern.compile("\\cAbcd")));
+    assertEquals(List.of(), TrigramIndex.requiredLiterals(Pattern.compile("foo bar", Pattern.COMMENTS)));
+  }
+
+  @Test
+  void runawayRegexIsAbandoned() {
+    TrigramIndex index = new TrigramIndex();
+    index.put("a", "a.txt", "a".repeat(40) + "!");
+    assertThrows(IllegalArgumentException.class, () -> index.search(Pattern.compile("(.*a){12}b"), List.of(), 10, 5,
+            System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(50)));
+  }
+}
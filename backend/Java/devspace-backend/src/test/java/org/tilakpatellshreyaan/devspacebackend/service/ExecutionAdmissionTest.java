@@ -0,0 +1,126 @@
+package org.tilakpatellshreyaan.devspacebackend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExecutionAdmissionTest {
+  private static ExecutionProperties properties() {
+    ExecutionProperties properties = new ExecutionProperties();
+    properties.setMaxConcurrentJobs(1);
+    properties.setMaxQueuedJobs(4);
+    properties.setMaxQueuedBatchJobs(2);
+    properties.setMaxJobsPerUser(10);
+    properties.getRateLimit().setEnabled(false);
+    return properties;
+  }
+
+  @Test
+  void rateLimitRejectsWithTimeUntilNextToken() {
+    ExecutionProperties properties = properties();
+    properties.getRateLimit().setEnabled(true);
+    properties.getRateLimit().setBurst(2);
+    properties.getRateLimit().setPerMinute(6);
+    ExecutionAdmission admission = new ExecutionAdmission(properties);
+
+    admission.admit("alice", ExecutionPriority.INTERACTIVE);
+    admission.admit("alice", ExecutionPriority.INTERACTIVE);
+    ExecutionRejectedException rejected = assertThrows(ExecutionRejectedException.class,
+            () -> admission.admit("alice", ExecutionPriority.INTERACTIVE));
+    assertTrue(rejected.getRetryAfter().compareTo(Duration.ofSeconds(9)) > 0);
+    assertEquals(10, rejected.retryAfterSeconds());
+    // Buckets are per caller.
+    admission.admit("bob", ExecutionPriority.INTERACTIVE);
+  }
+
+  @Test
+  void otherRejectionsDoNotSpendRateLimitTokens() {
+    ExecutionProperties properties = properties();
+    properties.setMaxJobsPerUser(1);
+    properties.getRateLimit().setEnabled(true);
+    properties.getRateLimit().setBurst(2);
+    properties.getRateLimit().setPerMinute(6);
+    ExecutionAdmission admission = new ExecutionAdmission(properties);
+
+    admission.admit("alice", ExecutionPriority.INTERACTIVE);
+    for (int i = 0; i < 3; i++) {
+      ExecutionRejectedException rejected = assertThrows(ExecutionRejectedException.class,
+              () -> admission.admit("alice", ExecutionPriority.INTERACTIVE));
+      assertEquals("Too many executions in progress", rejected.getMessage());
+    }
+    admission.release("alice");
+    admission.admit("alice", ExecutionPriority.INTERACTIVE);
+    admission.release("alice");
+    // A rate-limited run leaves neither a queue slot nor a per-user slot behind.
+    assertThrows(ExecutionRejectedException.class, () -> admission.admit("alice", ExecutionPriority.INTERACTIVE));
+    assertEquals(0, admission.outstanding());
+  }
+
+  @Test
+  void perUserLimitFreesUpOnRelease() {
+    ExecutionProperties properties = properties();
+    properties.setMaxJobsPerUser(1);
+    ExecutionAdmission admission = new ExecutionAdmission(properties);
+
+    admission.admit("alice", ExecutionPriority.INTERACTIVE);
+    assertThrows(ExecutionRejectedException.class, () -> admission.admit("alice", ExecutionPriority.INTERACTIVE));
+    assertEquals(1, admission.outstanding());
+    admission.release("alice");
+    admission.admit("alice", ExecutionPriority.INTERACTIVE);
+  }
+
+  @Test
+  void batchRunsLeaveQueueRoomForInteractiveRuns() {
+    ExecutionAdmission admission = new ExecutionAdmission(properties());
+
+    // One running plus two queued fills the batch share of the queue.
+    for (int i = 0; i < 3; i++) {
+      admission.admit("script" + i, ExecutionPriority.BATCH);
+    }
+    assertThrows(ExecutionRejectedException.class, () -> admission.admit("script", ExecutionPriority.BATCH));
+    admission.admit("alice", ExecutionPriority.INTERACTIVE);
+    admission.admit("bob", ExecutionPriority.INTERACTIVE);
+    assertThrows(ExecutionRejectedException.class, () -> admission.admit("carol", ExecutionPriority.INTERACTIVE));
+  }
+
+  @Test
+  void releasedSlotGoesToInteractiveWaiterFirst() throws InterruptedException {
+    PrioritySlots slots = new PrioritySlots(1);
+    slots.acquire(ExecutionPriority.BATCH);
+    List<ExecutionPriority> order = new CopyOnWriteArrayList<>();
+
+    Thread batch = Thread.ofVirtual().start(() -> acquireAndRecord(slots, ExecutionPriority.BATCH, order));
+    awaitWaiting(batch);
+    Thread interactive = Thread.ofVirtual().start(() -> acquireAndRecord(slots, ExecutionPriority.INTERACTIVE, order));
+    awaitWaiting(interactive);
+
+    slots.release();
+    batch.join(TimeUnit.SECONDS.toMillis(5));
+    interactive.join(TimeUnit.SECONDS.toMillis(5));
+    assertEquals(List.of(ExecutionPriority.INTERACTIVE, ExecutionPriority.BATCH), order);
+    assertEquals(0, slots.inUse());
+  }
+
+  private static void acquireAndRecord(PrioritySlots slots, ExecutionPriority priority, List<ExecutionPriority> order) {
+    try {
+      slots.acquire(priority);
+      order.add(priority);
+      slots.release();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void awaitWaiting(Thread thread) throws InterruptedException {
+    while (thread.getState() != Thread.State.WAITING) {
+      Thread.sleep(5);
+    }
+  }
+}
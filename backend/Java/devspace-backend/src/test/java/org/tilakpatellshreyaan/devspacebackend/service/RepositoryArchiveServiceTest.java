@@ -0,0 +1,20 @@
+package org.tilakpatellshreyaan.devspacebackend.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class RepositoryArchiveServiceTest {
+  @Test
+  void normalizeRejectsParentSegmentsAnywhere() {
+    assertEquals("src/main.py", RepositoryArchiveService.normalize("./src/main.py"));
+    assertEquals("src/main.py", RepositoryArchiveService.normalize("\\src\\main.py"));
+    assertEquals("src/..main.py", RepositoryArchiveService.normalize("src/..main.py"));
+    assertNull(RepositoryArchiveService.normalize("../etc/passwd"));
+    assertNull(RepositoryArchiveService.normalize("src/../../etc/passwd"));
+    assertNull(RepositoryArchiveService.normalize("src/.."));
+    assertNull(RepositoryArchiveService.normalize(".."));
+    assertNull(RepositoryArchiveService.normalize("__MACOSX/._main.py"));
+  }
+}
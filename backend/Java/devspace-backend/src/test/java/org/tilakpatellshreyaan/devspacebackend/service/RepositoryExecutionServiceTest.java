@@ -0,0 +1,60 @@
+package org.tilakpatellshreyaan.devspacebackend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+import org.tilakpatellshreyaan.devspacebackend.model.FileData;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RepositoryExecutionServiceTest {
+  @Test
+  void globMatchesWithinAndAcrossDirectories() {
+    Pattern tests = RepositoryExecutionService.globToRegex("tests/*.py");
+    assertTrue(tests.matcher("tests/test_main.py").matches());
+    assertFalse(tests.matcher("tests/unit/test_main.py").matches());
+    assertFalse(tests.matcher("tests/main.pyc").matches());
+
+    Pattern anywhere = RepositoryExecutionService.globToRegex("**/main?.c");
+    assertTrue(anywhere.matcher("src/lib/main2.c").matches());
+    assertFalse(anywhere.matcher("src/main.c").matches());
+    // Regex metacharacters in the glob are literal.
+    assertFalse(RepositoryExecutionService.globToRegex("a.b").matcher("axb").matches());
+  }
+
+  @Test
+  void batchPayloadInflatesToEveryFile() throws IOException {
+    List<FileData> files = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      FileData file = new FileData();
+      file.setId("file-" + i);
+      file.setFilename("main" + i + ".py");
+      file.setLanguage("python");
+      file.setContent("print(" + i + ")\n".repeat(100));
+      files.add(file);
+    }
+
+    ObjectNode payload = ExecutionJobService.batchPayload(files);
+    assertEquals("batch", payload.path("type").asText());
+    assertEquals(3, payload.path("count").asInt());
+    byte[] compressed = Base64.getDecoder().decode(payload.path("files").asText());
+    JsonNode entries = new ObjectMapper().readTree(new InflaterInputStream(new ByteArrayInputStream(compressed)));
+    assertEquals(3, entries.size());
+    for (int i = 0; i < 3; i++) {
+      assertEquals("file-" + i, entries.get(i).path("fileId").asText());
+      assertEquals(files.get(i).getContent(), entries.get(i).path("content").asText());
+    }
+    assertTrue(compressed.length < files.get(0).getContent().length());
+  }
+}
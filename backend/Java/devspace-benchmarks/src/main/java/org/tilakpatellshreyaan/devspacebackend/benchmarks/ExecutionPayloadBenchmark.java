@@ -0,0 +1,60 @@
+package org.tilakpatellshreyaan.devspacebackend.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.tilakpatellshreyaan.devspacebackend.model.FileData;
+import org.tilakpatellshreyaan.devspacebackend.service.ExecutionJobService;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the executor request for {@code POST /api/files/{id}/execute}: the tree built by
+ * {@link ExecutionJobService#payload}, then that tree written out as the WebSocket message, as
+ * JSON text for older executors and as CBOR for those that negotiate binary frames.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExecutionPayloadBenchmark {
+  @Param({"1024", "262144"})
+  public int contentBytes;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final CBORMapper cborMapper = new CBORMapper();
+  private FileData file;
+
+  @Setup
+  public void setUp() {
+    file = Fixtures.file(contentBytes);
+  }
+
+  @Benchmark
+  public Object payloadTree() {
+    return ExecutionJobService.payload(file);
+  }
+
+  @Benchmark
+  public String payloadMessage() throws JsonProcessingException {
+    return objectMapper.writeValueAsString(ExecutionJobService.payload(file));
+  }
+
+  @Benchmark
+  public byte[] payloadCbor() throws JsonProcessingException {
+    return cborMapper.writeValueAsBytes(ExecutionJobService.payload(file));
+  }
+}
@@ -0,0 +1,110 @@
+package org.tilakpatellshreyaan.devspacebackend.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bson.types.ObjectId;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.tilakpatellshreyaan.devspacebackend.model.Activity;
+import org.tilakpatellshreyaan.devspacebackend.model.CodeRepository;
+import org.tilakpatellshreyaan.devspacebackend.model.FileData;
+import org.tilakpatellshreyaan.devspacebackend.model.Project;
+import org.tilakpatellshreyaan.devspacebackend.model.Skill;
+import org.tilakpatellshreyaan.devspacebackend.model.Stat;
+import org.tilakpatellshreyaan.devspacebackend.model.User;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+// Deterministic documents shaped like production data, sized by the benchmark parameters.
+final class Fixtures {
+  private Fixtures() {
+  }
+
+  // Configured like the mapper Spring Boot gives the controllers.
+  static ObjectMapper objectMapper() {
+    return Jackson2ObjectMapperBuilder.json().build();
+  }
+
+  static FileData file(int contentBytes) {
+    StringBuilder content = new StringBuilder(contentBytes);
+    int line = 0;
+    while (content.length() < contentBytes) {
+      content.append("print(\"line ").append(line++).append("\")  # éè \"quoted\"\n");
+    }
+    content.setLength(contentBytes);
+
+    FileData file = new FileData();
+    file.setId(new ObjectId().toHexString());
+    file.setFilename("src/main.py");
+    file.setLanguage("python");
+    file.setRepositoryId(new ObjectId().toHexString());
+    file.setContent(content.toString());
+    file.setSize(contentBytes);
+    file.setLastModified(new Date(0));
+    file.setVersion(42);
+    return file;
+  }
+
+  static User user(int projects) {
+    User user = new User();
+    user.setId(new ObjectId().toHexString());
+    user.setUsername("benchmark");
+    user.setEmail("benchmark@example.com");
+    user.setAvatarUrl("https://example.com/avatar.png");
+    user.setLocation("Atlanta, GA");
+    user.setTitle("Software Engineer");
+    user.setStats(List.of(
+            Stat.builder().title("Repositories").value("24").icon("repo").change(3).build(),
+            Stat.builder().title("Commits").value("1,204").icon("commit").change(null).build()));
+    user.setSkills(List.of(new Skill("Java", 90), new Skill("Python", 80), new Skill("TypeScript", 75)));
+    List<Project> list = new ArrayList<>(projects);
+    for (int i = 0; i < projects; i++) {
+      list.add(Project.builder()
+              .name("project-" + i)
+              .description("A project used to measure serialization of embedded lists, number " + i)
+              .status(i % 3 == 0 ? "active" : "archived")
+              .featured(i % 10 == 0)
+              .technologies(List.of("Java", "Spring Boot", "MongoDB", "React"))
+              .team(List.of("alice", "bob", "carol"))
+              .lastUpdated("2024-01-01T00:00:00Z")
+              .stars(i * 7)
+              .commits(i * 31)
+              .build());
+    }
+    user.setProjects(list);
+    return user;
+  }
+
+  static List<Activity> activities(String userId, int count) {
+    List<Activity> list = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      list.add(Activity.builder()
+              .id(new ObjectId().toHexString())
+              .userId(userId)
+              .repositoryId(new ObjectId().toHexString())
+              .icon("commit")
+              .description("Updated file" + i + ".py in project-" + i)
+              .time("2024-01-01T00:00:00Z")
+              .createdAt(new Date(0))
+              .build());
+    }
+    return list;
+  }
+
+  static CodeRepository repository(int files) {
+    CodeRepository repository = new CodeRepository();
+    repository.setId(new ObjectId().toHexString());
+    repository.setRepositoryName("benchmark-repository");
+    repository.setDescription("Repository with many file ids and collaborators");
+    repository.setCreatedAt(new Date(0));
+    repository.setUpdatedAt(new Date(0));
+    repository.setOwnerId(new ObjectId().toHexString());
+    List<String> fileIds = new ArrayList<>(files);
+    for (int i = 0; i < files; i++) {
+      fileIds.add(new ObjectId().toHexString());
+    }
+    repository.setFileIds(fileIds);
+    repository.setCollaboratorIds(List.of(new ObjectId().toHexString(), new ObjectId().toHexString()));
+    return repository;
+  }
+}
@@ -0,0 +1,66 @@
+package org.tilakpatellshreyaan.devspacebackend.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.tilakpatellshreyaan.devspacebackend.model.CodeRepository;
+import org.tilakpatellshreyaan.devspacebackend.model.FileData;
+import org.tilakpatellshreyaan.devspacebackend.model.User;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON serialization of the documents the controllers return most: a file with its content, a
+ * user with a long project list and a repository with many file ids.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+  @Param({"1024", "262144"})
+  public int contentBytes;
+
+  @Param({"10", "500"})
+  public int elements;
+
+  private ObjectMapper objectMapper;
+  private FileData file;
+  private User user;
+  private CodeRepository repository;
+
+  @Setup
+  public void setUp() {
+    objectMapper = Fixtures.objectMapper();
+    file = Fixtures.file(contentBytes);
+    user = Fixtures.user(elements);
+    repository = Fixtures.repository(elements);
+  }
+
+  @Benchmark
+  public byte[] fileData() throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(file);
+  }
+
+  @Benchmark
+  public byte[] user() throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(user);
+  }
+
+  @Benchmark
+  public byte[] codeRepository() throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(repository);
+  }
+}
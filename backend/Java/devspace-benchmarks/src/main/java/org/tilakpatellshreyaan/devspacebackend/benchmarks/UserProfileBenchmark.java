@@ -0,0 +1,61 @@
+package org.tilakpatellshreyaan.devspacebackend.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.tilakpatellshreyaan.devspacebackend.controller.UserController;
+import org.tilakpatellshreyaan.devspacebackend.model.Activity;
+import org.tilakpatellshreyaan.devspacebackend.model.User;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code GET /api/auth/profile/{id}} without the reads: assembling the profile map and writing it
+ * out, for a user with a long project list and a page of activities.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserProfileBenchmark {
+  @Param({"10", "500"})
+  public int projects;
+
+  @Param({"10", "100"})
+  public int activities;
+
+  private ObjectMapper objectMapper;
+  private User user;
+  private List<Activity> feed;
+
+  @Setup
+  public void setUp() {
+    objectMapper = Fixtures.objectMapper();
+    user = Fixtures.user(projects);
+    feed = Fixtures.activities(user.getId(), activities);
+  }
+
+  @Benchmark
+  public Map<String, Object> assemble() {
+    return UserController.profileResponse(user, feed);
+  }
+
+  @Benchmark
+  public byte[] assembleAndSerialize() throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(UserController.profileResponse(user, feed));
+  }
+}
@@ -1,5 +1,7 @@
 import asyncio
+import base64
 import os
+import zlib
 import uuid
 from fastapi import FastAPI, WebSocket
 from fastapi.websockets import WebSocketDisconnect
@@ -7,12 +9,20 @@ import subprocess
 import json
 import logging
 
+try:
+    import cbor2
+except ImportError:  # Without cbor2 the service only offers JSON text frames
+    cbor2 = None
+
 # Configure logging
 logging.basicConfig(level=logging.INFO)
 logger = logging.getLogger(__name__)
 
 app = FastAPI()
 
+# Subprotocol for CBOR binary frames; clients that do not offer it get JSON text frames
+BINARY_PROTOCOL = "devspace.cbor.v1"
+
 DOCKER_CONFIGS = {
     "python": {
         "image": "nvcr.io/nvidia/l4t-ml:r32.6.1-py3",
@@ -53,154 +63,245 @@ DOCKER_CONFIGS = {
 }
 
 
-@app.websocket("/ws")
-async def websocket_endpoint(websocket: WebSocket):
-    await websocket.accept()
-    project_dir = None
+async def stream_process(process, reply, extra=None):
+    """Relays a process's stdout and stderr line by line, tagging each reply with extra."""
+    async def stream_output(stream, type_):
+        try:
+            while True:
+                line = await stream.readline()
+                if not line:
+                    break
+                try:
+                    line_text = line.decode().strip()
+                    if line_text:
+                        await reply({"type": type_, "data": line_text, **(extra or {})})
+                except UnicodeDecodeError:
+                    continue
+        except Exception as e:
+            logger.error(f"Error in stream_output: {str(e)}")
+
+    await asyncio.gather(
+        stream_output(process.stdout, "output"),
+        stream_output(process.stderr, "error")
+    )
+    return await process.wait()
+
+
+def worse_exit_code(worst, exit_code):
+    # Any failure beats success; between failures the larger magnitude wins, so -1 for a skipped
+    # file is not hidden by a later clean run.
+    return exit_code if abs(exit_code) > abs(worst) else worst
 
+
+async def run_batch(data, reply):
+    """
+    Runs every file of a batch request in one container per image instead of one per file, since
+    starting the container dominates a short run. Each file gets its own directory and its output
+    and exit code are tagged with its fileId; the final status carries the worst exit code.
+    """
+    if data.get("encoding") != "deflate":
+        raise ValueError(f"Unsupported batch encoding: {data.get('encoding')}")
+    files = json.loads(zlib.decompress(base64.b64decode(data["files"])))
+
+    project_dir = f"/tmp/batch_{str(uuid.uuid4())[:8]}"
+    groups = {}
+    worst = 0
     try:
-        logger.info("WebSocket connection accepted")
-        
-        while True:
-            message = await websocket.receive_text()
-            logger.info(f"Received message: {message}")
-            
+        for index, entry in enumerate(files):
+            language = entry.get("language") or "python"
+            if language not in DOCKER_CONFIGS:
+                await reply({"type": "error", "data": f"Unsupported language: {language}", "fileId": entry["fileId"]})
+                await reply({"type": "file_complete", "fileId": entry["fileId"], "exit_code": -1})
+                worst = worse_exit_code(worst, -1)
+                continue
+            config = DOCKER_CONFIGS[language]
+            file_dir = os.path.join(project_dir, str(index))
+            os.makedirs(file_dir, exist_ok=True)
+            with open(os.path.join(file_dir, f"Main{config['file_ext']}"), "w") as file:
+                file.write(entry.get("content") or "")
+            groups.setdefault((config["image"], config["gpu_flags"]), []).append((index, entry, config))
+
+        for (image, gpu_flags), entries in groups.items():
+            start = await asyncio.create_subprocess_shell(
+                f"docker run -d --rm {gpu_flags} -v {project_dir}:/workspace --memory=2g --cpus=2 {image} sleep infinity",
+                stdout=asyncio.subprocess.PIPE,
+                stderr=asyncio.subprocess.PIPE
+            )
+            stdout, stderr = await start.communicate()
+            if start.returncode != 0:
+                raise RuntimeError(f"Could not start batch container: {stderr.decode().strip()}")
+            container = stdout.decode().strip()
             try:
-                data = json.loads(message)
-                
-                if data.get("type") == "command":
-                    # Handle shell command
-                    command = data.get("command")
-                    working_dir = data.get("workingDir", "/workspace")
-                    
-                    docker_cmd = f"""
-                    docker run --rm {DOCKER_CONFIGS['python']['gpu_flags']} \
-                    -v {working_dir}:/workspace \
-                    --workdir=/workspace \
-                    --memory=2g \
-                    --cpus=2 \
-                    {DOCKER_CONFIGS['python']['image']} \
-                    bash -c "{command}"
-                    """
-                    
-                    process = await asyncio.create_subprocess_shell(
-                        docker_cmd,
-                        stdout=asyncio.subprocess.PIPE,
-                        stderr=asyncio.subprocess.PIPE
-                    )
-                    
-                    stdout, stderr = await process.communicate()
-                    
-                    if stdout:
-                        await websocket.send_text(json.dumps({
-                            "type": "output",
-                            "data": stdout.decode()
-                        }))
-                    if stderr:
-                        await websocket.send_text(json.dumps({
-                            "type": "error",
-                            "data": stderr.decode()
-                        }))
-                    
-                    await websocket.send_text(json.dumps({
-                        "type": "status",
-                        "status": "complete",
-                        "exit_code": process.returncode
-                    }))
-                    
-                else:
-                    # Handle file execution
-                    filename = data.get("filename")
-                    language = data.get("language", "python")
-                    content = data.get("content")
-                    working_dir = data.get("workingDir", "/workspace")
-                    
-                    if not filename or content is None:
-                        raise ValueError("Missing required file details")
-
-                    if language not in DOCKER_CONFIGS:
-                        raise ValueError(f"Unsupported language: {language}")
-
-                    # Prepare execution environment
-                    config = DOCKER_CONFIGS[language]
-                    project_id = str(uuid.uuid4())[:8]
-                    project_dir = f"/tmp/project_{project_id}"
-                    os.makedirs(project_dir, exist_ok=True)
-
-                    file_path = os.path.join(project_dir, f"Main{config['file_ext']}")
-                    with open(file_path, "w") as file:
-                        file.write(content)
-
-                    logger.info(f"Saved file at {file_path}")
-
-                    # Construct Docker command with working directory support
-                    docker_cmd = f"""
-                    docker run --rm {config['gpu_flags']} \
-                    -v {project_dir}:/workspace \
-                    -v {working_dir}:/workdir \
-                    --workdir=/workdir \
-                    --memory=2g \
-                    --cpus=2 \
-                    {config['image']} \
-                    bash -c "cd /workspace && {config['run_cmd']}"
-                    """
-                    logger.info(f"Docker command: {docker_cmd}")
-
-                    # Run process inside Docker
-                    process = await asyncio.create_subprocess_shell(
-                        docker_cmd,
+                for index, entry, config in entries:
+                    process = await asyncio.create_subprocess_exec(
+                        "docker", "exec", "-w", f"/workspace/{index}", container, "bash", "-c", config["run_cmd"],
                         stdout=asyncio.subprocess.PIPE,
                         stderr=asyncio.subprocess.PIPE
                     )
+                    exit_code = await stream_process(process, reply, {"fileId": entry["fileId"]})
+                    await reply({"type": "file_complete", "fileId": entry["fileId"], "exit_code": exit_code})
+                    worst = worse_exit_code(worst, exit_code)
+            finally:
+                subprocess.run(["docker", "rm", "-f", container], capture_output=True)
 
-                    # Stream output to WebSocket
-                    async def stream_output(stream, type_):
-                        try:
-                            while True:
-                                line = await stream.readline()
-                                if not line:
-                                    break
-                                try:
-                                    line_text = line.decode().strip()
-                                    if line_text:
-                                        logger.info(f"Got {type_}: {line_text}")
-                                        await websocket.send_text(json.dumps({
-                                            "type": type_,
-                                            "data": line_text
-                                        }))
-                                except UnicodeDecodeError:
-                                    continue
-                        except Exception as e:
-                            logger.error(f"Error in stream_output: {str(e)}")
-
-                    await asyncio.gather(
-                        stream_output(process.stdout, "output"),
-                        stream_output(process.stderr, "error")
-                    )
+        logger.info(f"Batch of {len(files)} files completed")
+        await reply({"status": "complete", "exit_code": worst})
+    finally:
+        if os.path.exists(project_dir):
+            subprocess.run(["rm", "-rf", project_dir])
 
-                    await process.wait()
-                    logger.info(f"Execution completed with exit code: {process.returncode}")
 
-                    await websocket.send_text(json.dumps({
-                        "status": "complete",
-                        "exit_code": process.returncode
-                    }))
+async def handle_message(message, send):
+    project_dir = None
+    try:
+        data = cbor2.loads(message) if isinstance(message, bytes) else json.loads(message)
+    except ValueError as e:  # JSONDecodeError and CBORDecodeError are both ValueErrors
+        logger.error(f"Message decode error: {str(e)}")
+        await send({
+            "type": "error",
+            "data": f"Invalid message format: {str(e)}"
+        })
+        return
 
-            except json.JSONDecodeError as e:
-                logger.error(f"JSON decode error: {str(e)}")
-                await websocket.send_text(json.dumps({
-                    "type": "error",
-                    "data": f"Invalid message format: {str(e)}"
-                }))
-            except Exception as e:
-                logger.error(f"Error during execution: {str(e)}")
-                await websocket.send_text(json.dumps({
+    request_id = data.get("requestId")
+
+    async def reply(payload):
+        if request_id is not None:
+            payload["requestId"] = request_id
+        await send(payload)
+
+    try:
+        if data.get("type") == "command":
+            # Handle shell command
+            command = data.get("command")
+            working_dir = data.get("workingDir", "/workspace")
+
+            docker_cmd = f"""
+            docker run --rm {DOCKER_CONFIGS['python']['gpu_flags']} \
+            -v {working_dir}:/workspace \
+            --workdir=/workspace \
+            --memory=2g \
+            --cpus=2 \
+            {DOCKER_CONFIGS['python']['image']} \
+            bash -c "{command}"
+            """
+
+            process = await asyncio.create_subprocess_shell(
+                docker_cmd,
+                stdout=asyncio.subprocess.PIPE,
+                stderr=asyncio.subprocess.PIPE
+            )
+
+            stdout, stderr = await process.communicate()
+
+            if stdout:
+                await reply({
+                    "type": "output",
+                    "data": stdout.decode()
+                })
+            if stderr:
+                await reply({
                     "type": "error",
-                    "data": str(e)
-                }))
+                    "data": stderr.decode()
+                })
 
-    except WebSocketDisconnect:
-        logger.info("WebSocket disconnected")
+            await reply({
+                "type": "status",
+                "status": "complete",
+                "exit_code": process.returncode
+            })
+        elif data.get("type") == "batch":
+            await run_batch(data, reply)
+
+        else:
+            # Handle file execution
+            filename = data.get("filename")
+            language = data.get("language", "python")
+            content = data.get("content")
+            working_dir = data.get("workingDir", "/workspace")
+
+            if not filename or content is None:
+                raise ValueError("Missing required file details")
+
+            if language not in DOCKER_CONFIGS:
+                raise ValueError(f"Unsupported language: {language}")
+
+            # Prepare execution environment
+            config = DOCKER_CONFIGS[language]
+            project_id = str(uuid.uuid4())[:8]
+            project_dir = f"/tmp/project_{project_id}"
+            os.makedirs(project_dir, exist_ok=True)
+
+            file_path = os.path.join(project_dir, f"Main{config['file_ext']}")
+            with open(file_path, "w") as file:
+                file.write(content)
+
+            logger.info(f"Saved file at {file_path}")
+
+            # Construct Docker command with working directory support
+            docker_cmd = f"""
+            docker run --rm {config['gpu_flags']} \
+            -v {project_dir}:/workspace \
+            -v {working_dir}:/workdir \
+            --workdir=/workdir \
+            --memory=2g \
+            --cpus=2 \
+            {config['image']} \
+            bash -c "cd /workspace && {config['run_cmd']}"
+            """
+            logger.info(f"Docker command: {docker_cmd}")
+
+            # Run process inside Docker
+            process = await asyncio.create_subprocess_shell(
+                docker_cmd,
+                stdout=asyncio.subprocess.PIPE,
+                stderr=asyncio.subprocess.PIPE
+            )
+
+            # Stream output to WebSocket
+            async def stream_output(stream, type_):
+                try:
+                    while True:
+                        line = await stream.readline()
+                        if not line:
+                            break
+                        try:
+                            line_text = line.decode().strip()
+                            if line_text:
+                                logger.info(f"Got {type_}: {line_text}")
+                                await reply({
+                                    "type": type_,
+                                    "data": line_text
+                                })
+                        except UnicodeDecodeError:
+                            continue
+                except Exception as e:
+                    logger.error(f"Error in stream_output: {str(e)}")
+
+            await asyncio.gather(
+                stream_output(process.stdout, "output"),
+                stream_output(process.stderr, "error")
+            )
+
+            await process.wait()
+            logger.info(f"Execution completed with exit code: {process.returncode}")
+
+            await reply({
+                "status": "complete",
+                "exit_code": process.returncode
+            })
+
+    except Exception as e:
+        logger.error(f"Error during execution: {str(e)}")
+        await reply({
+            "type": "error",
+            "data": str(e)
+        })
+        # Always terminate the request so the backend can release it
+        await reply({
+            "status": "complete",
+            "exit_code": -1
+        })
     finally:
         if project_dir and os.path.exists(project_dir):
             try:
@@ -208,6 +309,43 @@ async def websocket_endpoint(websocket: WebSocket):
                 logger.info(f"Cleaned up {project_dir}")
             except Exception as e:
                 logger.error(f"Cleanup error: {e}")
+
+
+@app.websocket("/ws")
+async def websocket_endpoint(websocket: WebSocket):
+    binary = cbor2 is not None and BINARY_PROTOCOL in websocket.scope.get("subprotocols", [])
+    await websocket.accept(subprotocol=BINARY_PROTOCOL if binary else None)
+    send_lock = asyncio.Lock()
+    tasks = set()
+
+    async def send(payload):
+        async with send_lock:
+            if binary:
+                await websocket.send_bytes(cbor2.dumps(payload))
+            else:
+                await websocket.send_text(json.dumps(payload))
+
+    try:
+        logger.info(f"WebSocket connection accepted ({BINARY_PROTOCOL if binary else 'json'})")
+
+        while True:
+            received = await websocket.receive()
+            if received["type"] == "websocket.disconnect":
+                raise WebSocketDisconnect(received.get("code", 1000))
+            # Fragmented frames arrive here already reassembled, and deflated ones inflated
+            message = received.get("bytes") if received.get("bytes") is not None else received.get("text")
+            logger.info(f"Received {len(message)} {'byte' if isinstance(message, bytes) else 'char'} message")
+
+            # Requests multiplexed on one connection run concurrently; replies carry their requestId
+            task = asyncio.create_task(handle_message(message, send))
+            tasks.add(task)
+            task.add_done_callback(tasks.discard)
+
+    except WebSocketDisconnect:
+        logger.info("WebSocket disconnected")
+    finally:
+        for task in tasks:
+            task.cancel()
                 
 
 if __name__ == "__main__":